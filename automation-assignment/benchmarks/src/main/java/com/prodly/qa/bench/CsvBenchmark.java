@@ -0,0 +1,61 @@
+package com.prodly.qa.bench;
+
+import com.prodly.qa.models.Account;
+import com.prodly.qa.utils.CsvUtil;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/** CsvUtil export, re-read and phone-column passes over 10k..1M row files. */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 3)
+@Fork(1)
+public class CsvBenchmark {
+
+    @Param({"10000", "100000", "1000000"})
+    public int rows;
+
+    private File dir;
+    private List<Account> accounts;
+    private File noPhone;
+    private File withPhone;
+    private File out;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        dir = Files.createTempDirectory("csv-bench").toFile();
+        accounts = SeedData.accounts(rows, 42);
+        noPhone = SeedData.accountsCsv(dir, rows);
+        withPhone = SeedData.accountsWithPhoneCsv(dir, rows);
+        out = new File(dir, "out.csv");
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        File[] files = dir.listFiles();
+        if (files != null) for (File f : files) f.delete();
+        dir.delete();
+    }
+
+    @Benchmark
+    public File writeAccountsNoPhone() throws IOException {
+        return CsvUtil.writeAccountsNoPhone(out, accounts);
+    }
+
+    @Benchmark
+    public List<Account> readWithPhones() throws IOException {
+        return CsvUtil.readWithPhones(withPhone);
+    }
+
+    @Benchmark
+    public File addPhoneColumn() throws IOException {
+        return CsvUtil.addPhoneColumn(noPhone, out);
+    }
+}
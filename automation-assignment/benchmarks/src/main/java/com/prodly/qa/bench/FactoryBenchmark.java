@@ -0,0 +1,70 @@
+package com.prodly.qa.bench;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.prodly.qa.api.CollectionBody;
+import com.prodly.qa.factories.AccountFactory;
+import com.prodly.qa.factories.AccountGenerator;
+import com.prodly.qa.models.Account;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/** Synthetic Account generation and the toMap + JSON request-body path. */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FactoryBenchmark {
+    private static final ObjectMapper om = new ObjectMapper();
+
+    @Param({"200", "10000"})
+    public int count;
+
+    private List<Account> batch;
+    private AccountGenerator generator;
+
+    @Setup
+    public void setup() {
+        batch = SeedData.accounts(count, 42);
+        generator = AccountGenerator.builder().seed(42).defaultCountries().build();
+    }
+
+    @Benchmark
+    public List<Account> build() {
+        return AccountFactory.build(count);
+    }
+
+    /** Same count from the lazy generator, consumed without building a list. */
+    @Benchmark
+    public long generate() {
+        return generator.stream(count).mapToLong(Account::getNumberOfEmployees).sum();
+    }
+
+    @Benchmark
+    public long generateParallel() {
+        return generator.stream(count).parallel().mapToLong(Account::getNumberOfEmployees).sum();
+    }
+
+    @Benchmark
+    public Map<String, Object> toMap() {
+        return batch.get(0).toMap();
+    }
+
+    /** Serialize the whole batch through toMap() + ObjectMapper (the map-based collection path). */
+    @Benchmark
+    public byte[] toMapJson() throws Exception {
+        Object[] maps = new Object[batch.size()];
+        for (int i = 0; i < maps.length; i++) maps[i] = batch.get(i).toMap();
+        return om.writeValueAsBytes(maps);
+    }
+
+    /** The same batch written straight into the reused per-thread buffer, as collection calls do now. */
+    @Benchmark
+    public int directJson() {
+        return CollectionBody.write("Account", batch, CollectionBody.ACCOUNT).size();
+    }
+}
@@ -0,0 +1,47 @@
+package com.prodly.qa.bench;
+
+import com.prodly.qa.utils.PhoneGenerator;
+import com.prodly.qa.utils.PhoneNormalizer;
+import com.prodly.qa.utils.PhoneValidator;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/** Per-row phone generation, validation and normalization cost. */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PhoneBenchmark {
+    private String[] phones;
+    private int i;
+
+    @Setup
+    public void setup() {
+        phones = SeedData.phones(1024, 7);
+    }
+
+    @Benchmark
+    public String forCountry() {
+        return PhoneGenerator.forCountry(SeedData.COUNTRIES[i++ % SeedData.COUNTRIES.length]);
+    }
+
+    @Benchmark
+    public boolean isValid() {
+        return PhoneValidator.isValid(phones[i++ & 1023]);
+    }
+
+    @Benchmark
+    public String normalize() {
+        return PhoneNormalizer.toE164(phones[i++ & 1023], "Australia");
+    }
+
+    @Benchmark
+    @Threads(4)
+    public void forCountryContended(Blackhole bh) {
+        bh.consume(PhoneGenerator.forCountry("US"));
+    }
+}
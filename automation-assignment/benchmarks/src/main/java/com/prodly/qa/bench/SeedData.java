@@ -0,0 +1,109 @@
+package com.prodly.qa.bench;
+
+import com.prodly.qa.models.Account;
+import com.prodly.qa.utils.CsvUtil;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * Deterministic benchmark inputs modeled on data/Account.csv and data/Contact.csv:
+ * the same phone notations (dotted NANP, Australian trunk prefix, international 011/+ forms,
+ * #N/A placeholders) and the CsvUtil account layout used by the flow.
+ */
+public class SeedData {
+    static final String[] COUNTRIES = {"US", "GB", "DE", "FR", "UA"};
+
+    /** Phone values as they appear in the seed CSVs. */
+    static final String[] RAW_PHONES = {
+            "1.508.390.1000", "(02) 7112 6523", "011 49 69 3576 6843", "(402)952-5053",
+            "+81 725 925939", "(150) 973-1240", "(03) 5338 4074", "#N/A",
+            "+1 212 485 3500", "+44 20 7946 0958", "1.917.663.2000", "(07) 8503 6141"
+    };
+
+    public static List<Account> accounts(int rows, long seed) {
+        SplittableRandom rnd = new SplittableRandom(seed);
+        List<Account> list = new ArrayList<>(rows);
+        for (int i = 0; i < rows; i++) {
+            String country = COUNTRIES[rnd.nextInt(COUNTRIES.length)];
+            int employees = "US".equals(country) ? rnd.nextInt(150, 500) : rnd.nextInt(20, 120);
+            Account a = new Account("AutoAcct-bench-" + Integer.toString(i, 36), country, employees);
+            a.setId(String.format("001%015d", i));
+            list.add(a);
+        }
+        return list;
+    }
+
+    /** CSV in the flow's export format (Id, Name, Country, NumberOfEmployees). */
+    public static File accountsCsv(File dir, int rows) throws IOException {
+        File f = new File(dir, "accounts-" + rows + ".csv");
+        if (!f.exists()) CsvUtil.writeAccountsNoPhone(f, accounts(rows, 42));
+        return f;
+    }
+
+    /** Same layout with a Phone column, as pushed to the phones branch. */
+    public static File accountsWithPhoneCsv(File dir, int rows) throws IOException {
+        File f = new File(dir, "accounts-phone-" + rows + ".csv");
+        if (!f.exists()) CsvUtil.addPhoneColumn(accountsCsv(dir, rows), f);
+        return f;
+    }
+
+    /** Columns of the Contact-shaped file: 48 wide, like data/Contact.csv. */
+    static final String[] CONTACT_COLUMNS = contactColumns();
+
+    private static String[] contactColumns() {
+        String[] named = {"Id", "AccountId", "LastName", "FirstName", "MailingStreet", "MailingCity",
+                "MailingCountry", "Phone", "MobilePhone", "Email", "Title", "Description"};
+        String[] cols = new String[48];
+        for (int i = 0; i < cols.length; i++) cols[i] = i < named.length ? named[i] : "Custom" + i + "__c";
+        return cols;
+    }
+
+    /**
+     * Contact-shaped CSV: 48 columns, about two thirds #N/A, quoted streets with commas and
+     * multi-line quoted descriptions, as in data/Contact.csv.
+     */
+    public static File contactsCsv(File dir, int rows) throws IOException {
+        File f = new File(dir, "contacts-" + rows + ".csv");
+        if (f.exists()) return f;
+        SplittableRandom rnd = new SplittableRandom(7);
+        try (Writer w = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(f), StandardCharsets.UTF_8))) {
+            w.write(String.join(",", CONTACT_COLUMNS));
+            w.write("\r\n");
+            for (int i = 0; i < rows; i++) {
+                w.write(String.format("003%015d", i));
+                for (int c = 1; c < CONTACT_COLUMNS.length; c++) {
+                    w.write(',');
+                    if (c > 2 && rnd.nextInt(3) != 0) {
+                        w.write("#N/A");
+                        continue;
+                    }
+                    switch (CONTACT_COLUMNS[c]) {
+                        case "MailingStreet": w.write("\"" + rnd.nextInt(1, 9999) + " Main St, Suite " + rnd.nextInt(100) + "\""); break;
+                        case "Phone": case "MobilePhone": w.write(RAW_PHONES[rnd.nextInt(RAW_PHONES.length)]); break;
+                        case "Email": w.write("contact" + i + "@example.com"); break;
+                        case "Description": w.write("\"Met at \"\"Summit\"\"\nFollow up in Q" + rnd.nextInt(1, 5) + "\""); break;
+                        default: w.write("v" + Integer.toString(rnd.nextInt(1 << 20), 36));
+                    }
+                }
+                w.write("\r\n");
+            }
+        }
+        return f;
+    }
+
+    /** Mix of valid E.164 numbers and the raw notations from the seed files. */
+    public static String[] phones(int n, long seed) {
+        SplittableRandom rnd = new SplittableRandom(seed);
+        String[] out = new String[n];
+        for (int i = 0; i < n; i++) {
+            out[i] = (i & 1) == 0
+                    ? RAW_PHONES[rnd.nextInt(RAW_PHONES.length)]
+                    : "+1 (" + (200 + rnd.nextInt(800)) + ") " + (100 + rnd.nextInt(900)) + "-" + (1000 + rnd.nextInt(9000));
+        }
+        return out;
+    }
+}
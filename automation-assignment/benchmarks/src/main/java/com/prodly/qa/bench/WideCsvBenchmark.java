@@ -0,0 +1,84 @@
+package com.prodly.qa.bench;
+
+import com.prodly.qa.utils.MappedCsvReader;
+import org.apache.commons.csv.CSVFormat;
+import org.apache.commons.csv.CSVParser;
+import org.apache.commons.csv.CSVRecord;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/** Reading 4 of 48 columns of a Contact-shaped file: commons-csv vs MappedCsvReader (one thread and split). */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 3)
+@Fork(1)
+public class WideCsvBenchmark {
+    private static final String[] PROJECTION = {"Id", "LastName", "Email", "Phone"};
+
+    @Param({"10000", "100000"})
+    public int rows;
+
+    private File dir;
+    private File contacts;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        dir = Files.createTempDirectory("wide-csv-bench").toFile();
+        contacts = SeedData.contactsCsv(dir, rows);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        File[] files = dir.listFiles();
+        if (files != null) for (File f : files) f.delete();
+        dir.delete();
+    }
+
+    @Benchmark
+    public long commonsCsv() throws IOException {
+        long sum = 0;
+        try (Reader r = new InputStreamReader(new FileInputStream(contacts), StandardCharsets.UTF_8);
+             CSVParser parser = CSVFormat.DEFAULT.withFirstRecordAsHeader().parse(r)) {
+            for (CSVRecord rec : parser) {
+                for (String c : PROJECTION) {
+                    String v = rec.get(c);
+                    if (!"#N/A".equals(v)) sum += v.length();
+                }
+            }
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public long mapped() throws IOException {
+        long[] sum = {0};
+        MappedCsvReader.open(contacts, PROJECTION).forEach(rec -> {
+            for (int i = 0; i < PROJECTION.length; i++) {
+                String v = rec.get(i);
+                if (v != null) sum[0] += v.length();
+            }
+        });
+        return sum[0];
+    }
+
+    @Benchmark
+    public long mappedParallel() throws IOException {
+        AtomicLong sum = new AtomicLong();
+        MappedCsvReader.open(contacts, PROJECTION).parallelForEach(Runtime.getRuntime().availableProcessors(), rec -> {
+            long s = 0;
+            for (int i = 0; i < PROJECTION.length; i++) {
+                String v = rec.get(i);
+                if (v != null) s += v.length();
+            }
+            sum.addAndGet(s);
+        });
+        return sum.get();
+    }
+}
@@ -0,0 +1,101 @@
+package com.prodly.qa.api;
+
+import io.restassured.response.Response;
+
+import java.net.http.HttpResponse;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.function.Function;
+
+/**
+ * A non-success HTTP response from Salesforce or GitHub. Carries what {@link RetryPolicy} needs
+ * to classify it: the status, the Salesforce errorCode (if any) and the server-requested delay.
+ */
+public class ApiException extends RuntimeException {
+    private static final long serialVersionUID = 1L;
+
+    private final int status;
+    private final String errorCode;
+    private final long retryAfterMs;
+    private final boolean rateLimited;
+
+    public ApiException(String message, int status, String errorCode, long retryAfterMs, boolean rateLimited) {
+        super(message);
+        this.status = status;
+        this.errorCode = errorCode;
+        this.retryAfterMs = retryAfterMs;
+        this.rateLimited = rateLimited;
+    }
+
+    /** e.g. of("Collection create failed", r) -> "Collection create failed: 503 &lt;body&gt;". */
+    public static ApiException of(String what, Response r) {
+        return of(what, r.statusCode(), r.asString(), r::header);
+    }
+
+    public static ApiException of(String what, HttpResponse<?> r, String body) {
+        return of(what, r.statusCode(), body, h -> r.headers().firstValue(h).orElse(null));
+    }
+
+    private static ApiException of(String what, int status, String body, Function<String, String> header) {
+        String code = errorCode(body);
+        long wait = retryAfter(header.apply("Retry-After"));
+        // GitHub primary rate limit: 403/429 with X-RateLimit-Remaining: 0, resets at an epoch second
+        boolean rateLimited = "0".equals(header.apply("X-RateLimit-Remaining"));
+        if (rateLimited && wait < 0) {
+            String reset = header.apply("X-RateLimit-Reset");
+            if (reset != null) {
+                try {
+                    wait = Math.max(0, Long.parseLong(reset.trim()) * 1000 - System.currentTimeMillis());
+                } catch (NumberFormatException ignored) {}
+            }
+        }
+        return new ApiException(what + ": " + status + " " + body, status, code, wait, rateLimited);
+    }
+
+    public int status() { return status; }
+
+    /** Salesforce errorCode from the response body (e.g. REQUEST_LIMIT_EXCEEDED), or null. */
+    public String errorCode() { return errorCode; }
+
+    /** Delay requested by Retry-After / X-RateLimit-Reset in ms, or -1 if none was sent. */
+    public long retryAfterMs() { return retryAfterMs; }
+
+    /** Overload or outage rather than a problem with the request itself, so worth retrying. */
+    public boolean isTransient() {
+        return status == 429 || status == 502 || status == 503 || status == 504
+                || "REQUEST_LIMIT_EXCEEDED".equals(errorCode)
+                || "SERVER_UNAVAILABLE".equals(errorCode)
+                || status == 403 && rateLimited;
+    }
+
+    /** Rejected for load before the request was processed, so nothing was written. */
+    public boolean isUnprocessed() {
+        return status == 429 || "REQUEST_LIMIT_EXCEEDED".equals(errorCode);
+    }
+
+    /** Retry-After is either delta-seconds or an HTTP-date. */
+    static long retryAfter(String value) {
+        if (value == null || value.isBlank()) return -1;
+        String v = value.trim();
+        try {
+            return Math.max(0, Long.parseLong(v) * 1000);
+        } catch (NumberFormatException ignored) {}
+        try {
+            long at = ZonedDateTime.parse(v, DateTimeFormatter.RFC_1123_DATE_TIME).toInstant().toEpochMilli();
+            return Math.max(0, at - System.currentTimeMillis());
+        } catch (RuntimeException ignored) {
+            return -1;
+        }
+    }
+
+    /** First "errorCode" value in a Salesforce error body ([{"message":..,"errorCode":..}]). */
+    static String errorCode(String body) {
+        if (body == null) return null;
+        int k = body.indexOf("\"errorCode\"");
+        if (k < 0) return null;
+        int colon = body.indexOf(':', k);
+        int open = colon < 0 ? -1 : body.indexOf('"', colon + 1);
+        int close = open < 0 ? -1 : body.indexOf('"', open + 1);
+        return close < 0 ? null : body.substring(open + 1, close);
+    }
+}
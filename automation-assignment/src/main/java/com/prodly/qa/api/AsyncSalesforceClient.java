@@ -0,0 +1,278 @@
+package com.prodly.qa.api;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.prodly.qa.config.Config;
+import com.prodly.qa.models.SaveResult;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+/**
+ * Non-blocking view of a {@link SalesforceClient}: the same calls return CompletableFutures and go
+ * out through java.net.http sendAsync, so no thread waits on a response. It shares the client's
+ * token, retry policy (retries are timer-scheduled) and query cache invalidation.
+ *
+ * <p>At most permits calls are in flight (pipelined over the shared connection pool / HTTP/2);
+ * further calls wait in a queue without holding a thread and start as permits free up. When
+ * maxQueued calls are already waiting, the submitting thread blocks until one starts, so a fast
+ * producer is slowed to the server's pace. Don't submit from a completion callback while the
+ * queue may be full: that callback's thread may be the one that would drain it.
+ */
+public class AsyncSalesforceClient {
+    private static final Logger log = LoggerFactory.getLogger(AsyncSalesforceClient.class);
+    private static final ObjectMapper om = new ObjectMapper()
+            .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+    private static final ObjectReader ROW_READER = om.readerFor(new TypeReference<Map<String, Object>>() {});
+
+    private final SalesforceClient sf;
+    private final int permits;
+    private final int maxQueued;
+    private final Deque<Runnable> waiting = new ArrayDeque<>();
+    private final AtomicInteger drainers = new AtomicInteger();
+    private int inFlight;
+
+    public AsyncSalesforceClient(SalesforceClient sf) { this(sf, Config.SF_ASYNC_PERMITS, Config.SF_ASYNC_MAX_QUEUED); }
+
+    /**
+     * @param permits   max calls in flight
+     * @param maxQueued max calls waiting for a permit before submitters block
+     */
+    public AsyncSalesforceClient(SalesforceClient sf, int permits, int maxQueued) {
+        if (permits < 1 || maxQueued < 1) throw new IllegalArgumentException("permits and maxQueued must be positive");
+        this.sf = sf;
+        this.permits = permits;
+        this.maxQueued = maxQueued;
+    }
+
+    /** Completes once a valid token is available (cached or freshly fetched). */
+    public CompletableFuture<Void> authenticate() {
+        return sf.tokenAsync().thenAccept(t -> log.info("SF: auth OK, instance {}", t.instanceUrl));
+    }
+
+    public CompletableFuture<String> createAccount(Map<String, Object> fields) {
+        log.info("SF: create Account {} (async)", fields.get("Name"));
+        return call("async.createAccount", "Account", RetryPolicy::isUnprocessed, base -> json(base + "/sobjects/Account/", "POST", fields), r -> {
+            if (r.statusCode() != 201) throw ApiException.of("Create failed", r, r.body());
+            return readTree(r.body()).get("id").asText();
+        });
+    }
+
+    public CompletableFuture<Void> updateAccount(String id, Map<String, Object> fields) {
+        log.info("SF: update Account {} (async)", id);
+        return call("async.updateAccount", "Account", RetryPolicy::isTransient, base -> json(base + "/sobjects/Account/" + id, "PATCH", fields), r -> {
+            if (r.statusCode() != 204) throw ApiException.of("Update failed for " + id, r, r.body());
+            return null;
+        });
+    }
+
+    public CompletableFuture<Void> deleteAccount(String id) {
+        log.info("SF: delete Account {} (async)", id);
+        return call("async.deleteAccount", "Account", RetryPolicy::isTransient, base -> request(base + "/sobjects/Account/" + id).DELETE(), r -> {
+            if (r.statusCode() != 204 && r.statusCode() != 404) throw ApiException.of("Delete failed for " + id, r, r.body());
+            return null;
+        });
+    }
+
+    /** Create up to 200 records in one sObject Collections call, serialized by {@link CollectionBody}. */
+    public <T> CompletableFuture<List<SaveResult>> createRecords(String type, List<T> records, CollectionBody.Fields<T> fields) {
+        log.info("SF: create {} {} records (collection, async)", records.size(), type);
+        return collection("async.createRecords", "POST", "create", RetryPolicy::isUnprocessed, type, records, fields);
+    }
+
+    /** Update up to 200 records (fields must write "Id") in one sObject Collections call. */
+    public <T> CompletableFuture<List<SaveResult>> updateRecords(String type, List<T> records, CollectionBody.Fields<T> fields) {
+        log.info("SF: update {} {} records (collection, async)", records.size(), type);
+        return collection("async.updateRecords", "PATCH", "update", RetryPolicy::isTransient, type, records, fields);
+    }
+
+    /** Delete up to 200 records by id in one sObject Collections call. */
+    public CompletableFuture<List<SaveResult>> deleteRecords(List<String> ids) {
+        checkLimit(ids.size());
+        log.info("SF: delete {} records (collection, async)", ids.size());
+        String query = "?allOrNone=false&ids=" + String.join(",", ids);
+        // ids may be of any type, so every cached query is dropped
+        return call("async.deleteRecords", null, RetryPolicy::isTransient, base -> request(base + "/composite/sobjects" + query).DELETE(), r -> {
+            if (r.statusCode() != 200) throw ApiException.of("Collection delete failed", r, r.body());
+            return SalesforceClient.parseSaveResults(r.body());
+        });
+    }
+
+    /** All rows of a SOQL query; pages are fetched one after another under a single permit. */
+    public CompletableFuture<List<Map<String, Object>>> query(String soql) {
+        log.info("SF: query {} (async)", soql);
+        String first = SalesforceClient.API_PATH + "/query?q=" + URLEncoder.encode(soql, StandardCharsets.UTF_8);
+        return submit(() -> page(first, new ArrayList<>()));
+    }
+
+    /** Calls holding a permit right now. */
+    public synchronized int inFlight() { return inFlight; }
+
+    /** Calls waiting for a permit. */
+    public synchronized int queued() { return waiting.size(); }
+
+    /** Fetch the page at path (relative to the instance), append its rows and follow nextRecordsUrl. */
+    private CompletableFuture<List<Map<String, Object>>> page(String path, List<Map<String, Object>> rows) {
+        return sf.retryPolicy().executeAsync("async.query", () -> sf.sendAsync(instance -> request(instance + path)
+                                .header("Sforce-Query-Options", "batchSize=" + Config.SF_QUERY_BATCH_SIZE).GET(),
+                        HttpResponse.BodyHandlers.ofString())
+                        .thenApply(r -> {
+                            if (r.statusCode() != 200) throw ApiException.of("Query failed", r, r.body());
+                            return readTree(r.body());
+                        }))
+                .thenCompose(json -> {
+                    try {
+                        for (JsonNode rec : json.path("records")) rows.add(ROW_READER.readValue(rec));
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                    JsonNode next = json.get("nextRecordsUrl");
+                    return next == null || next.isNull() ? CompletableFuture.completedFuture(rows) : page(next.asText(), rows);
+                });
+    }
+
+    /** The thread's body buffer is copied because the exchange completes after this method returns. */
+    private <T> CompletableFuture<List<SaveResult>> collection(String op, String method, String what,
+                                                               Predicate<Throwable> retryable, String type,
+                                                               List<T> records, CollectionBody.Fields<T> fields) {
+        checkLimit(records.size());
+        byte[] body = CollectionBody.write(type, records, fields).toByteArray();
+        return call(op, type, retryable, base -> request(base + "/composite/sobjects")
+                .header("Content-Type", "application/json")
+                .method(method, HttpRequest.BodyPublishers.ofByteArray(body)), r -> {
+            if (r.statusCode() != 200) {
+                log.error("SF collection {} failed: {}", what, r.body());
+                throw ApiException.of("Collection " + what + " failed", r, r.body());
+            }
+            return SalesforceClient.parseSaveResults(r.body());
+        });
+    }
+
+    /** Builds the request for the versioned API root of an instance. */
+    private interface RequestFactory {
+        HttpRequest.Builder build(String apiBase);
+    }
+
+    /** Response to result; may throw (an ApiException decides whether the retry policy retries). */
+    private interface ResponseHandler<R> {
+        R handle(HttpResponse<String> r);
+    }
+
+    /**
+     * One write under a permit and the retry policy (resending only failures retryable accepts;
+     * creates are not idempotent); once its response is in, the sync client's cached queries of
+     * type invalidates (all of them when null) are dropped.
+     */
+    private <R> CompletableFuture<R> call(String op, String invalidates, Predicate<Throwable> retryable,
+                                          RequestFactory request, ResponseHandler<R> handler) {
+        return submit(() -> sf.retryPolicy().executeAsync(op, retryable, () -> sf.sendAsync(
+                        instance -> request.build(instance + SalesforceClient.API_PATH), HttpResponse.BodyHandlers.ofString())
+                .thenApply(r -> {
+                    sf.invalidateQueries(invalidates);
+                    return handler.handle(r);
+                })));
+    }
+
+    /** Run call once a permit is free; the returned future completes after the permit is released. */
+    private <T> CompletableFuture<T> submit(Supplier<CompletableFuture<T>> call) {
+        CompletableFuture<T> result = new CompletableFuture<>();
+        Runnable start = () -> {
+            CompletableFuture<T> f;
+            try {
+                f = call.get();
+            } catch (RuntimeException e) {
+                f = CompletableFuture.failedFuture(e);
+            }
+            f.whenComplete((v, e) -> {
+                release();
+                if (e != null) result.completeExceptionally(e);
+                else result.complete(v);
+            });
+        };
+        synchronized (this) {
+            while (waiting.size() >= maxQueued) {
+                try {
+                    wait();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    result.completeExceptionally(e);
+                    return result;
+                }
+            }
+            waiting.add(start);
+        }
+        drain();
+        return result;
+    }
+
+    private void release() {
+        synchronized (this) { inFlight--; }
+        drain();
+    }
+
+    /**
+     * Start queued calls while permits are free. Only one thread drains at a time; a call that
+     * completes synchronously releases into the running loop instead of recursing.
+     */
+    private void drain() {
+        if (drainers.getAndIncrement() != 0) return;
+        do {
+            while (true) {
+                Runnable next;
+                synchronized (this) {
+                    if (inFlight >= permits || waiting.isEmpty()) break;
+                    next = waiting.poll();
+                    inFlight++;
+                    notifyAll();
+                }
+                next.run();
+            }
+        } while (drainers.decrementAndGet() != 0);
+    }
+
+    private static HttpRequest.Builder request(String url) {
+        return HttpRequest.newBuilder(URI.create(url))
+                .timeout(Duration.ofMillis(Config.HTTP_TIMEOUT_MS))
+                .header("Accept", "application/json");
+    }
+
+    private static HttpRequest.Builder json(String url, String method, Map<String, Object> body) {
+        try {
+            return request(url).header("Content-Type", "application/json")
+                    .method(method, HttpRequest.BodyPublishers.ofByteArray(om.writeValueAsBytes(body)));
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static JsonNode readTree(String body) {
+        try { return om.readTree(body); } catch (IOException e) { throw new UncheckedIOException(e); }
+    }
+
+    private static void checkLimit(int size) {
+        if (size > SalesforceClient.COLLECTION_LIMIT) {
+            throw new IllegalArgumentException("Collection size " + size + " exceeds " + SalesforceClient.COLLECTION_LIMIT);
+        }
+    }
+}
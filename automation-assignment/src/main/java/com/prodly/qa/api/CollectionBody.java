@@ -0,0 +1,81 @@
+package com.prodly.qa.api;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.prodly.qa.models.Account;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.List;
+
+/**
+ * Writes sObject Collections request bodies ({"allOrNone":false,"records":[{"attributes":{"type":..},..}]})
+ * straight from domain objects with a streaming JsonGenerator: no per-record maps and no
+ * ObjectMapper tree. The bytes land in a per-thread buffer that is reused by the next body on the
+ * same thread, so callers must send them before serializing again.
+ */
+public final class CollectionBody {
+    private static final JsonFactory JSON = new JsonFactory()
+            .disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+    /** Buffers that grew past this (very wide records) are dropped after use instead of kept. */
+    private static final int MAX_RETAINED = 4 << 20;
+    private static final ThreadLocal<Buffer> BUFFER = ThreadLocal.withInitial(Buffer::new);
+
+    /** Writes one record's fields (not the surrounding object or attributes). */
+    @FunctionalInterface
+    public interface Fields<T> {
+        void write(T record, JsonGenerator g) throws IOException;
+    }
+
+    /** Account fields for create: the same keys as {@link Account#toMap()}. */
+    public static final Fields<Account> ACCOUNT = (a, g) -> {
+        g.writeStringField("Name", a.getName());
+        g.writeStringField("BillingCountry", a.getCountry());
+        if (a.getNumberOfEmployees() == null) g.writeNullField("NumberOfEmployees");
+        else g.writeNumberField("NumberOfEmployees", a.getNumberOfEmployees());
+        if (a.getPhone() != null) g.writeStringField("Phone", a.getPhone());
+    };
+
+    /** Id + Phone, for phone updates. */
+    public static final Fields<Account> ACCOUNT_PHONE = (a, g) -> {
+        g.writeStringField("Id", a.getId());
+        g.writeStringField("Phone", a.getPhone());
+    };
+
+    /** Growable byte buffer whose backing array can be sent without a copy. */
+    public static final class Buffer extends ByteArrayOutputStream {
+        Buffer() { super(16 * 1024); }
+        public byte[] array() { return buf; }
+    }
+
+    private CollectionBody() {}
+
+    /** Serialize records into this thread's buffer; valid until the next call on the same thread. */
+    public static <T> Buffer write(String type, List<T> records, Fields<T> fields) {
+        Buffer out = BUFFER.get();
+        if (out.array().length > MAX_RETAINED) {
+            out = new Buffer();
+            BUFFER.set(out);
+        }
+        out.reset();
+        try (JsonGenerator g = JSON.createGenerator(out)) {
+            g.writeStartObject();
+            g.writeBooleanField("allOrNone", false);
+            g.writeArrayFieldStart("records");
+            for (T rec : records) {
+                g.writeStartObject();
+                g.writeObjectFieldStart("attributes");
+                g.writeStringField("type", type);
+                g.writeEndObject();
+                fields.write(rec, g);
+                g.writeEndObject();
+            }
+            g.writeEndArray();
+            g.writeEndObject();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return out;
+    }
+}
@@ -0,0 +1,74 @@
+package com.prodly.qa.api;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Bounded LRU cache of GitHub GET responses keyed by URL + ref.
+ * Holds the ETag for conditional re-reads (304s do not count against the rate limit),
+ * the resource sha for follow-up writes, and small bodies so a 304 can be served locally.
+ */
+class GitHubCache {
+    /** Bodies above this size keep only ETag/sha. */
+    static final int MAX_BODY_CHARS = 256 * 1024;
+
+    static class CachedResponse {
+        final String ref;
+        final String etag;
+        final String sha;
+        final String body;
+
+        CachedResponse(String ref, String etag, String sha, String body) {
+            this.ref = ref;
+            this.etag = etag;
+            this.sha = sha;
+            this.body = body;
+        }
+    }
+
+    private final Map<String, CachedResponse> map;
+    private long hits;
+    private long misses;
+
+    GitHubCache(int maxEntries) {
+        this.map = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, CachedResponse> eldest) {
+                return size() > maxEntries;
+            }
+        };
+    }
+
+    static String key(String url, String ref) { return ref == null ? url : url + "@" + ref; }
+
+    synchronized CachedResponse get(String url, String ref) {
+        return map.get(key(url, ref));
+    }
+
+    synchronized void put(String url, String ref, String etag, String sha, String body) {
+        String b = body != null && body.length() <= MAX_BODY_CHARS ? body : null;
+        map.put(key(url, ref), new CachedResponse(ref, b == null ? null : etag, sha, b));
+    }
+
+    /** Remember a sha learned from a write response; any cached body is now stale. */
+    synchronized void putSha(String url, String ref, String sha) {
+        map.put(key(url, ref), new CachedResponse(ref, null, sha, null));
+    }
+
+    synchronized void evict(String url, String ref) {
+        map.remove(key(url, ref));
+    }
+
+    /** Drop everything read at the given ref (after a commit moved it). */
+    synchronized void invalidateRef(String ref) {
+        map.values().removeIf(e -> ref.equals(e.ref));
+    }
+
+    synchronized void hit() { hits++; }
+    synchronized void miss() { misses++; }
+
+    @Override
+    public synchronized String toString() {
+        return "entries=" + map.size() + " hits=" + hits + " misses=" + misses;
+    }
+}
@@ -1,18 +1,33 @@
 package com.prodly.qa.api;
 
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.prodly.qa.config.Config;
-import io.restassured.RestAssured;
-import io.restassured.config.HttpClientConfig;
-import io.restassured.config.RestAssuredConfig;
+import com.prodly.qa.utils.Base64InputStream;
 import io.restassured.http.ContentType;
+import io.restassured.path.json.JsonPath;
 import io.restassured.response.Response;
+import io.restassured.specification.RequestSpecification;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.*;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.util.ArrayList;
 import java.util.Base64;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.function.Supplier;
 
 /**
  * GitHub REST API client for file and branch operations.
@@ -20,15 +35,15 @@ import java.util.Map;
  */
 public class GitHubClient {
     private static final Logger log = LoggerFactory.getLogger(GitHubClient.class);
-    private final String apiBase = "https://api.github.com";
-
-    private io.restassured.specification.RequestSpecification base() {
-        return RestAssured.given()
-                .config(RestAssuredConfig.config().httpClient(
-                        HttpClientConfig.httpClientConfig()
-                                .setParam("http.connection.timeout", Config.HTTP_TIMEOUT_MS)
-                                .setParam("http.socket.timeout", Config.HTTP_TIMEOUT_MS)
-                ))
+    private static final ObjectMapper om = new ObjectMapper();
+    private static final String RAW = "application/vnd.github.raw+json";
+    private final GitHubCache cache = new GitHubCache(Config.GITHUB_CACHE_ENTRIES);
+    private final RetryPolicy retry = RetryPolicy.fromConfig("github");
+    private final String apiBase = Config.GITHUB_API_URL;
+
+    RequestSpecification base() {
+        return HttpTransport.shared().given()
+                .filter(HttpMetrics.GITHUB)
                 .accept(ContentType.JSON)
                 .contentType(ContentType.JSON)
                 .header("Authorization", "Bearer " + Config.GITHUB_TOKEN)
@@ -36,19 +51,220 @@ public class GitHubClient {
                 .header("X-GitHub-Api-Version", "2022-11-28");
     }
 
-    private String repoBase() {
+    String repoBase() {
         return apiBase + "/repos/" + Config.GITHUB_OWNER + "/" + Config.GITHUB_REPO;
     }
 
+    /** Start a single commit that can add, replace and delete many files at once. */
+    public GitHubCommitBuilder commit(String message) {
+        return new GitHubCommitBuilder(this, message);
+    }
+
+    /** Upload content as a git blob; returns its sha. */
+    String createBlob(byte[] content) {
+        Map<String, Object> body = new HashMap<>();
+        body.put("content", Base64.getEncoder().encodeToString(content));
+        body.put("encoding", "base64");
+        Response r = base().body(body).post(repoBase() + "/git/blobs");
+        if (r.statusCode() != 201) {
+            log.error("Create blob failed: {}", r.asString());
+            throw new RuntimeException("Create blob failed: " + r.asString());
+        }
+        return r.jsonPath().getString("sha");
+    }
+
+    /** Upload a file as a git blob, Base64-encoding it on the fly into the request body; returns its sha. */
+    String createBlob(Path file) {
+        log.info("GitHub: streaming blob upload of {} ({} bytes)", file, file.toFile().length());
+        HttpRequest req = jdkRequest(repoBase() + "/git/blobs")
+                .header("Accept", "application/vnd.github+json")
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofInputStream(() -> {
+                    try {
+                        return new SequenceInputStream(Collections.enumeration(List.of(
+                                new ByteArrayInputStream("{\"encoding\":\"base64\",\"content\":\"".getBytes(StandardCharsets.US_ASCII)),
+                                new Base64InputStream(new BufferedInputStream(Files.newInputStream(file))),
+                                new ByteArrayInputStream("\"}".getBytes(StandardCharsets.US_ASCII)))));
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                }))
+                .build();
+        HttpResponse<String> r = sendJdk(req, HttpResponse.BodyHandlers.ofString());
+        if (r.statusCode() != 201) {
+            log.error("Create blob failed: {}", r.body());
+            throw new RuntimeException("Create blob failed: " + r.statusCode() + " " + r.body());
+        }
+        try {
+            return om.readTree(r.body()).get("sha").asText();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Create or update a file on a branch from disk. Files up to GITHUB_CONTENTS_MAX_BYTES take one
+     * Contents API PUT; larger ones are streamed as a blob and committed through the Git Data API
+     * (blob, tree, commit, ref), so they are never held in memory.
+     */
+    public void putFile(String branch, String path, Path file, String message) {
+        long size;
+        try {
+            size = Files.size(file);
+            if (size <= Config.GITHUB_CONTENTS_MAX_BYTES) {
+                putFile(branch, path, Files.readAllBytes(file), message);
+                return;
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        log.info("GitHub: {} is {} bytes, committing it as a streamed blob", path, size);
+        commit(message).put(path, file).pushTo(branch);
+    }
+
+    /**
+     * Open a file on a branch as a raw byte stream (no JSON/Base64 wrapping). Files over the
+     * Contents API raw limit are fetched through the blobs API by sha. Caller closes the stream.
+     */
+    public InputStream openFile(String branch, String path) {
+        log.info("GitHub: stream {} from {}", path, branch);
+        String url = repoBase() + "/contents/" + path + "?ref=" + URLEncoder.encode(branch, StandardCharsets.UTF_8);
+        HttpResponse<InputStream> r = sendJdk(jdkRequest(url).header("Accept", RAW).GET().build(),
+                HttpResponse.BodyHandlers.ofInputStream());
+        if (r.statusCode() == 200) return r.body();
+        String err = drain(r.body());
+        if (r.statusCode() != 403 || !err.contains("too_large")) {
+            log.error("Get file failed: {}", err);
+            throw new RuntimeException("Get file failed: " + r.statusCode() + " " + err);
+        }
+
+        String sha = blobSha(branch, path);
+        HttpResponse<InputStream> blob = sendJdk(jdkRequest(repoBase() + "/git/blobs/" + sha).header("Accept", RAW).GET().build(),
+                HttpResponse.BodyHandlers.ofInputStream());
+        if (blob.statusCode() != 200) {
+            String body = drain(blob.body());
+            throw new RuntimeException("Get blob failed: " + blob.statusCode() + " " + body);
+        }
+        return blob.body();
+    }
+
+    /** Stream a file on a branch straight to disk. */
+    public Path downloadFile(String branch, String path, Path target) throws IOException {
+        try (InputStream in = openFile(branch, path)) {
+            Files.copy(in, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+        return target;
+    }
+
+    /** Look up a file's blob sha from its parent directory listing (which carries no file content). */
+    private String blobSha(String branch, String path) {
+        int slash = path.lastIndexOf('/');
+        String dir = slash < 0 ? "" : path.substring(0, slash);
+        Response r = retried("github GET", () -> base().queryParam("ref", branch).get(repoBase() + "/contents/" + dir));
+        if (r.statusCode() != 200) throw new RuntimeException("List dir failed: " + r.asString());
+        List<Map<String, Object>> entries = r.jsonPath().getList("$");
+        for (Map<String, Object> e : entries) {
+            if (path.equals(e.get("path"))) return (String) e.get("sha");
+        }
+        throw new RuntimeException("File not found: " + path + " on " + branch);
+    }
+
+    private HttpRequest.Builder jdkRequest(String url) {
+        return HttpRequest.newBuilder(URI.create(url))
+                .timeout(Duration.ofMillis(Config.HTTP_TIMEOUT_MS))
+                .header("Authorization", "Bearer " + Config.GITHUB_TOKEN)
+                .header("User-Agent", "Prodly-QA-Automation")
+                .header("X-GitHub-Api-Version", "2022-11-28");
+    }
+
+    private static <T> HttpResponse<T> sendJdk(HttpRequest req, HttpResponse.BodyHandler<T> handler) {
+        try {
+            long start = System.nanoTime();
+            HttpResponse<T> r = HttpTransport.shared().jdk().send(req, handler);
+            HttpMetrics.GITHUB.record(req, r, start);
+            return r;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted: " + req.uri(), e);
+        }
+    }
+
+    private static String drain(InputStream in) {
+        try (InputStream i = in) {
+            return new String(i.readAllBytes(), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            return e.getMessage();
+        }
+    }
+
+    /** Result of a cache-aware GET: a 304 is served from the cached body and reported as 200. */
+    private static class CachedGet {
+        final int status;
+        final String body;
+        final String sha;
+
+        CachedGet(int status, String body, String sha) {
+            this.status = status;
+            this.body = body;
+            this.sha = sha;
+        }
+
+        JsonPath json() { return new JsonPath(body); }
+    }
+
+    /**
+     * GET through the ETag cache. Sends If-None-Match when a body is cached so unchanged
+     * resources come back as 304s, which GitHub does not count against the rate limit.
+     */
+    private CachedGet cachedGet(String url, String branch, boolean refQuery, String shaPath) {
+        GitHubCache.CachedResponse e = cache.get(url, branch);
+        RequestSpecification spec = base();
+        if (refQuery) spec.queryParam("ref", branch);
+        if (e != null && e.etag != null) spec.header("If-None-Match", e.etag);
+        Response r = retried("github GET", () -> spec.get(url));
+        if (r.statusCode() == 304 && e != null && e.body != null) {
+            cache.hit();
+            return new CachedGet(200, e.body, e.sha);
+        }
+        cache.miss();
+        String body = r.asString();
+        if (r.statusCode() != 200) {
+            cache.evict(url, branch);
+            return new CachedGet(r.statusCode(), body, null);
+        }
+        String sha = new JsonPath(body).getString(shaPath);
+        cache.put(url, branch, r.header("ETag"), sha, body);
+        return new CachedGet(200, body, sha);
+    }
+
+    /** Run an idempotent request under the retry policy; transient error responses (429, 5xx, rate limit) are retried. */
+    private Response retried(String op, Supplier<Response> call) {
+        return retry.call(op, () -> {
+            Response r = call.get();
+            if (r.statusCode() >= 400) {
+                ApiException e = ApiException.of(op + " failed", r);
+                if (e.isTransient()) throw e;
+            }
+            return r;
+        });
+    }
+
+    /** Forget everything cached for a branch, e.g. after a commit moved it. */
+    void invalidate(String branch) {
+        cache.invalidateRef(branch);
+    }
+
     /** Get SHA for a specific branch (used when creating new branches). */
     public String getDefaultBranchSha(String branch) {
         log.info("GitHub: get ref for branch {}", branch);
-        Response r = base().get(repoBase() + "/git/ref/heads/" + branch);
-        if (r.statusCode() != 200) {
-            log.error("Failed to get ref: {}", r.asString());
-            throw new RuntimeException("Get ref failed: " + r.asString());
+        CachedGet r = cachedGet(repoBase() + "/git/ref/heads/" + branch, branch, false, "object.sha");
+        if (r.status != 200) {
+            log.error("Failed to get ref: {}", r.body);
+            throw new RuntimeException("Get ref failed: " + r.body);
         }
-        return r.jsonPath().getString("object.sha");
+        return r.sha;
     }
 
     /** Create a new branch from an existing one (if not exists). */
@@ -63,6 +279,7 @@ public class GitHubClient {
             log.error("Create branch failed: {}", r.asString());
             throw new RuntimeException("Create branch failed: " + r.asString());
         }
+        invalidate(newBranch);
     }
 
     /** Create or update a file in the given branch. */
@@ -73,10 +290,10 @@ public class GitHubClient {
         body.put("content", Base64.getEncoder().encodeToString(content));
         body.put("branch", branch);
 
-        // If file exists — include sha to update
-        Response get = base().queryParam("ref", branch).get(url);
-        if (get.statusCode() == 200) {
-            String sha = get.jsonPath().getString("sha");
+        // Reuse a sha we already know (from an earlier read or write) instead of re-reading the file
+        GitHubCache.CachedResponse known = cache.get(url, branch);
+        String sha = known != null ? known.sha : currentSha(url, branch);
+        if (sha != null) {
             body.put("sha", sha);
             log.info("GitHub: updating existing file {} on {}", path, branch);
         } else {
@@ -84,22 +301,37 @@ public class GitHubClient {
         }
 
         Response r = base().body(body).put(url);
+        if (known != null && (r.statusCode() == 409 || r.statusCode() == 422)) {
+            // cached sha was stale: re-read once and retry
+            cache.evict(url, branch);
+            sha = currentSha(url, branch);
+            if (sha != null) body.put("sha", sha); else body.remove("sha");
+            r = base().body(body).put(url);
+        }
         if (r.statusCode() != 201 && r.statusCode() != 200) {
             log.error("Put file failed: {}", r.asString());
             throw new RuntimeException("Put file failed: " + r.asString());
         }
+        invalidate(branch);
+        cache.putSha(url, branch, r.jsonPath().getString("content.sha"));
+    }
+
+    /** Sha of a file on a branch, or null if it does not exist. */
+    private String currentSha(String url, String branch) {
+        CachedGet get = cachedGet(url, branch, true, "sha");
+        return get.status == 200 ? get.sha : null;
     }
 
     /** Get (download) file contents from a branch. */
     public byte[] getFile(String branch, String path) {
         String url = repoBase() + "/contents/" + path;
         log.info("GitHub: download {} from {}", path, branch);
-        Response r = base().queryParam("ref", branch).get(url);
-        if (r.statusCode() != 200) {
-            log.error("Get file failed: {}", r.asString());
-            throw new RuntimeException("Get file failed: " + r.asString());
+        CachedGet r = cachedGet(url, branch, true, "sha");
+        if (r.status != 200) {
+            log.error("Get file failed: {}", r.body);
+            throw new RuntimeException("Get file failed: " + r.body);
         }
-        String b64 = r.jsonPath().getString("content");
+        String b64 = r.json().getString("content");
         return Base64.getMimeDecoder().decode(b64.getBytes(StandardCharsets.UTF_8));
     }
 
@@ -107,19 +339,25 @@ public class GitHubClient {
     public void deleteFile(String branch, String path, String message) {
         try {
             String url = repoBase() + "/contents/" + path;
-            Response get = base().queryParam("ref", branch).get(url);
-            if (get.statusCode() == 200) {
-                String sha = get.jsonPath().getString("sha");
+            GitHubCache.CachedResponse known = cache.get(url, branch);
+            String sha = known != null ? known.sha : currentSha(url, branch);
+            if (sha != null) {
                 Map<String, Object> body = new HashMap<>();
                 body.put("message", message);
                 body.put("sha", sha);
                 body.put("branch", branch);
                 Response del = base().body(body).delete(url);
+                if (known != null && (del.statusCode() == 409 || del.statusCode() == 422)) {
+                    cache.evict(url, branch);
+                    deleteFile(branch, path, message);
+                    return;
+                }
                 if (del.statusCode() == 200) {
                     log.info("GitHub: deleted file {} from {}", path, branch);
                 } else {
                     log.warn("GitHub deleteFile failed: {}", del.asPrettyString());
                 }
+                invalidate(branch);
             } else {
                 log.info("GitHub: file {} not found on {}, skip delete", path, branch);
             }
@@ -132,14 +370,15 @@ public class GitHubClient {
     public void deleteBranchIfExists(String branch) {
         try {
             String url = repoBase() + "/git/refs/heads/" + branch;
-            Response get = base().get(url);
-            if (get.statusCode() == 200) {
+            CachedGet get = cachedGet(url, branch, false, "object.sha");
+            if (get.status == 200) {
                 Response del = base().delete(url);
                 if (del.statusCode() == 204) {
                     log.info("GitHub: deleted branch {}", branch);
                 } else {
                     log.warn("GitHub deleteBranch failed: {}", del.asPrettyString());
                 }
+                invalidate(branch);
             } else {
                 log.info("GitHub: branch {} not found, skip delete", branch);
             }
@@ -147,4 +386,56 @@ public class GitHubClient {
             log.warn("GitHub: deleteBranch exception for {}: {}", branch, e.getMessage());
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * Paths of the files directly under dir on a branch, via the Git Trees API (no 1000-entry cap
+     * like the Contents API). Returns an empty list if dir does not exist.
+     */
+    public List<String> listFiles(String branch, String dir) {
+        String head = getDefaultBranchSha(branch);
+        Response c = retried("github GET", () -> base().get(repoBase() + "/git/commits/" + head));
+        if (c.statusCode() != 200) throw ApiException.of("Get commit failed", c);
+        Response root = retried("github GET", () -> base().get(repoBase() + "/git/trees/" + c.jsonPath().getString("tree.sha")));
+        if (root.statusCode() != 200) throw ApiException.of("Get tree failed", root);
+        String dirSha = null;
+        for (Map<String, Object> e : root.jsonPath().<Map<String, Object>>getList("tree")) {
+            if (dir.equals(e.get("path")) && "tree".equals(e.get("type"))) dirSha = (String) e.get("sha");
+        }
+        if (dirSha == null) return Collections.emptyList();
+        String sha = dirSha;
+        Response t = retried("github GET", () -> base().get(repoBase() + "/git/trees/" + sha));
+        if (t.statusCode() != 200) throw ApiException.of("Get tree failed", t);
+        if (t.jsonPath().getBoolean("truncated")) log.warn("GitHub: tree listing of {} truncated", dir);
+        List<String> paths = new ArrayList<>();
+        for (Map<String, Object> e : t.jsonPath().<Map<String, Object>>getList("tree")) {
+            if ("blob".equals(e.get("type"))) paths.add(dir + "/" + e.get("path"));
+        }
+        return paths;
+    }
+
+    /** Names of branches starting with prefix (Git matching-refs API). */
+    public List<String> listBranches(String prefix) {
+        Response r = retried("github GET", () -> base().get(repoBase() + "/git/matching-refs/heads/" + prefix));
+        if (r.statusCode() != 200) throw ApiException.of("List branches failed", r);
+        List<String> names = new ArrayList<>();
+        for (String ref : r.jsonPath().<String>getList("ref")) names.add(ref.substring("refs/heads/".length()));
+        return names;
+    }
+
+    /** Delete a branch known to exist; returns false if GitHub refused. */
+    public boolean deleteBranch(String branch) {
+        Response del = base().delete(repoBase() + "/git/refs/heads/" + branch);
+        invalidate(branch);
+        if (del.statusCode() == 204) return true;
+        log.warn("GitHub: delete branch {} failed: {} {}", branch, del.statusCode(), del.asString());
+        return false;
+    }
+
+    /** Retry policy (budget + circuit breaker) for this client. */
+    public RetryPolicy retryPolicy() { return retry; }
+
+    /** ETag cache counters, for diagnostics. */
+    public String cacheStats() {
+        return cache.toString();
+    }
+}
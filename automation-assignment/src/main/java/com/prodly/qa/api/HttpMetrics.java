@@ -0,0 +1,127 @@
+package com.prodly.qa.api;
+
+import com.prodly.qa.utils.Metrics;
+import io.restassured.filter.Filter;
+import io.restassured.filter.FilterContext;
+import io.restassured.response.Response;
+import io.restassured.specification.FilterableRequestSpecification;
+import io.restassured.specification.FilterableResponseSpecification;
+
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+
+/**
+ * Records per-endpoint latency, bytes (from Content-Length; unknown sizes are not counted) and
+ * API-limit headers for every HTTP call.
+ * RestAssured calls go through the filter; java.net.http calls report via {@link #record}.
+ * Operations are named "service METHOD /path/template", with ids, shas, branches and file
+ * paths replaced by placeholders so each endpoint aggregates into one series.
+ */
+public class HttpMetrics implements Filter {
+    public static final HttpMetrics SALESFORCE = new HttpMetrics("salesforce");
+    public static final HttpMetrics GITHUB = new HttpMetrics("github");
+
+    private final String service;
+
+    private HttpMetrics(String service) { this.service = service; }
+
+    @Override
+    public Response filter(FilterableRequestSpecification req, FilterableResponseSpecification res, FilterContext ctx) {
+        long start = System.nanoTime();
+        Response r = ctx.next(req, res);
+        long nanos = System.nanoTime() - start;
+        // sizes come from Content-Length only: measuring the bodies would copy or re-encode every payload
+        long out = length(req.getHeaders().getValue("Content-Length"));
+        long in = length(r.header("Content-Length"));
+        String op = service + " " + req.getMethod() + " " + template(pathOf(req.getURI()));
+        Metrics.record(op, nanos, r.statusCode() >= 400, out, in, -1);
+        limits(r.header("Sforce-Limit-Info"), r.header("X-RateLimit-Remaining"));
+        return r;
+    }
+
+    /** Record a java.net.http exchange that started at startNanos (body size from Content-Length when known). */
+    void record(HttpRequest req, HttpResponse<?> r, long startNanos) {
+        long nanos = System.nanoTime() - startNanos;
+        HttpTransport.shared().countJdkRequest();
+        long in = r.headers().firstValueAsLong("Content-Length").orElse(-1);
+        long out = req.bodyPublisher().map(HttpRequest.BodyPublisher::contentLength).orElse(-1L);
+        Metrics.record(service + " " + req.method() + " " + template(req.uri().getPath()),
+                nanos, r.statusCode() >= 400, out, in, -1);
+        limits(r.headers().firstValue("Sforce-Limit-Info").orElse(null),
+                r.headers().firstValue("X-RateLimit-Remaining").orElse(null));
+    }
+
+    /** Content-Length value, or -1 when absent or malformed. */
+    private static long length(String header) {
+        if (header == null) return -1;
+        try {
+            return Long.parseLong(header.trim());
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    private static void limits(String sforce, String github) {
+        if (sforce != null) Metrics.limit("Sforce-Limit-Info", sforce);
+        if (github != null) Metrics.limit("X-RateLimit-Remaining", github);
+    }
+
+    /** Path part of an absolute URI string, without parsing (query strings may be unencoded). */
+    private static String pathOf(String uri) {
+        int scheme = uri.indexOf("://");
+        int start = scheme < 0 ? 0 : uri.indexOf('/', scheme + 3);
+        if (start < 0) return "/";
+        int q = uri.indexOf('?', start);
+        return q < 0 ? uri.substring(start) : uri.substring(start, q);
+    }
+
+    /** Collapse variable path segments so one endpoint maps to one metric series. */
+    static String template(String path) {
+        if (path == null || path.isEmpty()) return "/";
+        StringBuilder sb = new StringBuilder(path.length());
+        String[] seg = path.split("/");
+        for (int i = 1; i < seg.length; i++) {
+            String s = seg[i];
+            String prev = seg[i - 1];
+            sb.append('/');
+            if ("repos".equals(prev) && i + 1 < seg.length) {
+                sb.append("{owner}/{repo}");
+                i++;
+            } else if ("contents".equals(prev)) {
+                sb.append("{path}");
+                break;
+            } else if ("heads".equals(prev)) {
+                sb.append("{branch}");
+                break;
+            } else if (isSha(s)) {
+                sb.append("{sha}");
+            } else if (isSalesforceId(s)) {
+                sb.append("{id}");
+            } else {
+                sb.append(s);
+            }
+        }
+        return sb.toString();
+    }
+
+    private static boolean isSha(String s) {
+        if (s.length() != 40) return false;
+        for (int i = 0; i < 40; i++) {
+            char c = s.charAt(i);
+            if (!(c >= '0' && c <= '9' || c >= 'a' && c <= 'f')) return false;
+        }
+        return true;
+    }
+
+    /** 15/18-char alphanumeric with at least one digit (e.g. 001xx000003DGb2AAG, 750xx...). */
+    private static boolean isSalesforceId(String s) {
+        if (s.length() != 15 && s.length() != 18) return false;
+        boolean digit = false;
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            if (c >= '0' && c <= '9') digit = true;
+            else if (!(c >= 'a' && c <= 'z' || c >= 'A' && c <= 'Z')) return false;
+        }
+        return digit;
+    }
+}
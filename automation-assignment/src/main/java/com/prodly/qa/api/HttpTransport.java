@@ -0,0 +1,152 @@
+package com.prodly.qa.api;
+
+import com.prodly.qa.config.Config;
+import io.restassured.RestAssured;
+import io.restassured.config.HttpClientConfig;
+import io.restassured.config.RestAssuredConfig;
+import io.restassured.specification.RequestSpecification;
+import org.apache.http.HttpHost;
+import org.apache.http.conn.ClientConnectionOperator;
+import org.apache.http.conn.OperatedClientConnection;
+import org.apache.http.conn.scheme.SchemeRegistry;
+import org.apache.http.impl.client.DefaultHttpClient;
+import org.apache.http.impl.conn.DefaultClientConnectionOperator;
+import org.apache.http.impl.conn.PoolingClientConnectionManager;
+import org.apache.http.impl.conn.SchemeRegistryFactory;
+import org.apache.http.params.HttpParams;
+import org.apache.http.pool.PoolStats;
+import org.apache.http.protocol.HttpContext;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.http.HttpClient;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Shared HTTP transport for all API clients.
+ * RestAssured calls go through one pooled keep-alive Apache client (bounded in total and per host);
+ * streaming calls use one shared java.net.http client that can negotiate HTTP/2.
+ *
+ * <p>RestAssured 5 casts its client to AbstractHttpClient, so a HttpClientBuilder client (and its
+ * PoolingHttpClientConnectionManager) fails on the first request; the pool is built on the 4.x
+ * classes DefaultHttpClient accepts, and their deprecation is suppressed here only.
+ */
+@SuppressWarnings("deprecation")
+public class HttpTransport {
+    // java.net.http reads its pool knobs once, when its first client is built; runs before SHARED,
+    // and an explicit -Djdk.httpclient.* flag wins
+    static {
+        if (System.getProperty("jdk.httpclient.keepalive.timeout") == null) {
+            System.setProperty("jdk.httpclient.keepalive.timeout", String.valueOf(Config.HTTP_KEEP_ALIVE_MS / 1000));
+        }
+        if (System.getProperty("jdk.httpclient.connectionPoolSize") == null) {
+            System.setProperty("jdk.httpclient.connectionPoolSize", String.valueOf(Config.HTTP_MAX_CONNECTIONS));
+        }
+    }
+
+    private static final HttpTransport SHARED = new HttpTransport();
+
+    private final PoolingClientConnectionManager pool;
+    private final LongAdder connectionsOpened = new LongAdder();
+    private final LongAdder requests = new LongAdder();
+    private final LongAdder jdkRequests = new LongAdder();
+    private final RestAssuredConfig restAssuredConfig;
+    private final HttpClient jdk;
+
+    public static HttpTransport shared() { return SHARED; }
+
+    private HttpTransport() {
+        pool = new PoolingClientConnectionManager(SchemeRegistryFactory.createSystemDefault(),
+                Config.HTTP_KEEP_ALIVE_MS, TimeUnit.MILLISECONDS) {
+            @Override
+            protected ClientConnectionOperator createConnectionOperator(SchemeRegistry schemes) {
+                return new DefaultClientConnectionOperator(schemes) {
+                    @Override
+                    public void openConnection(OperatedClientConnection conn, HttpHost target, InetAddress local,
+                                               HttpContext ctx, HttpParams params) throws IOException {
+                        connectionsOpened.increment();
+                        super.openConnection(conn, target, local, ctx, params);
+                    }
+                };
+            }
+        };
+        pool.setMaxTotal(Config.HTTP_MAX_CONNECTIONS);
+        pool.setDefaultMaxPerRoute(Config.HTTP_MAX_PER_HOST);
+
+        DefaultHttpClient apache = new DefaultHttpClient(pool);
+        apache.setKeepAliveStrategy((response, ctx) -> Config.HTTP_KEEP_ALIVE_MS);
+        apache.addRequestInterceptor((request, ctx) -> requests.increment());
+
+        restAssuredConfig = RestAssuredConfig.config().httpClient(
+                HttpClientConfig.httpClientConfig()
+                        .httpClientFactory(() -> apache)
+                        .reuseHttpClientInstance()
+                        .setParam("http.connection.timeout", Config.HTTP_TIMEOUT_MS)
+                        .setParam("http.socket.timeout", Config.HTTP_TIMEOUT_MS));
+
+        jdk = HttpClient.newBuilder()
+                .version(Config.HTTP2_ENABLED ? HttpClient.Version.HTTP_2 : HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofMillis(Config.HTTP_TIMEOUT_MS))
+                .followRedirects(HttpClient.Redirect.NORMAL)
+                .build();
+    }
+
+    /** RestAssured request spec bound to the pooled client. */
+    public RequestSpecification given() {
+        return RestAssured.given().config(restAssuredConfig);
+    }
+
+    /** Shared java.net.http client for streaming bodies. */
+    public HttpClient jdk() { return jdk; }
+
+    /** Counts a completed java.net.http exchange; called from {@link HttpMetrics#record}. */
+    void countJdkRequest() { jdkRequests.increment(); }
+
+    /**
+     * Snapshot of both transports: the RestAssured (Apache) pool in full, and the request count of the
+     * java.net.http client, whose connections are not observable.
+     */
+    public Stats stats() {
+        PoolStats s = pool.getTotalStats();
+        return new Stats(s.getLeased(), s.getAvailable(), s.getPending(), s.getMax(),
+                connectionsOpened.sum(), requests.sum(), jdkRequests.sum());
+    }
+
+    public static class Stats {
+        /** Apache pool (RestAssured calls) only. */
+        public final int leased;
+        public final int available;
+        public final int pending;
+        public final int max;
+        /** New sockets (and TLS handshakes) opened by the Apache pool since start. */
+        public final long connectionsOpened;
+        /** Requests sent through the Apache pool. */
+        public final long requests;
+        /** Responses received on the java.net.http client; its connection count is unknown. */
+        public final long jdkRequests;
+
+        Stats(int leased, int available, int pending, int max, long connectionsOpened, long requests, long jdkRequests) {
+            this.leased = leased;
+            this.available = available;
+            this.pending = pending;
+            this.max = max;
+            this.connectionsOpened = connectionsOpened;
+            this.requests = requests;
+            this.jdkRequests = jdkRequests;
+        }
+
+        /** Fraction of Apache pool requests served on an already-open connection (java.net.http not included). */
+        public double apacheReuseRatio() {
+            return requests == 0 ? 0 : 1.0 - (double) connectionsOpened / requests;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("apache[leased=%d available=%d pending=%d max=%d opened=%d requests=%d reuse=%.2f]"
+                            + " jdk[requests=%d connections=unknown]",
+                    leased, available, pending, max, connectionsOpened, requests, apacheReuseRatio(), jdkRequests);
+        }
+    }
+}
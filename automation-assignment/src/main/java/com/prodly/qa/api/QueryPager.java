@@ -0,0 +1,146 @@
+package com.prodly.qa.api;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.prodly.qa.config.Config;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * Lazy iterator over a SOQL result set. Pages are parsed token by token straight off the
+ * socket, and the next page is fetched in the background while the current one is consumed,
+ * so at most two pages are ever held in memory.
+ */
+class QueryPager<T> implements Iterator<T>, AutoCloseable {
+    private static final JsonFactory JSON = new JsonFactory();
+    private static final ExecutorService PREFETCH = Executors.newCachedThreadPool(r -> {
+        Thread t = new Thread(r, "sf-query-prefetch");
+        t.setDaemon(true);
+        return t;
+    });
+
+    private final SalesforceClient sf;
+    private final ObjectReader reader;
+    private Iterator<T> current = Collections.emptyIterator();
+    private CompletableFuture<Page<T>> next;
+    private volatile boolean closed;
+    /** Body of the page being read (by the prefetch thread), so close() can abort it. */
+    private volatile InputStream body;
+
+    private static class Page<T> {
+        final List<T> records;
+        final String nextRecordsUrl;
+
+        Page(List<T> records, String nextRecordsUrl) {
+            this.records = records;
+            this.nextRecordsUrl = nextRecordsUrl;
+        }
+    }
+
+    QueryPager(SalesforceClient sf, String soql, ObjectReader reader) {
+        this.sf = sf;
+        this.reader = reader;
+        String url = sf.apiV() + "/query?q=" + URLEncoder.encode(soql, StandardCharsets.UTF_8);
+        this.next = CompletableFuture.completedFuture(fetch(url));
+    }
+
+    @Override
+    public boolean hasNext() {
+        while (!current.hasNext()) {
+            if (next == null) return false;
+            Page<T> page;
+            try {
+                page = next.join();
+            } catch (CompletionException e) {
+                if (e.getCause() instanceof RuntimeException) throw (RuntimeException) e.getCause();
+                throw e;
+            }
+            next = page.nextRecordsUrl == null ? null
+                    : CompletableFuture.supplyAsync(() -> fetch(sf.instanceUrl() + page.nextRecordsUrl), PREFETCH);
+            current = page.records.iterator();
+        }
+        return true;
+    }
+
+    @Override
+    public T next() {
+        if (!hasNext()) throw new NoSuchElementException();
+        return current.next();
+    }
+
+    /**
+     * Stop paging. A prefetch still reading its page has its body closed, which aborts the exchange
+     * instead of leaving the connection tied up until the page has been read to the end.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        if (next != null) next.cancel(true);
+        next = null;
+        current = Collections.emptyIterator();
+        InputStream in = body;
+        if (in != null) {
+            try {
+                in.close();
+            } catch (IOException ignored) {
+                // aborting anyway
+            }
+        }
+    }
+
+    private Page<T> fetch(String url) {
+        HttpRequest.Builder req = HttpRequest.newBuilder(URI.create(url))
+                .timeout(Duration.ofMillis(Config.HTTP_TIMEOUT_MS))
+                .header("Accept", "application/json")
+                .header("Sforce-Query-Options", "batchSize=" + Config.SF_QUERY_BATCH_SIZE)
+                .GET();
+        HttpResponse<InputStream> r = sf.send(req, HttpResponse.BodyHandlers.ofInputStream());
+        try (InputStream in = r.body()) {
+            body = in;
+            if (closed) return new Page<>(Collections.emptyList(), null);
+            if (r.statusCode() != 200) {
+                throw ApiException.of("Query failed", r, new String(in.readAllBytes(), StandardCharsets.UTF_8));
+            }
+            return parse(in);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            body = null;
+        }
+    }
+
+    /** Reads "records" and "nextRecordsUrl" in whatever order they arrive, skipping everything else. */
+    private Page<T> parse(InputStream in) throws IOException {
+        List<T> records = new ArrayList<>();
+        String nextUrl = null;
+        try (JsonParser p = JSON.createParser(in)) {
+            if (p.nextToken() != JsonToken.START_OBJECT) throw new IOException("Unexpected query response");
+            while (p.nextToken() == JsonToken.FIELD_NAME) {
+                String field = p.currentName();
+                JsonToken value = p.nextToken();
+                if ("records".equals(field) && value == JsonToken.START_ARRAY) {
+                    while (p.nextToken() == JsonToken.START_OBJECT) {
+                        records.add(reader.readValue(p));
+                    }
+                } else if ("nextRecordsUrl".equals(field) && value == JsonToken.VALUE_STRING) {
+                    nextUrl = p.getText();
+                } else {
+                    p.skipChildren();
+                }
+            }
+        }
+        return new Page<>(records, nextUrl);
+    }
+}
@@ -0,0 +1,310 @@
+package com.prodly.qa.api;
+
+import com.prodly.qa.config.Config;
+import com.prodly.qa.utils.Metrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+/**
+ * Per-client retry engine.
+ * <ul>
+ *   <li>Only transient failures are retried: {@link ApiException#isTransient()} (429, 502-504,
+ *       REQUEST_LIMIT_EXCEEDED, GitHub rate limit) and I/O errors. Validation errors fail at once.
+ *       Non-idempotent calls (creates) pass {@link #isUnprocessed} instead, so a timeout or 5xx
+ *       after the server may have committed is never resent.</li>
+ *   <li>Delays use decorrelated jitter (min(max, random(base, 3 * previous))), so parallel workers
+ *       spread out; a server-sent Retry-After is the floor, and one above maxWaitMs gives up.</li>
+ *   <li>{@link #executeAsync} schedules retries on a timer, so no thread is parked between
+ *       attempts; the blocking {@link #call} retries on the caller's own thread.</li>
+ *   <li>A retry budget (token bucket: each success earns budgetPercent/100 of a retry) caps retries
+ *       at a fraction of normal traffic, so an outage cannot multiply request volume.</li>
+ *   <li>A circuit breaker opens after breakerFailures consecutive transient failures, fails fast
+ *       for breakerOpenMs, then lets a single probe through. Successes and 4xx rejections reset it;
+ *       client-side errors (parse failures, bugs) change neither breaker nor budget.</li>
+ * </ul>
+ */
+public class RetryPolicy {
+    private static final Logger log = LoggerFactory.getLogger(RetryPolicy.class);
+    /** Starts async retries; an attempt only sends a request, so a couple of threads is plenty. */
+    private static final ExecutorService WORKERS = Executors.newFixedThreadPool(2, r -> {
+        Thread t = new Thread(r, "retry-worker");
+        t.setDaemon(true);
+        return t;
+    });
+
+    public enum State { CLOSED, OPEN, HALF_OPEN }
+
+    /** Thrown without calling the server while the breaker is open. */
+    public static class CircuitOpenException extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        CircuitOpenException(String name) { super("Circuit open for " + name + ", failing fast"); }
+    }
+
+    private final String name;
+    private final int maxAttempts;
+    private final long baseDelayMs;
+    private final long maxDelayMs;
+    private final long maxWaitMs;
+    private final long budgetCapacity;
+    private final long budgetPerSuccess;
+    private final int breakerFailures;
+    private final long breakerOpenMs;
+
+    /** Retry budget in thousandths of a retry. */
+    private final AtomicLong budget;
+    private final AtomicReference<State> state = new AtomicReference<>(State.CLOSED);
+    private final AtomicInteger consecutiveFailures = new AtomicInteger();
+    private volatile long openedAt;
+
+    private RetryPolicy(Builder b) {
+        this.name = b.name;
+        this.maxAttempts = b.maxAttempts;
+        this.baseDelayMs = b.baseDelayMs;
+        this.maxDelayMs = b.maxDelayMs;
+        this.maxWaitMs = b.maxWaitMs;
+        this.budgetCapacity = b.minRetries * 1000L;
+        this.budgetPerSuccess = b.budgetPercent * 10L;
+        this.breakerFailures = b.breakerFailures;
+        this.breakerOpenMs = b.breakerOpenMs;
+        this.budget = new AtomicLong(budgetCapacity);
+    }
+
+    public static Builder builder(String name) { return new Builder(name); }
+
+    /** Policy configured from RETRY_* / BREAKER_* settings. */
+    public static RetryPolicy fromConfig(String name) {
+        return builder(name)
+                .maxAttempts(Config.RETRY_MAX_ATTEMPTS)
+                .delays(Config.RETRY_BASE_MS, Config.RETRY_MAX_MS)
+                .maxWaitMs(Config.RETRY_MAX_WAIT_MS)
+                .budget(Config.RETRY_BUDGET_PERCENT, Config.RETRY_BUDGET_MIN)
+                .breaker(Config.BREAKER_FAILURES, Config.BREAKER_OPEN_MS)
+                .build();
+    }
+
+    public static class Builder {
+        private final String name;
+        private int maxAttempts = 4;
+        private long baseDelayMs = 300;
+        private long maxDelayMs = 20_000;
+        private long maxWaitMs = 60_000;
+        private int budgetPercent = 10;
+        private int minRetries = 10;
+        private int breakerFailures = 5;
+        private long breakerOpenMs = 30_000;
+
+        private Builder(String name) { this.name = name; }
+
+        /** Total attempts including the first call. */
+        public Builder maxAttempts(int n) { this.maxAttempts = Math.max(1, n); return this; }
+        public Builder delays(long baseMs, long maxMs) { this.baseDelayMs = baseMs; this.maxDelayMs = maxMs; return this; }
+        /** Longest server-requested (Retry-After) wait we are willing to honor. */
+        public Builder maxWaitMs(long ms) { this.maxWaitMs = ms; return this; }
+        /** Retries allowed as a percentage of successes, with a floor of minRetries banked up front. */
+        public Builder budget(int percent, int minRetries) { this.budgetPercent = percent; this.minRetries = minRetries; return this; }
+        public Builder breaker(int failures, long openMs) { this.breakerFailures = failures; this.breakerOpenMs = openMs; return this; }
+        public RetryPolicy build() { return new RetryPolicy(this); }
+    }
+
+    /**
+     * Run an asynchronous action with retries. The returned future completes with the first
+     * success, or with the last failure once it is non-transient or retries are exhausted.
+     */
+    public <T> CompletableFuture<T> executeAsync(String op, Supplier<CompletableFuture<T>> action) {
+        return executeAsync(op, RetryPolicy::isTransient, action);
+    }
+
+    /** {@link #executeAsync(String, Supplier)} retrying only failures accepted by retryable. */
+    public <T> CompletableFuture<T> executeAsync(String op, Predicate<Throwable> retryable,
+                                                 Supplier<CompletableFuture<T>> action) {
+        CompletableFuture<T> result = new CompletableFuture<>();
+        attempt(op, retryable, action, 1, baseDelayMs, result);
+        return result;
+    }
+
+    /**
+     * Run a blocking action with retries on the calling thread, sleeping between attempts; rethrows
+     * the final failure unchanged. The caller's thread is the only one held while it waits.
+     */
+    public <T> T call(String op, Supplier<T> action) {
+        return call(op, RetryPolicy::isTransient, action);
+    }
+
+    /** {@link #call(String, Supplier)} retrying only failures accepted by retryable. */
+    public <T> T call(String op, Predicate<Throwable> retryable, Supplier<T> action) {
+        long prevDelay = baseDelayMs;
+        for (int n = 1; ; n++) {
+            if (!permit()) throw new CircuitOpenException(name);
+            RuntimeException failure;
+            try {
+                T value = action.get();
+                onHealthy();
+                return value;
+            } catch (RuntimeException e) {
+                failure = e;
+            }
+            long delay = afterFailure(op, retryable, failure, n, prevDelay);
+            if (delay < 0) throw failure;
+            try {
+                Thread.sleep(delay);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new RuntimeException("Interrupted while retrying " + op, e);
+            }
+            prevDelay = delay;
+        }
+    }
+
+    private <T> void attempt(String op, Predicate<Throwable> retryable, Supplier<CompletableFuture<T>> action,
+                             int n, long prevDelay, CompletableFuture<T> result) {
+        if (result.isDone()) return;
+        if (!permit()) {
+            result.completeExceptionally(new CircuitOpenException(name));
+            return;
+        }
+        CompletableFuture<T> f;
+        try {
+            f = action.get();
+        } catch (RuntimeException e) {
+            f = CompletableFuture.failedFuture(e);
+        }
+        f.whenComplete((value, err) -> {
+            if (err == null) {
+                onHealthy();
+                result.complete(value);
+                return;
+            }
+            Throwable cause = err instanceof CompletionException && err.getCause() != null ? err.getCause() : err;
+            long delay = afterFailure(op, retryable, cause, n, prevDelay);
+            if (delay < 0) {
+                result.completeExceptionally(cause);
+                return;
+            }
+            CompletableFuture.runAsync(() -> attempt(op, retryable, action, n + 1, delay, result),
+                    CompletableFuture.delayedExecutor(delay, TimeUnit.MILLISECONDS, WORKERS));
+        });
+    }
+
+    /** Book a failed attempt n; returns the delay before the next one, or -1 to give up. */
+    private long afterFailure(String op, Predicate<Throwable> retryable, Throwable cause, int n, long prevDelay) {
+        if (!retryable.test(cause)) {
+            // a 4xx rejection means the server is fine; a transient one not safe to resend still counts;
+            // a client-side error (parse, NPE, ...) says nothing about the server, so only the probe is released
+            if (isTransient(cause)) onTransientFailure();
+            else if (isClientError(cause)) onHealthy();
+            else state.compareAndSet(State.HALF_OPEN, State.OPEN);
+            return -1;
+        }
+        onTransientFailure();
+        long delay = nextDelay(cause, prevDelay);
+        if (n >= maxAttempts || delay < 0 || state.get() == State.OPEN || !withdraw()) {
+            log.warn("{}: {} giving up after {} attempt(s): {}", name, op, n, cause.getMessage());
+            return -1;
+        }
+        Metrics.retry(op);
+        log.warn("{}: {} attempt {} failed ({}), retrying in {} ms", name, op, n, cause.getMessage(), delay);
+        return delay;
+    }
+
+    /** Transient = worth retrying: overload/outage responses and I/O failures anywhere in the cause chain. */
+    public static boolean isTransient(Throwable t) {
+        for (Throwable c = t; c != null; c = c.getCause()) {
+            if (c instanceof CircuitOpenException) return false;
+            if (c instanceof ApiException) return ((ApiException) c).isTransient();
+            if (c instanceof IOException || c instanceof UncheckedIOException) return true;
+        }
+        return false;
+    }
+
+    /** A non-transient 4xx response: the server answered and rejected this request. */
+    private static boolean isClientError(Throwable t) {
+        for (Throwable c = t; c != null; c = c.getCause()) {
+            if (c instanceof ApiException) {
+                ApiException e = (ApiException) c;
+                return e.status() >= 400 && e.status() < 500 && !e.isTransient();
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Safe to resend even when the call is not idempotent: the server rejected it before doing any
+     * work (429 / REQUEST_LIMIT_EXCEEDED). I/O errors and 5xx are not, as the write may have landed.
+     */
+    public static boolean isUnprocessed(Throwable t) {
+        for (Throwable c = t; c != null; c = c.getCause()) {
+            if (c instanceof ApiException) return ((ApiException) c).isUnprocessed();
+        }
+        return false;
+    }
+
+    /** Decorrelated jitter, floored by Retry-After; -1 when the server asks for longer than maxWaitMs. */
+    private long nextDelay(Throwable cause, long prevDelay) {
+        long hi = Math.max(baseDelayMs + 1, prevDelay * 3);
+        long delay = Math.min(maxDelayMs, ThreadLocalRandom.current().nextLong(baseDelayMs, hi));
+        long retryAfter = cause instanceof ApiException ? ((ApiException) cause).retryAfterMs() : -1;
+        if (retryAfter > maxWaitMs) return -1;
+        return Math.max(delay, retryAfter);
+    }
+
+    private boolean permit() {
+        State s = state.get();
+        if (s == State.CLOSED) return true;
+        if (s == State.OPEN && System.currentTimeMillis() - openedAt >= breakerOpenMs
+                && state.compareAndSet(State.OPEN, State.HALF_OPEN)) {
+            log.info("{}: circuit half-open, probing", name);
+            return true;
+        }
+        return false;
+    }
+
+    private void onHealthy() {
+        consecutiveFailures.set(0);
+        deposit();
+        if (state.getAndSet(State.CLOSED) != State.CLOSED) log.info("{}: circuit closed", name);
+    }
+
+    private void onTransientFailure() {
+        int failures = consecutiveFailures.incrementAndGet();
+        State s = state.get();
+        if (s == State.HALF_OPEN || s == State.CLOSED && failures >= breakerFailures) {
+            openedAt = System.currentTimeMillis();
+            if (state.compareAndSet(s, State.OPEN)) {
+                log.warn("{}: circuit open after {} consecutive failures, failing fast for {} ms",
+                        name, failures, breakerOpenMs);
+            }
+        }
+    }
+
+    private void deposit() {
+        long b;
+        while ((b = budget.get()) < budgetCapacity
+                && !budget.compareAndSet(b, Math.min(budgetCapacity, b + budgetPerSuccess))) { /* retry */ }
+    }
+
+    private boolean withdraw() {
+        long b;
+        while ((b = budget.get()) >= 1000) {
+            if (budget.compareAndSet(b, b - 1000)) return true;
+        }
+        log.warn("{}: retry budget exhausted", name);
+        return false;
+    }
+
+    public State state() { return state.get(); }
+
+    @Override
+    public String toString() {
+        return name + "[state=" + state.get() + ", retryBudget=" + budget.get() / 1000 + "]";
+    }
+}
@@ -0,0 +1,271 @@
+package com.prodly.qa.api;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.prodly.qa.config.Config;
+import org.apache.commons.csv.CSVFormat;
+import org.apache.commons.csv.CSVParser;
+import org.apache.commons.csv.CSVPrinter;
+import org.apache.commons.csv.CSVRecord;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.*;
+import java.net.URI;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Salesforce Bulk API 2.0 ingest client.
+ * Streams CSV rows from any Reader into chunked ingest jobs (one job per chunk, each kept
+ * under the per-job upload limit), polls job state with backoff and streams the
+ * successful/failed result sets back to CSV files.
+ * Job creation, upload, status polls and result downloads go through the client's retry policy;
+ * a job whose upload or close fails is aborted. Uploads use SF_BULK_UPLOAD_TIMEOUT_MS, since a
+ * full chunk takes far longer than HTTP_TIMEOUT_MS.
+ */
+public class SalesforceBulkClient {
+    private static final Logger log = LoggerFactory.getLogger(SalesforceBulkClient.class);
+    private static final ObjectMapper om = new ObjectMapper();
+
+    private final SalesforceClient sf;
+    private final long chunkBytes;
+
+    public SalesforceBulkClient(SalesforceClient sf) { this(sf, Config.SF_BULK_CHUNK_MB * 1024L * 1024L); }
+
+    /** Client that starts a new job whenever a chunk reaches chunkBytes of CSV. */
+    public SalesforceBulkClient(SalesforceClient sf, long chunkBytes) {
+        this.sf = sf;
+        this.chunkBytes = chunkBytes;
+    }
+
+    /** Outcome of an ingest run across all chunk jobs. */
+    public static class Result {
+        public final List<String> jobIds = new ArrayList<>();
+        public int processed;
+        public int succeeded;
+        public int failed;
+        public File successFile;
+        public File failureFile;
+    }
+
+    /**
+     * Run an ingest operation ("insert", "update", "upsert", "delete") for the given columns
+     * of the source CSV. Only the listed columns are sent; they must be sObject field names.
+     * Results go to uniquely named bulk-{object}-{success|failed}-*.csv files in resultDir, so
+     * concurrent runs sharing a directory do not overwrite each other.
+     */
+    public Result ingest(String object, String operation, Reader source, List<String> columns, File resultDir) throws IOException {
+        Result result = new Result();
+        resultDir.mkdirs();
+        result.successFile = File.createTempFile("bulk-" + object + "-success-", ".csv", resultDir);
+        result.failureFile = File.createTempFile("bulk-" + object + "-failed-", ".csv", resultDir);
+
+        File chunk = Files.createTempFile("bulk-" + object + "-", ".csv").toFile();
+        try (CSVParser parser = CSVFormat.DEFAULT.withFirstRecordAsHeader().parse(source);
+             ResultSink ok = new ResultSink(result.successFile);
+             ResultSink bad = new ResultSink(result.failureFile)) {
+            CountingOutputStream counter = null;
+            CSVPrinter printer = null;
+            for (CSVRecord rec : parser) {
+                if (printer == null) {
+                    counter = new CountingOutputStream(new BufferedOutputStream(new FileOutputStream(chunk)));
+                    printer = new CSVPrinter(new OutputStreamWriter(counter, StandardCharsets.UTF_8),
+                            CSVFormat.DEFAULT.withHeader(columns.toArray(new String[0])).withRecordSeparator('\n'));
+                }
+                for (String c : columns) printer.print(rec.get(c));
+                printer.println();
+                printer.flush(); // push the writer's encoder buffer into the counter; the file buffer stays
+                if (counter.count >= chunkBytes) {
+                    printer.close();
+                    printer = null;
+                    runJob(object, operation, chunk, result, ok, bad);
+                }
+            }
+            if (printer != null) {
+                printer.close();
+                runJob(object, operation, chunk, result, ok, bad);
+            }
+        } finally {
+            Files.deleteIfExists(chunk.toPath());
+            sf.invalidateQueries(object);
+        }
+        log.info("SF bulk: {} {} done, processed={} ok={} failed={} jobs={}",
+                operation, object, result.processed, result.succeeded, result.failed, result.jobIds.size());
+        return result;
+    }
+
+    private void runJob(String object, String operation, File chunk, Result result,
+                        ResultSink ok, ResultSink bad) throws IOException {
+        String jobId = sf.retryPolicy().call("salesforce bulk create", () -> createJob(object, operation));
+        result.jobIds.add(jobId);
+        log.info("SF bulk: uploading {} bytes to job {}", chunk.length(), jobId);
+        HttpRequest.BodyPublisher body = HttpRequest.BodyPublishers.ofFile(chunk.toPath());
+        try {
+            sf.retryPolicy().call("salesforce bulk upload", () -> {
+                HttpRequest.Builder req = HttpRequest.newBuilder(URI.create(jobUrl(jobId) + "/batches"))
+                        .header("Content-Type", "text/csv")
+                        .PUT(body);
+                if (Config.SF_BULK_UPLOAD_TIMEOUT_MS > 0) req.timeout(Duration.ofMillis(Config.SF_BULK_UPLOAD_TIMEOUT_MS));
+                HttpResponse<String> up = send(req);
+                if (up.statusCode() != 201) throw ApiException.of("Bulk upload failed for job " + jobId, up, up.body());
+                return up;
+            });
+            patchState(jobId, "UploadComplete");
+        } catch (RuntimeException e) {
+            abort(jobId);
+            throw e;
+        }
+
+        JsonNode info = awaitCompletion(jobId);
+        result.processed += info.path("numberRecordsProcessed").asInt();
+        result.succeeded += ok.append(jobUrl(jobId) + "/successfulResults/");
+        result.failed += bad.append(jobUrl(jobId) + "/failedResults/");
+    }
+
+    private String createJob(String object, String operation) {
+        String body;
+        try {
+            body = om.writeValueAsString(Map.of(
+                    "object", object, "operation", operation,
+                    "contentType", "CSV", "lineEnding", "LF"));
+        } catch (IOException e) { throw new RuntimeException(e); }
+        HttpResponse<String> r = send(request(sf.apiV() + "/jobs/ingest")
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(body)));
+        if (r.statusCode() != 200) {
+            log.error("SF bulk create job failed: {}", r.body());
+            throw ApiException.of("Bulk job create failed", r, r.body());
+        }
+        return readTree(r.body()).get("id").asText();
+    }
+
+    private void patchState(String jobId, String state) {
+        HttpResponse<String> r = send(request(jobUrl(jobId))
+                .header("Content-Type", "application/json")
+                .method("PATCH", HttpRequest.BodyPublishers.ofString("{\"state\":\"" + state + "\"}")));
+        if (r.statusCode() != 200) {
+            throw ApiException.of("Bulk job " + jobId + " -> " + state + " failed", r, r.body());
+        }
+    }
+
+    private void abort(String jobId) {
+        try { patchState(jobId, "Aborted"); } catch (RuntimeException e) { log.warn("SF bulk: abort {} failed: {}", jobId, e.getMessage()); }
+    }
+
+    /** Poll job state with capped exponential backoff until it reaches a terminal state. */
+    private JsonNode awaitCompletion(String jobId) {
+        long deadline = System.currentTimeMillis() + Config.SF_BULK_TIMEOUT_MS;
+        long delay = 1000;
+        while (true) {
+            HttpResponse<String> r = sf.retryPolicy().call("salesforce bulk status", () -> {
+                HttpResponse<String> s = send(request(jobUrl(jobId)).GET());
+                if (s.statusCode() != 200) throw ApiException.of("Bulk job status failed for " + jobId, s, s.body());
+                return s;
+            });
+            JsonNode info = readTree(r.body());
+            String state = info.path("state").asText();
+            if ("JobComplete".equals(state)) return info;
+            if ("Failed".equals(state) || "Aborted".equals(state)) {
+                throw new RuntimeException("Bulk job " + jobId + " " + state + ": " + info.path("errorMessage").asText());
+            }
+            if (System.currentTimeMillis() + delay > deadline) {
+                abort(jobId);
+                throw new RuntimeException("Bulk job " + jobId + " timed out in state " + state);
+            }
+            log.info("SF bulk: job {} is {}, next poll in {} ms", jobId, state, delay);
+            try {
+                Thread.sleep(delay);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new RuntimeException("Interrupted while waiting for bulk job " + jobId, e);
+            }
+            delay = Math.min(delay * 2, 15000);
+        }
+    }
+
+    private String jobUrl(String jobId) { return sf.apiV() + "/jobs/ingest/" + jobId; }
+
+    private HttpRequest.Builder request(String url) {
+        return HttpRequest.newBuilder(URI.create(url))
+                .timeout(Duration.ofMillis(Config.HTTP_TIMEOUT_MS));
+    }
+
+    private HttpResponse<String> send(HttpRequest.Builder req) {
+        return sf.send(req, HttpResponse.BodyHandlers.ofString());
+    }
+
+    private static JsonNode readTree(String body) {
+        try { return om.readTree(body); } catch (IOException e) { throw new UncheckedIOException(e); }
+    }
+
+    /** Appends result CSVs from successive jobs into one file, writing the header once. */
+    private class ResultSink implements Closeable {
+        private final File file;
+        private CSVPrinter printer;
+
+        ResultSink(File file) { this.file = file; }
+
+        int append(String url) throws IOException {
+            // only the request is retried: once rows are copied, a failure must not append them twice
+            HttpResponse<InputStream> r = sf.retryPolicy().call("salesforce bulk results", () -> {
+                HttpResponse<InputStream> res = sf.send(request(url).header("Accept", "text/csv").GET(),
+                        HttpResponse.BodyHandlers.ofInputStream());
+                if (res.statusCode() == 200) return res;
+                String body;
+                try (InputStream in = res.body()) {
+                    body = new String(in.readAllBytes(), StandardCharsets.UTF_8);
+                } catch (IOException e) {
+                    body = "";
+                }
+                throw ApiException.of("Bulk results failed for " + url, res, body);
+            });
+            int rows = 0;
+            try (Reader in = new InputStreamReader(r.body(), StandardCharsets.UTF_8);
+                 CSVParser parser = CSVFormat.DEFAULT.withFirstRecordAsHeader().parse(in)) {
+                if (printer == null) {
+                    printer = new CSVPrinter(new OutputStreamWriter(new FileOutputStream(file), StandardCharsets.UTF_8),
+                            CSVFormat.DEFAULT.withHeader(parser.getHeaderNames().toArray(new String[0])));
+                }
+                for (CSVRecord rec : parser) {
+                    printer.printRecord(rec);
+                    rows++;
+                }
+            }
+            return rows;
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (printer != null) printer.close();
+        }
+    }
+
+    private static class CountingOutputStream extends FilterOutputStream {
+        long count;
+
+        CountingOutputStream(OutputStream out) { super(out); }
+
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+            count += len;
+        }
+
+        /** Keeps per-row flushes out of the file; close() still flushes the underlying buffer. */
+        @Override
+        public void flush() {}
+    }
+}
@@ -1,51 +1,116 @@
 package com.prodly.qa.api;
 
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.DeserializationFeature;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
 import com.prodly.qa.config.Config;
-import io.restassured.RestAssured;
-import io.restassured.config.HttpClientConfig;
-import io.restassured.config.RestAssuredConfig;
+import com.prodly.qa.models.SaveResult;
+import io.restassured.filter.Filter;
 import io.restassured.http.ContentType;
 import io.restassured.response.Response;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 public class SalesforceClient {
+    /** Max records per sObject Collections request. */
+    public static final int COLLECTION_LIMIT = 200;
+    /** REST API root under the instance URL. */
+    static final String API_PATH = "/services/data/v60.0";
+
     private static final Logger log = LoggerFactory.getLogger(SalesforceClient.class);
-    private static final ObjectMapper om = new ObjectMapper();
+    private static final ObjectMapper om = new ObjectMapper()
+            .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+    private static final ObjectReader ROW_READER = om.readerFor(new TypeReference<Map<String, Object>>() {});
+
+    private final RetryPolicy retry = RetryPolicy.fromConfig("salesforce");
+    private final TokenManager tokens = new TokenManager(this::fetchToken,
+            Config.SF_TOKEN_URL + "|" + Config.SF_CLIENT_ID,
+            Config.SF_TOKEN_CACHE_FILE == null ? null : new File(Config.SF_TOKEN_CACHE_FILE),
+            Config.SF_TOKEN_TTL_MS, Config.SF_TOKEN_REFRESH_MARGIN_MS);
+
+    /** Read-through SOQL result cache; null when SF_QUERY_CACHE_ENTRIES is 0. */
+    private final SalesforceQueryCache queryCache = Config.SF_QUERY_CACHE_ENTRIES > 0
+            ? new SalesforceQueryCache(Config.SF_QUERY_CACHE_ENTRIES, Config.SF_QUERY_CACHE_TTL_MS) : null;
 
-    private String accessToken;
-    private String baseUrl;
+    /** Non-blocking view of this client, created on first use; see {@link #async()}. */
+    private AsyncSalesforceClient async;
 
-    private io.restassured.specification.RequestSpecification baseJson() {
-        return RestAssured.given()
-                .config(RestAssuredConfig.config().httpClient(
-                        HttpClientConfig.httpClientConfig()
-                                .setParam("http.connection.timeout", Config.HTTP_TIMEOUT_MS)
-                                .setParam("http.socket.timeout", Config.HTTP_TIMEOUT_MS)
-                ))
-                .contentType(ContentType.JSON)
-                .header("Authorization", "Bearer " + accessToken);
+    /** Retry policy (budget + circuit breaker) shared by every caller of this client. */
+    public RetryPolicy retryPolicy() { return retry; }
+
+    /**
+     * The async view of this client, shared by every caller so they draw on one pool of
+     * SF_ASYNC_PERMITS in-flight calls. It holds no threads or connections of its own.
+     */
+    public synchronized AsyncSalesforceClient async() {
+        if (async == null) async = new AsyncSalesforceClient(this);
+        return async;
     }
 
+    /** Sets the bearer token at send time and, on a 401, re-authenticates once and resends. */
+    private final Filter auth = (req, res, ctx) -> {
+        TokenManager.Token t = tokens.token();
+        req.replaceHeader("Authorization", "Bearer " + t.accessToken);
+        Response r = ctx.next(req, res);
+        if (r.statusCode() != 401) return r;
+        t = tokens.refreshAfterUnauthorized(t);
+        req.replaceHeader("Authorization", "Bearer " + t.accessToken);
+        // the filter chain is single-use; send() resends without running the remaining filters again
+        return ctx.send(req);
+    };
+
+    io.restassured.specification.RequestSpecification baseJson() {
+        return HttpTransport.shared().given()
+                .filter(HttpMetrics.SALESFORCE)
+                .filter(auth)
+                .contentType(ContentType.JSON);
+    }
+
+    /**
+     * Make sure a valid token is available. Uses the cached (or persisted) token when it is still
+     * fresh, so repeated calls do not cost a round trip each.
+     */
     public void authenticate() {
+        TokenManager.Token t = tokens.token();
+        log.info("SF: auth OK, instance {}", t.instanceUrl);
+    }
+
+    /** Token for async callers; never blocks. */
+    CompletableFuture<TokenManager.Token> tokenAsync() { return tokens.tokenAsync(); }
+
+    /** Client-credentials exchange; called by the token manager only. */
+    private JsonNode fetchToken() {
         Map<String, String> form = new HashMap<>();
         form.put("grant_type", "client_credentials");
         form.put("client_id", Config.SF_CLIENT_ID);
         form.put("client_secret", Config.SF_CLIENT_SECRET);
 
         log.info("SF: authenticating to {}", Config.SF_TOKEN_URL);
-        Response r = RestAssured.given()
-                .config(RestAssuredConfig.config().httpClient(
-                        HttpClientConfig.httpClientConfig()
-                                .setParam("http.connection.timeout", Config.HTTP_TIMEOUT_MS)
-                                .setParam("http.socket.timeout", Config.HTTP_TIMEOUT_MS)
-                ))
+        Response r = HttpTransport.shared().given()
+                .filter(HttpMetrics.SALESFORCE)
                 .contentType("application/x-www-form-urlencoded; charset=UTF-8")
                 .baseUri(Config.SF_TOKEN_URL)
                 .formParams(form)
@@ -53,25 +118,74 @@ public class SalesforceClient {
 
         if (r.statusCode() != 200) {
             log.error("SF auth failed: {}", r.asString());
-            throw new RuntimeException("SF auth failed: " + r.statusCode());
+            throw ApiException.of("SF auth failed", r);
         }
-        JsonNode json;
-        try { json = om.readTree(r.asString()); } catch (Exception e) { throw new RuntimeException(e); }
+        try { return om.readTree(r.asString()); } catch (Exception e) { throw new RuntimeException(e); }
+    }
 
-        this.accessToken = json.get("access_token").asText();
-        this.baseUrl = json.get("instance_url").asText();
-        log.info("SF: auth OK, instance {}", baseUrl);
+    /**
+     * Send a java.net.http request with the current bearer token (set on the builder here); on a 401
+     * the body is discarded, the token refreshed once and the request resent.
+     */
+    <T> HttpResponse<T> send(HttpRequest.Builder builder, HttpResponse.BodyHandler<T> handler) {
+        TokenManager.Token t = tokens.token();
+        HttpResponse<T> r = sendOnce(builder.setHeader("Authorization", "Bearer " + t.accessToken).build(), handler);
+        if (r.statusCode() != 401) return r;
+        if (r.body() instanceof Closeable) {
+            try { ((Closeable) r.body()).close(); } catch (IOException ignored) {}
+        }
+        t = tokens.refreshAfterUnauthorized(t);
+        return sendOnce(builder.setHeader("Authorization", "Bearer " + t.accessToken).build(), handler);
     }
 
-    private String apiV() { return baseUrl + "/services/data/v60.0"; }
+    /**
+     * Non-blocking {@link #send}: request gets the token's instance URL and returns the builder
+     * (so no call blocks on a missing token); on a 401 the token is refreshed once and the request resent.
+     */
+    <T> CompletableFuture<HttpResponse<T>> sendAsync(Function<String, HttpRequest.Builder> request,
+                                                    HttpResponse.BodyHandler<T> handler) {
+        return tokens.tokenAsync().thenCompose(t -> sendOnceAsync(request.apply(t.instanceUrl), t, handler)
+                .thenCompose(r -> r.statusCode() != 401 ? CompletableFuture.completedFuture(r)
+                        : tokens.refreshAfterUnauthorizedAsync(t)
+                                .thenCompose(fresh -> sendOnceAsync(request.apply(fresh.instanceUrl), fresh, handler))));
+    }
+
+    private static <T> CompletableFuture<HttpResponse<T>> sendOnceAsync(HttpRequest.Builder builder, TokenManager.Token t,
+                                                                       HttpResponse.BodyHandler<T> handler) {
+        HttpRequest req = builder.setHeader("Authorization", "Bearer " + t.accessToken).build();
+        long start = System.nanoTime();
+        return HttpTransport.shared().jdk().sendAsync(req, handler).thenApply(r -> {
+            HttpMetrics.SALESFORCE.record(req, r, start);
+            return r;
+        });
+    }
+
+    private static <T> HttpResponse<T> sendOnce(HttpRequest req, HttpResponse.BodyHandler<T> handler) {
+        try {
+            long start = System.nanoTime();
+            HttpResponse<T> r = HttpTransport.shared().jdk().send(req, handler);
+            HttpMetrics.SALESFORCE.record(req, r, start);
+            return r;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted: " + req.uri(), e);
+        }
+    }
+
+    String apiV() { return instanceUrl() + API_PATH; }
+    String instanceUrl() { return tokens.token().instanceUrl; }
     private String sObject(String type) { return apiV() + "/sobjects/" + type + "/"; }
+    private String collections() { return apiV() + "/composite/sobjects"; }
 
     public String createAccount(Map<String, Object> fields) {
         log.info("SF: create Account {}", fields.get("Name"));
         Response r = baseJson().body(fields).post(sObject("Account"));
+        invalidateQueries("Account");
         if (r.statusCode() != 201) {
             log.error("SF create failed: {}", r.asString());
-            throw new RuntimeException("Create failed: " + r.statusCode() + " " + r.asString());
+            throw ApiException.of("Create failed", r);
         }
         return r.jsonPath().getString("id");
     }
@@ -79,37 +193,212 @@ public class SalesforceClient {
     public void updateAccount(String id, Map<String, Object> fields) {
         log.info("SF: update Account {}", id);
         Response r = baseJson().body(fields).patch(sObject("Account") + id);
+        invalidateQueries("Account");
         if (r.statusCode() != 204) {
             log.error("SF update failed: {}", r.asString());
-            throw new RuntimeException("Update failed for " + id + ": " + r.statusCode() + " " + r.asString());
+            throw ApiException.of("Update failed for " + id, r);
         }
     }
 
     public void deleteAccount(String id) {
         log.info("SF: delete Account {}", id);
         Response r = baseJson().delete(sObject("Account") + id);
+        invalidateQueries("Account");
         if (r.statusCode() != 204 && r.statusCode() != 404) {
             log.error("SF delete failed: {}", r.asString());
-            throw new RuntimeException("Delete failed for " + id + ": " + r.statusCode() + " " + r.asString());
+            throw ApiException.of("Delete failed for " + id, r);
         }
     }
 
     public List<Map<String,Object>> queryAccountsByNamePrefix(String prefix) {
-        String soql = "SELECT Id, Name, BillingCountry, NumberOfEmployees, Phone FROM Account WHERE Name LIKE '" + prefix + "%'";
-        Response r = RestAssured.given()
-                .config(RestAssuredConfig.config().httpClient(
-                        HttpClientConfig.httpClientConfig()
-                                .setParam("http.connection.timeout", Config.HTTP_TIMEOUT_MS)
-                                .setParam("http.socket.timeout", Config.HTTP_TIMEOUT_MS)
-                ))
-                .baseUri(apiV() + "/query")
-                .header("Authorization","Bearer " + accessToken)
-                .queryParam("q", soql)
-                .get();
+        return queryList("SELECT Id, Name, BillingCountry, NumberOfEmployees, Phone FROM Account WHERE Name LIKE '" + prefix + "%'");
+    }
+
+    /**
+     * All rows of a SOQL query. With SF_QUERY_CACHE_ENTRIES set, results (read-only) are cached per
+     * normalized query for SF_QUERY_CACHE_TTL_MS and dropped when this client writes a queried sObject.
+     */
+    public List<Map<String, Object>> queryList(String soql) {
+        if (queryCache == null) return fetchList(soql);
+        String key = SalesforceQueryCache.normalize(soql);
+        List<Map<String, Object>> rows = queryCache.get(key);
+        if (rows != null) {
+            log.info("SF: query (cached) {}", soql);
+            return rows;
+        }
+        long gen = queryCache.generation();
+        return queryCache.put(key, gen, fetchList(soql));
+    }
+
+    private List<Map<String, Object>> fetchList(String soql) {
+        try (Stream<Map<String, Object>> rows = query(soql)) {
+            return rows.collect(Collectors.toList());
+        }
+    }
+
+    /**
+     * Drop cached query results that read the given sObject type (all of them when null). Writes
+     * made through this client do this once the response is in (so a read that overlapped the write
+     * is not kept); call it after changing records some other way.
+     */
+    public void invalidateQueries(String type) {
+        if (queryCache != null) queryCache.invalidate(type);
+    }
+
+    /** Query cache counters, for diagnostics. */
+    public String queryCacheStats() {
+        return queryCache == null ? "disabled" : queryCache.toString();
+    }
+
+    /** Stream all rows of a SOQL query as maps, following nextRecordsUrl lazily. Close the stream when done. */
+    public Stream<Map<String, Object>> query(String soql) {
+        return stream(soql, ROW_READER);
+    }
+
+    /** totalSize of a SELECT COUNT() query; no records are transferred. */
+    public long count(String soql) {
+        log.info("SF: count {}", soql);
+        Response r = baseJson().queryParam("q", soql).get(apiV() + "/query");
+        if (r.statusCode() != 200) throw ApiException.of("Count failed", r);
+        return r.jsonPath().getLong("totalSize");
+    }
+
+    /** Stream all rows of a SOQL query bound to the given type; unknown fields (e.g. "attributes") are ignored. */
+    public <T> Stream<T> query(String soql, Class<T> type) {
+        return stream(soql, om.readerFor(type));
+    }
+
+    private <T> Stream<T> stream(String soql, ObjectReader reader) {
+        log.info("SF: query {}", soql);
+        QueryPager<T> pager = new QueryPager<>(this, soql, reader);
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(pager, Spliterator.ORDERED | Spliterator.NONNULL), false)
+                .onClose(pager::close);
+    }
+
+    /** Create up to 200 records in one sObject Collections call; results follow input order. */
+    public List<SaveResult> createRecords(String type, List<Map<String, Object>> records) {
+        log.info("SF: create {} {} records (collection)", records.size(), type);
+        Response r = baseJson().body(collectionBody(type, records)).post(collections());
+        invalidateQueries(type);
+        if (r.statusCode() != 200) {
+            log.error("SF collection create failed: {}", r.asString());
+            throw ApiException.of("Collection create failed", r);
+        }
+        return parseSaveResults(r.asString());
+    }
+
+    /** Update up to 200 records (each map must carry "Id") in one sObject Collections call. */
+    public List<SaveResult> updateRecords(String type, List<Map<String, Object>> records) {
+        log.info("SF: update {} {} records (collection)", records.size(), type);
+        Response r = baseJson().body(collectionBody(type, records)).patch(collections());
+        invalidateQueries(type);
         if (r.statusCode() != 200) {
-            log.error("SF query failed: {}", r.asString());
-            throw new RuntimeException("Query failed: " + r.asString());
+            log.error("SF collection update failed: {}", r.asString());
+            throw ApiException.of("Collection update failed", r);
+        }
+        return parseSaveResults(r.asString());
+    }
+
+    /**
+     * Upsert up to 200 records keyed on an external id field in one sObject Collections call.
+     * Lookups may use relationship syntax, e.g. {"Account": {"Guid__c": "..."}}, to resolve parents.
+     */
+    public List<SaveResult> upsertRecords(String type, String externalIdField, List<Map<String, Object>> records) {
+        log.info("SF: upsert {} {} records on {} (collection)", records.size(), type, externalIdField);
+        Response r = baseJson().body(collectionBody(type, records))
+                .patch(collections() + "/" + type + "/" + externalIdField);
+        invalidateQueries(type);
+        if (r.statusCode() != 200) {
+            log.error("SF collection upsert failed: {}", r.asString());
+            throw ApiException.of("Collection upsert failed", r);
+        }
+        return parseSaveResults(r.asString());
+    }
+
+    /**
+     * Create up to 200 records in one sObject Collections call, serialized straight from the objects
+     * by {@link CollectionBody} (no intermediate maps); results follow input order.
+     */
+    public <T> List<SaveResult> createRecords(String type, List<T> records, CollectionBody.Fields<T> fields) {
+        log.info("SF: create {} {} records (collection)", records.size(), type);
+        return sendCollection("POST", "create", type, records, fields);
+    }
+
+    /** Update up to 200 records (fields must write "Id") in one sObject Collections call, serialized directly. */
+    public <T> List<SaveResult> updateRecords(String type, List<T> records, CollectionBody.Fields<T> fields) {
+        log.info("SF: update {} {} records (collection)", records.size(), type);
+        return sendCollection("PATCH", "update", type, records, fields);
+    }
+
+    /** Sends the thread's reusable body buffer as is; send() returns only once the exchange is complete. */
+    private <T> List<SaveResult> sendCollection(String method, String what, String type, List<T> records,
+                                                CollectionBody.Fields<T> fields) {
+        checkLimit(records.size());
+        CollectionBody.Buffer body = CollectionBody.write(type, records, fields);
+        HttpResponse<String> r = send(HttpRequest.newBuilder(URI.create(collections()))
+                        .timeout(Duration.ofMillis(Config.HTTP_TIMEOUT_MS))
+                        .header("Content-Type", "application/json")
+                        .header("Accept", "application/json")
+                        .method(method, HttpRequest.BodyPublishers.ofByteArray(body.array(), 0, body.size())),
+                HttpResponse.BodyHandlers.ofString());
+        invalidateQueries(type);
+        if (r.statusCode() != 200) {
+            log.error("SF collection {} failed: {}", what, r.body());
+            throw ApiException.of("Collection " + what + " failed", r, r.body());
+        }
+        return parseSaveResults(r.body());
+    }
+
+    /** Delete up to 200 records by id in one sObject Collections call. */
+    public List<SaveResult> deleteRecords(List<String> ids) {
+        checkLimit(ids.size());
+        log.info("SF: delete {} records (collection)", ids.size());
+        Response r = baseJson()
+                .queryParam("ids", String.join(",", ids))
+                .queryParam("allOrNone", false)
+                .delete(collections());
+        invalidateQueries(null); // ids may be of any type
+        if (r.statusCode() != 200) {
+            log.error("SF collection delete failed: {}", r.asString());
+            throw ApiException.of("Collection delete failed", r);
+        }
+        return parseSaveResults(r.asString());
+    }
+
+    private static Map<String, Object> collectionBody(String type, List<Map<String, Object>> records) {
+        checkLimit(records.size());
+        Map<String, String> attributes = Map.of("type", type);
+        List<Map<String, Object>> payload = new ArrayList<>(records.size());
+        for (Map<String, Object> rec : records) {
+            Map<String, Object> m = new LinkedHashMap<>();
+            m.put("attributes", attributes);
+            m.putAll(rec);
+            payload.add(m);
+        }
+        Map<String, Object> body = new HashMap<>();
+        body.put("allOrNone", false);
+        body.put("records", payload);
+        return body;
+    }
+
+    private static void checkLimit(int size) {
+        if (size > COLLECTION_LIMIT) {
+            throw new IllegalArgumentException("Collection size " + size + " exceeds " + COLLECTION_LIMIT);
+        }
+    }
+
+    static List<SaveResult> parseSaveResults(String body) {
+        JsonNode json;
+        try { json = om.readTree(body); } catch (Exception e) { throw new RuntimeException(e); }
+        List<SaveResult> results = new ArrayList<>(json.size());
+        for (JsonNode n : json) {
+            List<String> errors = new ArrayList<>();
+            for (JsonNode err : n.path("errors")) {
+                errors.add(err.path("statusCode").asText() + ": " + err.path("message").asText());
+            }
+            String id = n.hasNonNull("id") ? n.get("id").asText() : null;
+            results.add(new SaveResult(id, n.path("success").asBoolean(), errors));
         }
-        return r.jsonPath().getList("records");
+        return results;
     }
 }
@@ -0,0 +1,156 @@
+package com.prodly.qa.api;
+
+import java.util.*;
+
+/**
+ * Bounded LRU cache of SOQL results keyed by the normalized query (whitespace collapsed and
+ * case folded outside string literals), each entry valid for a fixed TTL. Entries record the
+ * sObjects named in their FROM clauses and are dropped when the client writes one of them. A
+ * query that also reads other objects, through a nested FROM (relationship or semi-join subquery)
+ * or a relationship path such as Account.Name, is dropped on any write: the path does not say
+ * which sObject it reaches.
+ *
+ * <p>Fills race with writes, so every invalidation bumps a generation and a result fetched
+ * before it is not stored.
+ */
+class SalesforceQueryCache {
+    private static final String ANY = "*";
+
+    static class CachedQuery {
+        final List<Map<String, Object>> rows;
+        final Set<String> types;
+        final long expiresAt;
+
+        CachedQuery(List<Map<String, Object>> rows, Set<String> types, long expiresAt) {
+            this.rows = rows;
+            this.types = types;
+            this.expiresAt = expiresAt;
+        }
+    }
+
+    private final Map<String, CachedQuery> map;
+    private final long ttlMs;
+    private long generation;
+    private long hits;
+    private long misses;
+    private long evictions;
+    private long expirations;
+    private long invalidations;
+
+    SalesforceQueryCache(int maxEntries, long ttlMs) {
+        this.ttlMs = ttlMs;
+        this.map = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, CachedQuery> eldest) {
+                if (size() <= maxEntries) return false;
+                evictions++;
+                return true;
+            }
+        };
+    }
+
+    /** Rows cached for the normalized key, or null (counted as a miss) if absent or expired. */
+    synchronized List<Map<String, Object>> get(String key) {
+        CachedQuery e = map.get(key);
+        if (e != null && e.expiresAt <= System.currentTimeMillis()) {
+            map.remove(key);
+            expirations++;
+            e = null;
+        }
+        if (e == null) {
+            misses++;
+            return null;
+        }
+        hits++;
+        return e.rows;
+    }
+
+    /** Current generation; pass it back to {@link #put} so a fill that raced a write is dropped. */
+    synchronized long generation() { return generation; }
+
+    /** Store rows (made read-only) unless the cache was invalidated since gen was taken; returns what to hand out. */
+    synchronized List<Map<String, Object>> put(String key, long gen, List<Map<String, Object>> rows) {
+        List<Map<String, Object>> frozen = new ArrayList<>(rows.size());
+        for (Map<String, Object> r : rows) frozen.add(Collections.unmodifiableMap(r));
+        frozen = Collections.unmodifiableList(frozen);
+        if (gen == generation) map.put(key, new CachedQuery(frozen, types(key), System.currentTimeMillis() + ttlMs));
+        return frozen;
+    }
+
+    /** Drop every entry that reads sObject type (any entry when type is null). */
+    synchronized void invalidate(String type) {
+        generation++;
+        String t = type == null ? null : type.toLowerCase(Locale.ROOT);
+        int before = map.size();
+        map.values().removeIf(e -> t == null || e.types.contains(t) || e.types.contains(ANY));
+        invalidations += before - map.size();
+    }
+
+    /** Collapse whitespace and lower-case everything outside '...' literals (backslash escapes kept). */
+    static String normalize(String soql) {
+        StringBuilder sb = new StringBuilder(soql.length());
+        boolean literal = false;
+        boolean space = false;
+        for (int i = 0; i < soql.length(); i++) {
+            char c = soql.charAt(i);
+            if (literal) {
+                sb.append(c);
+                if (c == '\\' && i + 1 < soql.length()) sb.append(soql.charAt(++i));
+                else if (c == '\'') literal = false;
+            } else if (Character.isWhitespace(c)) {
+                space = sb.length() > 0;
+            } else {
+                if (space) sb.append(' ');
+                space = false;
+                if (c == '\'') literal = true;
+                sb.append(Character.toLowerCase(c));
+            }
+        }
+        return sb.toString();
+    }
+
+    /**
+     * sObjects after each FROM of a normalized query; ANY if a FROM sits inside parentheses or a
+     * relationship path (a dot after an identifier) appears outside literals.
+     */
+    static Set<String> types(String key) {
+        Set<String> types = new HashSet<>();
+        int depth = 0;
+        boolean literal = false;
+        for (int i = 0; i < key.length(); i++) {
+            char c = key.charAt(i);
+            if (literal) {
+                if (c == '\\') i++;
+                else if (c == '\'') literal = false;
+            } else if (c == '\'') {
+                literal = true;
+            } else if (c == '(') {
+                depth++;
+            } else if (c == ')') {
+                depth--;
+            } else if (c == '.' && i + 1 < key.length() && Character.isLetter(key.charAt(i + 1)) && identifierBefore(key, i)) {
+                types.add(ANY);
+            } else if (key.startsWith("from ", i) && (i == 0 || !Character.isLetterOrDigit(key.charAt(i - 1)))) {
+                int start = i + 5;
+                int end = start;
+                while (end < key.length() && (Character.isLetterOrDigit(key.charAt(end)) || key.charAt(end) == '_')) end++;
+                types.add(depth > 0 ? ANY : key.substring(start, end));
+                i = end - 1;
+            }
+        }
+        return types;
+    }
+
+    /** Whether the token ending just before index i starts with a letter (a name, not a number). */
+    private static boolean identifierBefore(String key, int i) {
+        int start = i;
+        while (start > 0 && (Character.isLetterOrDigit(key.charAt(start - 1)) || key.charAt(start - 1) == '_')) start--;
+        return start < i && Character.isLetter(key.charAt(start));
+    }
+
+    @Override
+    public synchronized String toString() {
+        return "entries=" + map.size() + " hits=" + hits + " misses=" + misses + " evictions=" + evictions
+                + " expired=" + expirations + " invalidated=" + invalidations;
+    }
+}
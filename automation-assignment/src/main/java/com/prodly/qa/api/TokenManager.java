@@ -0,0 +1,200 @@
+package com.prodly.qa.api;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Caches an OAuth access token and refreshes it before it expires.
+ * <ul>
+ *   <li>{@link #token()} returns the cached token; inside the refresh margin it starts a background
+ *       refresh and still returns the current one, once expired it waits for a new one.</li>
+ *   <li>{@link #refreshAfterUnauthorized} is for 401s: callers holding the same stale token share
+ *       one in-flight exchange (single flight), so a burst of 401s costs one re-authentication.</li>
+ *   <li>With a cache file the token survives JVM restarts; the file is keyed to the token
+ *       endpoint and client id, and written owner-only where the file system allows.</li>
+ * </ul>
+ */
+public class TokenManager {
+    private static final Logger log = LoggerFactory.getLogger(TokenManager.class);
+    private static final ObjectMapper om = new ObjectMapper();
+    private static final ExecutorService REFRESH = Executors.newCachedThreadPool(r -> {
+        Thread t = new Thread(r, "token-refresh");
+        t.setDaemon(true);
+        return t;
+    });
+
+    /** An access token, the instance it is valid for, and when we consider it expired. */
+    public static final class Token {
+        public final String accessToken;
+        public final String instanceUrl;
+        public final long expiresAt;
+
+        public Token(String accessToken, String instanceUrl, long expiresAt) {
+            this.accessToken = accessToken;
+            this.instanceUrl = instanceUrl;
+            this.expiresAt = expiresAt;
+        }
+    }
+
+    /** Performs the actual token request; expiry is derived here from the configured TTL. */
+    public interface Exchange {
+        JsonNode fetch();
+    }
+
+    private final Exchange exchange;
+    private final String key;
+    private final File cacheFile;
+    private final long ttlMs;
+    private final long marginMs;
+
+    private volatile Token current;
+    private CompletableFuture<Token> inFlight;
+
+    /**
+     * @param key       identifies the credentials (e.g. token URL + client id) so a cache file from other ones is ignored
+     * @param cacheFile where to persist the token between runs, or null for memory only
+     * @param ttlMs     token lifetime when the response carries no expires_in (the org's session timeout)
+     * @param marginMs  refresh this long before expiry
+     */
+    public TokenManager(Exchange exchange, String key, File cacheFile, long ttlMs, long marginMs) {
+        this.exchange = exchange;
+        this.key = key;
+        this.cacheFile = cacheFile;
+        this.ttlMs = ttlMs;
+        this.marginMs = marginMs;
+        this.current = load();
+    }
+
+    /** A usable token, fetching or refreshing as needed. */
+    public Token token() {
+        Token t = current;
+        long now = System.currentTimeMillis();
+        if (t == null || now >= t.expiresAt) return refresh(t, false);
+        if (now >= t.expiresAt - marginMs) refresh(t, true);
+        return t;
+    }
+
+    /** The server rejected stale: get a new token, sharing the exchange with concurrent callers. */
+    public Token refreshAfterUnauthorized(Token stale) {
+        return refresh(stale, false);
+    }
+
+    /** Like {@link #token()} but never blocks: a needed exchange runs on the refresh pool. */
+    public CompletableFuture<Token> tokenAsync() {
+        Token t = current;
+        long now = System.currentTimeMillis();
+        if (t == null || now >= t.expiresAt) return begin(t, false, false);
+        if (now >= t.expiresAt - marginMs) begin(t, false, true);
+        return CompletableFuture.completedFuture(t);
+    }
+
+    /** Like {@link #refreshAfterUnauthorized} but never blocks. */
+    public CompletableFuture<Token> refreshAfterUnauthorizedAsync(Token stale) {
+        return begin(stale, false, false);
+    }
+
+    private Token refresh(Token stale, boolean background) {
+        CompletableFuture<Token> f = begin(stale, !background, background);
+        if (background) return stale;
+        try {
+            return f.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) throw (RuntimeException) e.getCause();
+            throw e;
+        }
+    }
+
+    /**
+     * Future for a token newer than stale: done at once if another caller already refreshed,
+     * otherwise the shared in-flight exchange, started here (inline or on the pool) if there is none.
+     */
+    private CompletableFuture<Token> begin(Token stale, boolean inline, boolean background) {
+        CompletableFuture<Token> f;
+        boolean leader = false;
+        synchronized (this) {
+            Token t = current;
+            if (t != null && t != stale) return CompletableFuture.completedFuture(t); // someone already refreshed
+            if (inFlight == null) {
+                inFlight = new CompletableFuture<>();
+                leader = true;
+            }
+            f = inFlight;
+        }
+        if (leader) {
+            log.info("SF: {}", background ? "token expires soon, refreshing in background"
+                    : stale == null ? "no cached token, authenticating" : "token expired or rejected, re-authenticating");
+            if (inline) exchange(f);
+            else REFRESH.execute(() -> exchange(f));
+        }
+        return f;
+    }
+
+    private void exchange(CompletableFuture<Token> f) {
+        try {
+            JsonNode json = exchange.fetch();
+            long ttl = json.hasNonNull("expires_in") ? json.get("expires_in").asLong() * 1000 : ttlMs;
+            long issued = json.hasNonNull("issued_at") ? json.get("issued_at").asLong() : System.currentTimeMillis();
+            Token t = new Token(json.get("access_token").asText(), json.get("instance_url").asText(), issued + ttl);
+            synchronized (this) {
+                current = t;
+                inFlight = null;
+            }
+            save(t);
+            f.complete(t);
+        } catch (RuntimeException e) {
+            synchronized (this) { inFlight = null; }
+            f.completeExceptionally(e);
+        }
+    }
+
+    private Token load() {
+        if (cacheFile == null || !cacheFile.isFile()) return null;
+        try {
+            JsonNode json = om.readTree(cacheFile);
+            if (!key.equals(json.path("key").asText())) return null;
+            Token t = new Token(json.get("access_token").asText(), json.get("instance_url").asText(),
+                    json.get("expires_at").asLong());
+            if (System.currentTimeMillis() >= t.expiresAt - marginMs) return null;
+            log.info("SF: using cached token from {}", cacheFile);
+            return t;
+        } catch (IOException | RuntimeException e) {
+            log.warn("SF: ignoring unreadable token cache {}: {}", cacheFile, e.getMessage());
+            return null;
+        }
+    }
+
+    private void save(Token t) {
+        if (cacheFile == null) return;
+        Map<String, Object> json = new LinkedHashMap<>();
+        json.put("key", key);
+        json.put("access_token", t.accessToken);
+        json.put("instance_url", t.instanceUrl);
+        json.put("expires_at", t.expiresAt);
+        try {
+            File dir = cacheFile.getAbsoluteFile().getParentFile();
+            if (dir != null) dir.mkdirs();
+            File tmp = File.createTempFile("sf-token", ".tmp", dir);
+            try {
+                Files.setPosixFilePermissions(tmp.toPath(), PosixFilePermissions.fromString("rw-------"));
+            } catch (UnsupportedOperationException ignored) {}
+            om.writeValue(tmp, json);
+            Files.move(tmp.toPath(), cacheFile.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            log.warn("SF: could not write token cache {}: {}", cacheFile, e.getMessage());
+        }
+    }
+}
@@ -8,15 +8,97 @@ public class Config {
     public static final String SF_CLIENT_ID = Env.get("SF_CLIENT_ID");
     public static final String SF_CLIENT_SECRET = Env.get("SF_CLIENT_SECRET");
     public static final String SF_TOKEN_URL = SF_INSTANCE_URL + "/services/oauth2/token";
+    /** Assumed token lifetime (the org's session timeout; client-credentials responses carry no expiry). */
+    public static final int SF_TOKEN_TTL_MS = Env.getInt("SF_TOKEN_TTL_MS", 7200000);
+    /** Refresh the token this long before it expires. */
+    public static final int SF_TOKEN_REFRESH_MARGIN_MS = Env.getInt("SF_TOKEN_REFRESH_MARGIN_MS", 300000);
+    /** File to persist the token between runs (unset = memory only). Keep it out of version control. */
+    public static final String SF_TOKEN_CACHE_FILE = envOr("SF_TOKEN_CACHE_FILE", null);
 
+    public static final String GITHUB_API_URL = envOr("GITHUB_API_URL", "https://api.github.com");
     public static final String GITHUB_OWNER = Env.get("GITHUB_OWNER");
     public static final String GITHUB_REPO = Env.get("GITHUB_REPO");
     public static final String GITHUB_TOKEN = Env.get("GITHUB_TOKEN");
+    /** Max concurrent GitHub blob uploads per commit. */
+    public static final int GITHUB_MAX_IN_FLIGHT = Env.getInt("GITHUB_MAX_IN_FLIGHT", 4);
+    /** putFile(Path) sends files up to this size in one Contents API PUT, bigger ones as a streamed blob commit. */
+    public static final int GITHUB_CONTENTS_MAX_BYTES = Env.getInt("GITHUB_CONTENTS_MAX_BYTES", 1024 * 1024);
+    /** Max GET responses kept in GitHubClient's ETag cache. */
+    public static final int GITHUB_CACHE_ENTRIES = Env.getInt("GITHUB_CACHE_ENTRIES", 256);
 
     public static final int HTTP_TIMEOUT_MS = Env.getInt("HTTP_TIMEOUT_MS", 15000);
+    public static final int HTTP_MAX_CONNECTIONS = Env.getInt("HTTP_MAX_CONNECTIONS", 50);
+    public static final int HTTP_MAX_PER_HOST = Env.getInt("HTTP_MAX_PER_HOST", 20);
+    public static final int HTTP_KEEP_ALIVE_MS = Env.getInt("HTTP_KEEP_ALIVE_MS", 60000);
+    public static final boolean HTTP2_ENABLED = Env.getBool("HTTP2_ENABLED", true);
+
+    /** Threads of the pool shared by every Parallel.forEach call; each call still caps its own in-flight tasks. */
+    public static final int PARALLEL_POOL_SIZE = Env.getInt("PARALLEL_POOL_SIZE", 64);
+    /** Max concurrent Salesforce requests issued by DataService (1 = sequential). */
+    public static final int SF_MAX_IN_FLIGHT = Env.getInt("SF_MAX_IN_FLIGHT", 1);
+    /** SalesforceClient.async(): max calls in flight, and max waiting before submitters block. */
+    public static final int SF_ASYNC_PERMITS = Env.getInt("SF_ASYNC_PERMITS", 16);
+    public static final int SF_ASYNC_MAX_QUEUED = Env.getInt("SF_ASYNC_MAX_QUEUED", 1000);
+
+    /** Min concurrent collection deletes during cleanup and orphan sweeps. */
+    public static final int SF_CLEANUP_MAX_IN_FLIGHT = Env.getInt("SF_CLEANUP_MAX_IN_FLIGHT", 4);
+
+    /** Purge leftovers of earlier runs (Accounts, data-autotest/ CSVs, phones-* branches) before the suite. */
+    public static final boolean SWEEP_ORPHANS = Env.getBool("SWEEP_ORPHANS", false);
+    /** Finished run whose leftovers the sweeper purges ("*" = every run); required, never the current RUN_ID. */
+    public static final String SWEEP_RUN_ID = envOr("SWEEP_RUN_ID", null);
+
+    /** Rows per SOQL page (Sforce-Query-Options batchSize, 200..2000). */
+    public static final int SF_QUERY_BATCH_SIZE = Env.getInt("SF_QUERY_BATCH_SIZE", 2000);
+    /** Max SOQL results kept by SalesforceClient.queryList (0 = no caching) and how long each stays valid. */
+    public static final int SF_QUERY_CACHE_ENTRIES = Env.getInt("SF_QUERY_CACHE_ENTRIES", 0);
+    public static final int SF_QUERY_CACHE_TTL_MS = Env.getInt("SF_QUERY_CACHE_TTL_MS", 30000);
+    /** Records per Id range and max ranges queried at once by AccountExporter. */
+    public static final int SF_EXPORT_CHUNK_SIZE = Env.getInt("SF_EXPORT_CHUNK_SIZE", 50000);
+    public static final int SF_EXPORT_MAX_IN_FLIGHT = Env.getInt("SF_EXPORT_MAX_IN_FLIGHT", 4);
+
+    /** Seed for synthetic Account data; unset = random, logged at startup so a run can be replayed. */
+    public static final String ACCOUNT_SEED = envOr("ACCOUNT_SEED", null);
+
+    /** External id field (on Account and Contact) that holds the seed files' Guid column. */
+    public static final String SF_EXTERNAL_ID_FIELD = envOr("SF_EXTERNAL_ID_FIELD", "Guid__c");
+
+    /** Send only changed fields in the CSV phone update, diffing against master and the last sync's state. */
+    public static final boolean SF_DELTA_SYNC = Env.getBool("SF_DELTA_SYNC", false);
+    /** Where delta sync keeps its Id/field hash indexes. */
+    public static final String SF_DELTA_STATE_DIR = envOr("SF_DELTA_STATE_DIR", ".delta-state");
+    /** Name of the state the CSV phone update diffs against; stable across runs so the state is reused. */
+    public static final String SF_DELTA_STATE_KEY = envOr("SF_DELTA_STATE_KEY", "accounts");
+
+    public static final boolean SF_BULK_MODE = Env.getBool("SF_BULK_MODE", false);
+    public static final int SF_BULK_CHUNK_MB = Env.getInt("SF_BULK_CHUNK_MB", 100);
+    public static final int SF_BULK_TIMEOUT_MS = Env.getInt("SF_BULK_TIMEOUT_MS", 600000);
+    /** Timeout for one bulk chunk upload (up to SF_BULK_CHUNK_MB), far above HTTP_TIMEOUT_MS; 0 = none. */
+    public static final int SF_BULK_UPLOAD_TIMEOUT_MS = Env.getInt("SF_BULK_UPLOAD_TIMEOUT_MS", 1800000);
+
+    /** Total attempts per call, including the first. */
+    public static final int RETRY_MAX_ATTEMPTS = Env.getInt("RETRY_MAX_ATTEMPTS", 4);
+    public static final int RETRY_BASE_MS = Env.getInt("RETRY_BASE_MS", 300);
+    public static final int RETRY_MAX_MS = Env.getInt("RETRY_MAX_MS", 20000);
+    /** Longest Retry-After we honor; a server asking for more fails the call instead. */
+    public static final int RETRY_MAX_WAIT_MS = Env.getInt("RETRY_MAX_WAIT_MS", 60000);
+    /** Retries allowed per client as a percentage of successful calls (plus RETRY_BUDGET_MIN banked). */
+    public static final int RETRY_BUDGET_PERCENT = Env.getInt("RETRY_BUDGET_PERCENT", 10);
+    public static final int RETRY_BUDGET_MIN = Env.getInt("RETRY_BUDGET_MIN", 10);
+    /** Consecutive transient failures that open a client's circuit breaker, and how long it stays open. */
+    public static final int BREAKER_FAILURES = Env.getInt("BREAKER_FAILURES", 5);
+    public static final int BREAKER_OPEN_MS = Env.getInt("BREAKER_OPEN_MS", 30000);
+
+    /** Per-operation latency/throughput metrics and the end-of-run report. */
+    public static final boolean METRICS_ENABLED = Env.getBool("METRICS_ENABLED", true);
 
     public static final String RUN_ID = resolveRunId();
 
+    private static String envOr(String key, String def) {
+        String v = Env.get(key);
+        return v == null || v.isBlank() ? def : v.trim();
+    }
+
     private static String resolveRunId() {
         String env = Env.get("RUN_ID");
         if (env != null && !env.isBlank()) return env.trim();
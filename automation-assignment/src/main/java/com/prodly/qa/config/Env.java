@@ -8,6 +8,8 @@ import java.util.Map;
 
 /**
  * Minimal .env loader with System.getenv() fallback.
+ * JVM system properties (-DKEY=value) take precedence over both, so a run or an in-process
+ * harness can point the clients elsewhere without touching the environment.
  */
 public class Env {
     private static final Map<String,String> PROPS = new HashMap<>();
@@ -33,6 +35,8 @@ public class Env {
     }
 
     public static String get(String key) {
+        String p = System.getProperty(key);
+        if (p != null) return p;
         String v = System.getenv(key);
         if (v != null && !v.isBlank()) return v;
         return PROPS.get(key);
@@ -43,4 +47,10 @@ public class Env {
         if (v == null) return def;
         try { return Integer.parseInt(v); } catch (Exception e) { return def; }
     }
+
+    public static boolean getBool(String key, boolean def) {
+        String v = get(key);
+        if (v == null || v.isBlank()) return def;
+        return Boolean.parseBoolean(v.trim());
+    }
 }
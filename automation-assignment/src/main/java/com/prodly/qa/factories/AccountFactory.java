@@ -2,35 +2,36 @@ package com.prodly.qa.factories;
 
 import com.prodly.qa.config.Config;
 import com.prodly.qa.models.Account;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import java.util.*;
 import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
 
 public class AccountFactory {
-    private static final String[] COUNTRIES = {"US", "GB", "DE", "FR", "UA"};
+    private static final Logger log = LoggerFactory.getLogger(AccountFactory.class);
+
+    /** One generator per run; successive builds take consecutive index ranges, so names never repeat. */
+    private static final AccountGenerator GENERATOR = AccountGenerator.builder()
+            .seed(seed())
+            .namePrefix("AutoAcct-" + Config.RUN_ID)
+            .defaultCountries()
+            .build();
+    private static final AtomicLong NEXT = new AtomicLong();
 
     public static List<Account> build(int count) {
-        List<Account> accs = new ArrayList<>();
-        Set<String> unique = new HashSet<>();
-        for (int i = 0; i < count; i++) {
-            Account a = buildSingle(i);
-            String key = a.getName() + "|" + a.getCountry();
-            if (!unique.add(key)) throw new AssertionError("Duplicate Name+Country: " + key);
-            if ("US".equalsIgnoreCase(a.getCountry()) &&
-                    (a.getNumberOfEmployees() == null || a.getNumberOfEmployees() <= 100)) {
-                throw new AssertionError("US account must have NumberOfEmployees > 100: " + a.getName());
-            }
-            accs.add(a);
-        }
-        return accs;
+        long from = NEXT.getAndAdd(count);
+        return GENERATOR.stream(from, from + count).collect(Collectors.toCollection(() -> new ArrayList<>(count)));
     }
 
-    private static Account buildSingle(int idx) {
-        String country = COUNTRIES[idx % COUNTRIES.length];
-        int employees = "US".equals(country)
-                ? ThreadLocalRandom.current().nextInt(150, 500)
-                : ThreadLocalRandom.current().nextInt(20, 120);
-        String name = "AutoAcct-" + Config.RUN_ID + "-" + UUID.randomUUID().toString().substring(0,8);
-        return new AccountBuilder().name(name).country(country).employees(employees).build();
+    /** The run's generator, e.g. to stream millions of accounts without materializing them. */
+    public static AccountGenerator generator() { return GENERATOR; }
+
+    private static long seed() {
+        long seed = Config.ACCOUNT_SEED != null ? Long.parseLong(Config.ACCOUNT_SEED) : ThreadLocalRandom.current().nextLong();
+        log.info("Account generator seed {} (set ACCOUNT_SEED to reproduce)", seed);
+        return seed;
     }
 }
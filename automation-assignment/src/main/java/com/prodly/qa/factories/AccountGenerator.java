@@ -0,0 +1,170 @@
+package com.prodly.qa.factories;
+
+import com.prodly.qa.models.Account;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Lazy, seedable synthetic Accounts. Account #i is a pure function of (seed, i): its fields come
+ * from SplitMix64 hashes of the index, so any range can be generated on any thread in any order
+ * and a run is reproduced by reusing the seed. Nothing is kept per account, so memory does not
+ * depend on the count, and {@link #stream} splits by index range for parallel streams.
+ *
+ * <p>Names are prefix + "-" + a bijective scramble of the index, so they never collide within a
+ * generator (no dedup set needed). The US NumberOfEmployees &gt; 100 rule is enforced when the
+ * distribution is configured.
+ */
+public final class AccountGenerator {
+    private static final long GOLDEN = 0x9E3779B97F4A7C15L;
+
+    private final long seed;
+    private final String namePrefix;
+    private final String[] countries;
+    /** Cumulative country weights scaled to [0, 2^53]. */
+    private final long[] thresholds;
+    private final int[] minEmployees;
+    private final int[] employeeSpan;
+
+    private AccountGenerator(Builder b) {
+        int n = b.countries.size();
+        if (n == 0) throw new IllegalArgumentException("At least one country is required");
+        double total = 0;
+        for (double w : b.weights) total += w;
+        seed = b.seed;
+        namePrefix = b.namePrefix;
+        countries = b.countries.toArray(new String[0]);
+        thresholds = new long[n];
+        minEmployees = new int[n];
+        employeeSpan = new int[n];
+        double cum = 0;
+        for (int i = 0; i < n; i++) {
+            cum += b.weights.get(i);
+            thresholds[i] = i == n - 1 ? 1L << 53 : (long) (cum / total * (1L << 53));
+            minEmployees[i] = b.min.get(i);
+            employeeSpan[i] = b.max.get(i) - b.min.get(i) + 1;
+        }
+    }
+
+    public static Builder builder() { return new Builder(); }
+
+    public static class Builder {
+        private long seed;
+        private String namePrefix = "AutoAcct";
+        private final List<String> countries = new ArrayList<>();
+        private final List<Double> weights = new ArrayList<>();
+        private final List<Integer> min = new ArrayList<>();
+        private final List<Integer> max = new ArrayList<>();
+
+        public Builder seed(long seed) { this.seed = seed; return this; }
+        public Builder namePrefix(String prefix) { this.namePrefix = prefix; return this; }
+
+        /** Add a country drawn with the given relative weight, with employees uniform in [minEmployees, maxEmployees]. */
+        public Builder country(String code, double weight, int minEmployees, int maxEmployees) {
+            if (weight <= 0) throw new IllegalArgumentException("Weight must be positive: " + code);
+            if (minEmployees > maxEmployees) throw new IllegalArgumentException("Empty employee range for " + code);
+            if ("US".equalsIgnoreCase(code) && minEmployees <= 100) {
+                throw new IllegalArgumentException("US accounts must have NumberOfEmployees > 100, got min " + minEmployees);
+            }
+            countries.add(code);
+            weights.add(weight);
+            min.add(minEmployees);
+            max.add(maxEmployees);
+            return this;
+        }
+
+        /** The suite's usual mix: US, GB, DE, FR, UA equally likely; US 150-499 employees, others 20-119. */
+        public Builder defaultCountries() {
+            country("US", 1, 150, 499);
+            for (String c : new String[]{"GB", "DE", "FR", "UA"}) country(c, 1, 20, 119);
+            return this;
+        }
+
+        public AccountGenerator build() {
+            if (countries.isEmpty()) defaultCountries();
+            return new AccountGenerator(this);
+        }
+    }
+
+    public long seed() { return seed; }
+
+    /** Account number index (no Id). */
+    public Account at(long index) {
+        long h1 = mix(seed + (index + 1) * GOLDEN);
+        long h2 = mix(h1 + GOLDEN);
+        long u = h1 >>> 11; // uniform in [0, 2^53)
+        int c = 0;
+        while (u >= thresholds[c]) c++;
+        int employees = minEmployees[c] + (int) ((h2 >>> 1) % employeeSpan[c]);
+        return new AccountBuilder()
+                .name(namePrefix + "-" + Long.toUnsignedString(mix(index ^ seed), 36))
+                .country(countries[c])
+                .employees(employees)
+                .build();
+    }
+
+    /** Accounts [0, count); call .parallel() to generate on the common pool. */
+    public Stream<Account> stream(long count) {
+        return stream(0, count);
+    }
+
+    /** Accounts [from, to). */
+    public Stream<Account> stream(long from, long to) {
+        return StreamSupport.stream(spliterator(from, to), false);
+    }
+
+    /** Splittable source of accounts [from, to), for custom partitioning across workers. */
+    public Spliterator<Account> spliterator(long from, long to) {
+        if (from < 0 || to < from) throw new IllegalArgumentException("Bad range [" + from + ", " + to + ")");
+        return new Range(from, to);
+    }
+
+    /** SplitMix64 finalizer; a bijection on 64-bit values. */
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    private final class Range implements Spliterator<Account> {
+        private long next;
+        private final long end;
+
+        Range(long from, long to) {
+            this.next = from;
+            this.end = to;
+        }
+
+        @Override
+        public boolean tryAdvance(Consumer<? super Account> action) {
+            if (next >= end) return false;
+            action.accept(at(next++));
+            return true;
+        }
+
+        @Override
+        public void forEachRemaining(Consumer<? super Account> action) {
+            for (long i = next; i < end; i++) action.accept(at(i));
+            next = end;
+        }
+
+        @Override
+        public Spliterator<Account> trySplit() {
+            long mid = next + (end - next) / 2;
+            if (mid - next < 64) return null;
+            Range prefix = new Range(next, mid);
+            next = mid;
+            return prefix;
+        }
+
+        @Override
+        public long estimateSize() { return end - next; }
+
+        @Override
+        public int characteristics() { return ORDERED | SIZED | SUBSIZED | NONNULL | IMMUTABLE; }
+    }
+}
@@ -0,0 +1,20 @@
+package com.prodly.qa.models;
+
+import java.util.List;
+
+/** Per-record outcome of a Salesforce sObject Collections request. */
+public class SaveResult {
+    private final String id;
+    private final boolean success;
+    private final List<String> errors;
+
+    public SaveResult(String id, boolean success, List<String> errors) {
+        this.id = id;
+        this.success = success;
+        this.errors = errors;
+    }
+
+    public String getId() { return id; }
+    public boolean isSuccess() { return success; }
+    public List<String> getErrors() { return errors; }
+}
@@ -0,0 +1,209 @@
+package com.prodly.qa.services;
+
+import com.prodly.qa.api.GitHubClient;
+import com.prodly.qa.api.SalesforceClient;
+import com.prodly.qa.config.Config;
+import com.prodly.qa.utils.Parallel;
+import org.apache.commons.csv.CSVFormat;
+import org.apache.commons.csv.CSVPrinter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.*;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+/**
+ * Exports an org's Accounts to CSV in the {@link com.prodly.qa.utils.CsvUtil#writeAccountsNoPhone}
+ * layout (Id, Name, Country, NumberOfEmployees) with PK chunking: three one-row probes (lowest Id,
+ * highest Id, COUNT()) give the Id span and its size, and the span is cut into count/chunkSize
+ * equal ranges by interpolating the Ids as base-62 numbers. Ids are handed out in ascending order,
+ * so ranges hold about chunkSize records; gaps (other objects, deleted records) only make some
+ * ranges smaller. The ranges are queried concurrently, each streamed page by page into its own temp
+ * file, and the parts are joined in range order. Rows come out sorted by Id however the chunks
+ * interleave, and memory stays at a couple of query pages per chunk in flight. Records created
+ * after the probes still land in the first or last range.
+ */
+public class AccountExporter {
+    private static final Logger log = LoggerFactory.getLogger(AccountExporter.class);
+    private static final String[] HEADER = {"Id", "Name", "Country", "NumberOfEmployees"};
+    private static final String FIELDS = "Id, Name, BillingCountry, NumberOfEmployees";
+    private static final String BASE62 = "0123456789ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz";
+    private static final BigInteger SIXTY_TWO = BigInteger.valueOf(62);
+
+    private final SalesforceClient sf;
+    private final int chunkSize;
+    private final int maxInFlight;
+
+    public static class Result {
+        public File file;
+        public long rows;
+        public int chunks;
+        public long millis;
+
+        @Override
+        public String toString() {
+            return rows + " rows in " + chunks + " chunks, " + millis + " ms -> " + file;
+        }
+    }
+
+    public AccountExporter(SalesforceClient sf) { this(sf, Config.SF_EXPORT_CHUNK_SIZE, Config.SF_EXPORT_MAX_IN_FLIGHT); }
+
+    /**
+     * @param chunkSize   records per Id range
+     * @param maxInFlight max ranges queried at once
+     */
+    public AccountExporter(SalesforceClient sf, int chunkSize, int maxInFlight) {
+        if (chunkSize <= 0) throw new IllegalArgumentException("chunkSize must be positive: " + chunkSize);
+        this.sf = sf;
+        this.chunkSize = chunkSize;
+        this.maxInFlight = maxInFlight;
+    }
+
+    /** Export Accounts matching where (a SOQL condition, or null for all) to out. */
+    public Result export(String where, File out) throws IOException {
+        long start = System.currentTimeMillis();
+        List<String> bounds = boundaries(where);
+        int chunks = bounds.size() + 1;
+        log.info("SF: exporting Accounts{} in {} chunks of up to {}", where == null ? "" : " where " + where, chunks, chunkSize);
+
+        File dir = out.getAbsoluteFile().getParentFile();
+        if (dir != null) dir.mkdirs();
+        List<File> parts = new ArrayList<>(chunks);
+        List<Integer> indexes = new ArrayList<>(chunks);
+        AtomicLong rows = new AtomicLong();
+        try {
+            for (int i = 0; i < chunks; i++) {
+                parts.add(File.createTempFile(out.getName() + "-part" + i + "-", ".csv", dir));
+                indexes.add(i);
+            }
+            Parallel.forEach(indexes, maxInFlight, i -> {
+                String from = i == 0 ? null : bounds.get(i - 1);
+                String to = i == bounds.size() ? null : bounds.get(i);
+                long n = sf.retryPolicy().call("export.chunk", () -> writeChunk(where, from, to, parts.get(i)));
+                rows.addAndGet(n);
+            });
+            try (OutputStream os = new BufferedOutputStream(new FileOutputStream(out));
+                 Writer w = new OutputStreamWriter(os, StandardCharsets.UTF_8)) {
+                w.write(String.join(",", HEADER) + "\r\n"); // CSVFormat.DEFAULT record separator, as in the parts
+                w.flush();
+                for (File part : parts) Files.copy(part.toPath(), os);
+            }
+        } finally {
+            for (File part : parts) Files.deleteIfExists(part.toPath());
+        }
+
+        Result res = new Result();
+        res.file = out;
+        res.rows = rows.get();
+        res.chunks = chunks;
+        res.millis = System.currentTimeMillis() - start;
+        log.info("SF: export done, {}", res);
+        return res;
+    }
+
+    /**
+     * Export to a temp file and commit it to path on branch; exports over GITHUB_CONTENTS_MAX_BYTES
+     * are streamed to GitHub from disk (blob upload), so a large CSV is never held in memory.
+     */
+    public Result exportToGitHub(String where, GitHubClient gh, String branch, String path, String message) throws IOException {
+        File tmp = File.createTempFile("accounts-export-", ".csv");
+        try {
+            Result res = export(where, tmp);
+            gh.putFile(branch, path, tmp.toPath(), message);
+            return res;
+        } finally {
+            Files.deleteIfExists(tmp.toPath());
+        }
+    }
+
+    /**
+     * Range boundaries in Id order, range i being [bounds[i-1], bounds[i]): count/chunkSize - 1 Ids
+     * evenly spaced between the lowest and highest matching Id. Costs three small queries however
+     * large the org is.
+     */
+    private List<String> boundaries(String where) {
+        List<String> bounds = new ArrayList<>();
+        long total = sf.count("SELECT COUNT() FROM Account" + clause(where, null, null));
+        int ranges = (int) Math.min(Integer.MAX_VALUE, (total + chunkSize - 1) / chunkSize);
+        if (ranges <= 1) return bounds;
+        String min = edgeId(where, "ASC");
+        String max = edgeId(where, "DESC");
+        if (min == null || max == null) return bounds;
+
+        int width = Math.max(min.length(), max.length());
+        BigInteger lo = fromBase62(min, width);
+        BigInteger span = fromBase62(max, width).subtract(lo);
+        BigInteger n = BigInteger.valueOf(ranges);
+        String prev = min;
+        for (int k = 1; k < ranges; k++) {
+            String b = toBase62(lo.add(span.multiply(BigInteger.valueOf(k)).divide(n)), width);
+            if (b.compareTo(prev) > 0) bounds.add(b);
+            prev = b;
+        }
+        return bounds;
+    }
+
+    /** Lowest (ASC) or highest (DESC) matching Id, or null when nothing matches. */
+    private String edgeId(String where, String direction) {
+        try (Stream<Map<String, Object>> rows = sf.query(
+                "SELECT Id FROM Account" + clause(where, null, null) + " ORDER BY Id " + direction + " LIMIT 1")) {
+            return rows.findFirst().map(r -> (String) r.get("Id")).orElse(null);
+        }
+    }
+
+    /** Id as a base-62 number (0-9, A-Z, a-z: the order Ids sort in), right-padded with '0' to width. */
+    private static BigInteger fromBase62(String id, int width) {
+        BigInteger v = BigInteger.ZERO;
+        for (int i = 0; i < width; i++) {
+            int d = i < id.length() ? BASE62.indexOf(id.charAt(i)) : 0;
+            if (d < 0) throw new IllegalArgumentException("Not a Salesforce Id: " + id);
+            v = v.multiply(SIXTY_TWO).add(BigInteger.valueOf(d));
+        }
+        return v;
+    }
+
+    private static String toBase62(BigInteger v, int width) {
+        char[] out = new char[width];
+        for (int i = width - 1; i >= 0; i--) {
+            BigInteger[] qr = v.divideAndRemainder(SIXTY_TWO);
+            out[i] = BASE62.charAt(qr[1].intValue());
+            v = qr[0];
+        }
+        return new String(out);
+    }
+
+    /** Query one Id range into part (overwritten, so a retried chunk starts clean); returns its row count. */
+    private long writeChunk(String where, String from, String to, File part) {
+        String soql = "SELECT " + FIELDS + " FROM Account" + clause(where, from, to) + " ORDER BY Id";
+        long n = 0;
+        try (Stream<Map<String, Object>> rows = sf.query(soql);
+             Writer w = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(part), StandardCharsets.UTF_8));
+             CSVPrinter p = new CSVPrinter(w, CSVFormat.DEFAULT)) {
+            Iterator<Map<String, Object>> it = rows.iterator();
+            while (it.hasNext()) {
+                Map<String, Object> r = it.next();
+                p.printRecord(r.get("Id"), r.get("Name"), r.get("BillingCountry"), r.get("NumberOfEmployees"));
+                n++;
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return n;
+    }
+
+    private static String clause(String where, String from, String to) {
+        List<String> c = new ArrayList<>(3);
+        if (where != null && !where.isBlank()) c.add("(" + where + ")");
+        if (from != null) c.add("Id >= '" + from + "'");
+        if (to != null) c.add("Id < '" + to + "'");
+        return c.isEmpty() ? "" : " WHERE " + String.join(" AND ", c);
+    }
+}
@@ -1,68 +1,261 @@
 package com.prodly.qa.services;
 
+import com.prodly.qa.api.CollectionBody;
+import com.prodly.qa.api.RetryPolicy;
+import com.prodly.qa.api.SalesforceBulkClient;
 import com.prodly.qa.api.SalesforceClient;
+import com.prodly.qa.config.Config;
 import com.prodly.qa.factories.AccountFactory;
 import com.prodly.qa.models.Account;
+import com.prodly.qa.models.SaveResult;
+import com.prodly.qa.utils.Batches;
 import com.prodly.qa.utils.CsvUtil;
-import com.prodly.qa.utils.RetryUtil;
+import com.prodly.qa.utils.Parallel;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.File;
-import java.util.*;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiConsumer;
+import java.util.function.Supplier;
 
 public class DataService {
     private static final Logger log = LoggerFactory.getLogger(DataService.class);
     private final SalesforceClient sf;
-    private final List<String> createdIds = new ArrayList<>();
+    private final int maxInFlight;
+    private final Queue<String> createdIds = new ConcurrentLinkedQueue<>();
+    private final Queue<String> failures = new ConcurrentLinkedQueue<>();
+    /** Delta sync states written by this service, cleaned of deleted records on cleanup. */
+    private final Set<String> deltaStateKeys = ConcurrentHashMap.newKeySet();
 
-    public DataService(SalesforceClient sf) { this.sf = sf; }
+    public DataService(SalesforceClient sf) { this(sf, Config.SF_MAX_IN_FLIGHT); }
 
-    /** Create N accounts using Factory/Builder. */
+    /** @param maxInFlight max concurrent Salesforce requests (batches); 1 runs sequentially */
+    public DataService(SalesforceClient sf, int maxInFlight) {
+        this.sf = sf;
+        this.maxInFlight = maxInFlight;
+    }
+
+    /** Failures recorded by create/update/cleanup so far, as "key: reason". */
+    public List<String> getFailures() { return new ArrayList<>(failures); }
+
+    /**
+     * Create N accounts using Factory/Builder, 200 per sObject Collections call. A create is not
+     * idempotent, so a batch is resent only when Salesforce rejected it unprocessed (429).
+     */
     public List<Account> createAccounts(int count) {
         List<Account> accs = AccountFactory.build(count);
-        List<Account> created = new ArrayList<>();
-        for (Account a : accs) {
-            String id = RetryUtil.retry(() -> sf.createAccount(a.toMap()), 3, 300);
-            a.setId(id);
-            createdIds.add(id);
-            created.add(a);
-        }
+        Parallel.forEach(Batches.partition(accs, SalesforceClient.COLLECTION_LIMIT), maxInFlight, batch -> {
+            List<SaveResult> results = sf.retryPolicy().call("dataservice.createAccounts", RetryPolicy::isUnprocessed,
+                    () -> sf.createRecords("Account", batch, CollectionBody.ACCOUNT));
+            for (int i = 0; i < batch.size(); i++) {
+                Account a = batch.get(i);
+                SaveResult res = results.get(i);
+                if (res.isSuccess()) {
+                    a.setId(res.getId());
+                    createdIds.add(res.getId());
+                } else {
+                    fail(a.getName(), "create " + res.getErrors());
+                }
+            }
+        });
+        List<Account> created = new ArrayList<>(accs.size());
+        for (Account a : accs) if (a.getId() != null) created.add(a);
         log.info("Created {} accounts", created.size());
         return created;
     }
 
     /** Export accounts (without phone) to CSV file. */
     public File exportNoPhoneCsv(List<Account> accs) {
+        return exportNoPhoneCsv(accs, new File("target/accounts_no_phone.csv"));
+    }
+
+    /** Export accounts (without phone) to the given file, e.g. a per-scenario work dir. */
+    public File exportNoPhoneCsv(List<Account> accs, File out) {
         try {
-            File out = new File("target/accounts_no_phone.csv");
             return CsvUtil.writeAccountsNoPhone(out, accs);
         } catch (Exception e) {
             throw new RuntimeException("CSV export failed", e);
         }
     }
 
+    /**
+     * Export the org's Accounts matching where (SOQL condition, null = all) in the same CSV layout,
+     * by Id-range chunks queried in parallel (see {@link AccountExporter}).
+     */
+    public File exportOrgAccountsCsv(String where, File out) {
+        try {
+            return new AccountExporter(sf).export(where, out).file;
+        } catch (IOException e) {
+            throw new RuntimeException("Account export failed", e);
+        }
+    }
+
     /** Update phones in Salesforce (best-effort, count successes, log failures). */
     public int updateAccountsPhones(List<Account> accs) {
-        int ok = 0;
-        for (Account a : accs) {
+        AtomicInteger ok = new AtomicInteger();
+        Parallel.forEach(Batches.partition(accs, SalesforceClient.COLLECTION_LIMIT), maxInFlight, batch -> {
             try {
-                Map<String,Object> body = new HashMap<>();
-                body.put("Phone", a.getPhone());
-                sf.updateAccount(a.getId(), body);
-                ok++;
+                List<SaveResult> results = sf.retryPolicy().call("dataservice.updatePhones",
+                        () -> sf.updateRecords("Account", batch, CollectionBody.ACCOUNT_PHONE));
+                ok.addAndGet(countPhoneUpdates(batch, results));
             } catch (RuntimeException ex) {
-                log.error("Update failed for {}: {}", a.getId(), ex.getMessage());
+                for (Account a : batch) fail(a.getId(), "update batch " + ex.getMessage());
             }
+        });
+        return ok.get();
+    }
+
+    /**
+     * Non-blocking {@link #updateAccountsPhones}: batches are queued on the client's shared async
+     * view (at most SF_ASYNC_PERMITS in flight across all its users) and the caller can go on, e.g.
+     * reading the next rows of the CSV. The future never fails; failures are recorded like the
+     * blocking variant's.
+     */
+    public CompletableFuture<Integer> updateAccountsPhonesAsync(List<Account> accs) {
+        List<CompletableFuture<Integer>> batches = new ArrayList<>();
+        for (List<Account> batch : Batches.partition(accs, SalesforceClient.COLLECTION_LIMIT)) {
+            batches.add(sf.async().updateRecords("Account", batch, CollectionBody.ACCOUNT_PHONE).handle((results, ex) -> {
+                if (ex == null) return countPhoneUpdates(batch, results);
+                Throwable cause = ex instanceof CompletionException && ex.getCause() != null ? ex.getCause() : ex;
+                for (Account a : batch) fail(a.getId(), "update batch " + cause.getMessage());
+                return 0;
+            }));
+        }
+        return CompletableFuture.allOf(batches.toArray(new CompletableFuture<?>[0]))
+                .thenApply(v -> batches.stream().mapToInt(CompletableFuture::join).sum());
+    }
+
+    private int countPhoneUpdates(List<Account> batch, List<SaveResult> results) {
+        int ok = 0;
+        for (int i = 0; i < batch.size(); i++) {
+            if (results.get(i).isSuccess()) ok++;
+            else fail(batch.get(i).getId(), "update " + results.get(i).getErrors());
         }
         return ok;
     }
 
-    /** Delete all created Accounts (idempotent). */
-    public void cleanup() {
-        for (String id : createdIds) {
-            try { sf.deleteAccount(id); } catch (RuntimeException ignored) {}
+    /**
+     * Update phones through a Bulk API 2.0 ingest job, streaming the CSV (Id, Phone columns used)
+     * without materialising rows. Job result CSVs are written to resultDir.
+     * Returns the success count reported by the job results.
+     */
+    public int updateAccountsPhonesBulk(InputStream csv, File resultDir) {
+        try (Reader r = new InputStreamReader(csv, StandardCharsets.UTF_8)) {
+            SalesforceBulkClient.Result res = new SalesforceBulkClient(sf)
+                    .ingest("Account", "update", r, List.of("Id", "Phone"), resultDir);
+            if (res.failed > 0) {
+                log.error("Bulk update: {} rows failed, see {}", res.failed, res.failureFile);
+            }
+            return res.succeeded;
+        } catch (IOException e) {
+            throw new RuntimeException("Bulk update failed", e);
+        }
+    }
+
+    /**
+     * Upsert the seed Accounts and Contacts (data/Account.csv, data/Contact.csv layout) by their Guid,
+     * see {@link SeedLoader}. Seed records are meant to stay, so they are not deleted by {@link #cleanup}.
+     */
+    public SeedLoader.Result loadSeedData(File accountsCsv, File contactsCsv) {
+        try {
+            return new SeedLoader(sf).load(accountsCsv, contactsCsv);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Seed load failed", e);
+        }
+    }
+
+    /**
+     * Update Accounts from the branch CSV, sending only fields that differ from the last delta sync
+     * of the same state key (or, for rows without state, from the base CSV). Returns rows updated.
+     * Use a stable key (not a per-run path) so later runs reuse the state.
+     */
+    public int updateAccountsDelta(Supplier<InputStream> base, Supplier<InputStream> branch, String stateKey) {
+        deltaStateKeys.add(stateKey);
+        try {
+            return (int) deltaSync(stateKey).sync(base, branch, this::fail).updated;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Delta sync failed", e);
+        }
+    }
+
+    private DeltaSync deltaSync(String stateKey) {
+        File state = new File(Config.SF_DELTA_STATE_DIR, "Account-" + stateKey.replaceAll("[^A-Za-z0-9._-]", "_") + ".idx");
+        return new DeltaSync(sf, "Account", DeltaSync.ACCOUNT_COLUMNS, state);
+    }
+
+    /**
+     * Delete all created Accounts (idempotent): 200-id collection deletes, SF_CLEANUP_MAX_IN_FLIGHT
+     * at a time. Records already gone count as deleted; anything else is reported via
+     * {@link #getFailures()} and kept for a later retry. Returns the number deleted.
+     */
+    public int cleanup() {
+        List<String> ids = new ArrayList<>(createdIds);
+        Set<String> failed = ConcurrentHashMap.newKeySet();
+        int deleted = deleteAll(sf, ids, Math.max(maxInFlight, Config.SF_CLEANUP_MAX_IN_FLIGHT), (id, reason) -> {
+            failed.add(id);
+            fail(id, reason);
+        });
+        createdIds.removeAll(ids);
+        createdIds.addAll(failed);
+        List<String> gone = new ArrayList<>(ids);
+        gone.removeAll(failed);
+        for (String key : deltaStateKeys) {
+            try {
+                deltaSync(key).forget(gone);
+            } catch (IOException e) {
+                log.warn("Could not drop delta state {} of deleted accounts: {}", key, e.getMessage());
+            }
         }
-        log.info("Cleanup done for {} accounts", createdIds.size());
+        log.info("Cleanup done: {} of {} accounts deleted", deleted, ids.size());
+        return deleted;
+    }
+
+    /**
+     * Delete records by id in parallel 200-id collection calls. Failures (per record, or a whole
+     * batch) go to onFailure as (id, reason); already-deleted records count as success.
+     */
+    public static int deleteAll(SalesforceClient sf, List<String> ids, int maxInFlight,
+                                BiConsumer<String, String> onFailure) {
+        AtomicInteger deleted = new AtomicInteger();
+        Parallel.forEach(Batches.partition(ids, SalesforceClient.COLLECTION_LIMIT), maxInFlight, batch -> {
+            try {
+                List<SaveResult> results = sf.retryPolicy().call("dataservice.cleanup", () -> sf.deleteRecords(batch));
+                for (int i = 0; i < batch.size(); i++) {
+                    SaveResult res = results.get(i);
+                    if (res.isSuccess() || alreadyGone(res)) deleted.incrementAndGet();
+                    else onFailure.accept(batch.get(i), "cleanup " + res.getErrors());
+                }
+            } catch (RuntimeException ex) {
+                for (String id : batch) onFailure.accept(id, "cleanup batch " + ex.getMessage());
+            }
+        });
+        return deleted.get();
+    }
+
+    private static boolean alreadyGone(SaveResult res) {
+        for (String e : res.getErrors()) {
+            if (e.startsWith("ENTITY_IS_DELETED") || e.startsWith("INVALID_CROSS_REFERENCE_KEY")) return true;
+        }
+        return false;
+    }
+
+    private void fail(String key, String reason) {
+        failures.add(key + ": " + reason);
+        log.error("{} failed: {}", key, reason);
     }
 }
@@ -0,0 +1,299 @@
+package com.prodly.qa.services;
+
+import com.prodly.qa.api.SalesforceClient;
+import com.prodly.qa.models.SaveResult;
+import com.prodly.qa.utils.CsvPipeline;
+import com.prodly.qa.utils.LongHashIndex;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * CSV to Salesforce sync that only sends what changed. Each row's mapped columns are hashed
+ * (64-bit per field) and compared with a reference: the hashes stored for that Id by the last
+ * successful sync, or else the same row in the base (master) CSV. Only differing fields are
+ * PATCHed, one entry per record (repeated Ids are merged), 200 records per collection call.
+ *
+ * <p>The state is a {@link LongHashIndex} file keyed by Id hash, memory-mapped on open, so a rerun
+ * over a large unchanged file streams the CSV and probes the map without loading anything, and a
+ * sync writes back only the entries of rows it sent. Rows that fail keep their previous state and
+ * are retried next time; {@link #forget} drops deleted records. Blank and missing cells are equal.
+ */
+public class DeltaSync {
+    private static final Logger log = LoggerFactory.getLogger(DeltaSync.class);
+    private static final long MISSING = 0;
+    private static final long[] NONE = new long[0];
+    /** One sync at a time per state file in this JVM (the file lock covers other processes). */
+    private static final Map<String, Object> LOCKS = new ConcurrentHashMap<>();
+
+    /** A CSV column, the sObject field it updates, and how to convert non-blank cells. */
+    public static final class Column {
+        final String csv;
+        final String field;
+        final Function<String, Object> convert;
+
+        Column(String csv, String field, Function<String, Object> convert) {
+            this.csv = csv;
+            this.field = field;
+            this.convert = convert;
+        }
+    }
+
+    public static Column column(String csv, String field) { return new Column(csv, field, v -> v); }
+    public static Column column(String csv, String field, Function<String, Object> convert) { return new Column(csv, field, convert); }
+
+    /** Account CSVs as written by {@link DataService#exportNoPhoneCsv} plus the Phone column. */
+    public static final List<Column> ACCOUNT_COLUMNS = List.of(
+            column("Name", "Name"),
+            column("Country", "BillingCountry"),
+            column("NumberOfEmployees", "NumberOfEmployees", Integer::valueOf),
+            column("Phone", "Phone"));
+
+    public static class Result {
+        public long rows;
+        public long unchanged;
+        public long changedRecords;
+        public long changedFields;
+        public long updated;
+        public long failed;
+
+        @Override
+        public String toString() {
+            return rows + " rows: " + unchanged + " unchanged, " + changedRecords + " changed (" + changedFields
+                    + " fields), " + updated + " updated, " + failed + " failed";
+        }
+    }
+
+    private final SalesforceClient sf;
+    private final String type;
+    private final List<Column> columns;
+    private final File stateFile;
+    private final long tag;
+
+    public DeltaSync(SalesforceClient sf, String type, List<Column> columns, File stateFile) {
+        this.sf = sf;
+        this.type = type;
+        this.columns = columns;
+        this.stateFile = stateFile;
+        StringBuilder schema = new StringBuilder(type);
+        for (Column c : columns) schema.append('|').append(c.csv).append('=').append(c.field);
+        this.tag = hash(schema.toString());
+    }
+
+    /**
+     * Sync branch into Salesforce. base may be null (no base version: rows without state are sent
+     * in full). onFailure gets (Id, reason) for rows Salesforce rejected and rows with a cell the
+     * column's convert function cannot parse; the sync goes on without them.
+     */
+    public Result sync(Supplier<InputStream> base, Supplier<InputStream> branch, BiConsumer<String, String> onFailure) throws IOException {
+        synchronized (lock()) {
+            long start = System.currentTimeMillis();
+            try (LongHashIndex state = openState()) {
+                Pass pass = new Pass(state, onFailure);
+                // Pass 1 diffs rows that have state (all of them on a rerun) and only notes the others,
+                // so the base CSV is not even downloaded unless some rows are new since the last sync.
+                if (base != null) pass.deferred = LongHashIndex.create(tag, 0, 1024);
+                CsvPipeline.from(branch.get()).to(pass);
+                if (pass.deferred != null && pass.deferred.size() > 0) {
+                    pass.base = indexBase(base, pass.deferred);
+                    pass.only = pass.deferred;
+                    pass.deferred = null;
+                    CsvPipeline.from(branch.get()).to(pass);
+                }
+                pass.flush();
+
+                // only the slots of changed rows are written to the mapped file
+                state.putAll(pass.delta);
+                log.info("SF: delta sync of {} done in {} ms: {} (state {}, {} entries)", type,
+                        System.currentTimeMillis() - start, pass.result, stateFile, state.size());
+                return pass.result;
+            }
+        }
+    }
+
+    /**
+     * Drop the state of records that no longer exist (e.g. deleted by cleanup), so a stable state
+     * file does not grow with every run; the file is deleted once it is empty. Returns ids dropped.
+     */
+    public int forget(Collection<String> ids) throws IOException {
+        synchronized (lock()) {
+            if (!stateFile.isFile()) return 0;
+            int n = 0;
+            boolean empty;
+            try (LongHashIndex state = openState()) {
+                for (String id : ids) {
+                    if (id != null && !id.isEmpty() && state.remove(hash(id))) n++;
+                }
+                empty = state.size() == 0;
+            }
+            if (empty) Files.deleteIfExists(stateFile.toPath());
+            return n;
+        }
+    }
+
+    private Object lock() {
+        return LOCKS.computeIfAbsent(stateFile.getAbsolutePath(), k -> new Object());
+    }
+
+    /** The state file, starting over if it is unreadable or was written for other columns. */
+    private LongHashIndex openState() throws IOException {
+        try {
+            return LongHashIndex.open(stateFile, tag, columns.size());
+        } catch (IOException e) {
+            log.warn("SF: discarding delta state {}: {}", stateFile, e.getMessage());
+            Files.deleteIfExists(stateFile.toPath());
+            return LongHashIndex.open(stateFile, tag, columns.size());
+        }
+    }
+
+    /** Field hashes of the base rows whose Id is in keys. */
+    private LongHashIndex indexBase(Supplier<InputStream> base, LongHashIndex keys) throws IOException {
+        LongHashIndex index = LongHashIndex.create(tag, columns.size(), keys.size());
+        CsvPipeline.from(base.get()).to(new RowSink() {
+            @Override
+            public void accept(CsvPipeline.Row row) {
+                String id = row.get("Id");
+                if (id == null || id.isEmpty()) return;
+                long key = hash(id);
+                if (keys.get(key, NONE)) index.put(key, hashes(row));
+            }
+        });
+        return index;
+    }
+
+    private long[] hashes(CsvPipeline.Row row) {
+        long[] h = new long[columns.size()];
+        for (int i = 0; i < h.length; i++) {
+            String v = row.get(columns.get(i).csv);
+            h[i] = v == null || v.isEmpty() ? MISSING : hash(v);
+        }
+        return h;
+    }
+
+    /** Streams the branch CSV, collects changed fields and flushes them in collection-sized batches. */
+    private final class Pass extends RowSink {
+        final Result result = new Result();
+        /** New or changed state entries, merged into the state file at the end. */
+        final LongHashIndex delta = LongHashIndex.create(tag, columns.size(), 1024);
+        private final LongHashIndex state;
+        private final BiConsumer<String, String> onFailure;
+        /** Base row hashes, for rows without state (second pass). */
+        LongHashIndex base;
+        /** First pass: collects Ids without state instead of diffing them. */
+        LongHashIndex deferred;
+        /** Second pass: only these Ids. */
+        LongHashIndex only;
+        private final long[] ref = new long[columns.size()];
+        /** Id -> {fields to send}; insertion order is send order. */
+        private final Map<String, Map<String, Object>> pending = new LinkedHashMap<>();
+        private final Map<String, long[]> pendingHashes = new HashMap<>();
+
+        Pass(LongHashIndex state, BiConsumer<String, String> onFailure) {
+            this.state = state;
+            this.onFailure = onFailure;
+        }
+
+        @Override
+        public void accept(CsvPipeline.Row row) {
+            String id = row.get("Id");
+            if (id == null || id.isEmpty()) return;
+            long key = hash(id);
+            if (only == null) result.rows++;
+            else if (!only.get(key, NONE)) return;
+            boolean fromState = state.get(key, ref);
+            if (!fromState && deferred != null) {
+                deferred.put(key, NONE);
+                return;
+            }
+            boolean known = fromState || base != null && base.get(key, ref);
+            long[] h = hashes(row);
+
+            Map<String, Object> changed = null;
+            for (int i = 0; i < h.length; i++) {
+                if (known ? h[i] == ref[i] : h[i] == MISSING) continue;
+                if (changed == null) changed = new LinkedHashMap<>();
+                Column c = columns.get(i);
+                String v = row.get(c.csv);
+                try {
+                    changed.put(c.field, v == null || v.isEmpty() ? null : c.convert.apply(v));
+                } catch (RuntimeException e) {
+                    // a bad cell fails its row only; its state is kept, so it is retried once fixed
+                    result.failed++;
+                    onFailure.accept(id, "delta convert " + c.csv + "='" + v + "': " + e);
+                    return;
+                }
+            }
+            if (changed == null) {
+                result.unchanged++;
+                if (!fromState) delta.put(key, h); // in sync with the base version; remember it
+                return;
+            }
+            result.changedRecords++;
+            result.changedFields += changed.size();
+            Map<String, Object> rec = pending.get(id);
+            if (rec == null) {
+                rec = new LinkedHashMap<>();
+                rec.put("Id", id);
+                pending.put(id, rec);
+            }
+            rec.putAll(changed);
+            pendingHashes.put(id, h);
+            if (pending.size() >= SalesforceClient.COLLECTION_LIMIT) flush();
+        }
+
+        void flush() {
+            if (pending.isEmpty()) return;
+            List<String> ids = new ArrayList<>(pending.keySet());
+            List<Map<String, Object>> records = new ArrayList<>(pending.values());
+            try {
+                List<SaveResult> results = sf.retryPolicy().call("deltasync.update", () -> sf.updateRecords(type, records));
+                for (int i = 0; i < ids.size(); i++) {
+                    String id = ids.get(i);
+                    if (results.get(i).isSuccess()) {
+                        result.updated++;
+                        delta.put(hash(id), pendingHashes.get(id));
+                    } else {
+                        result.failed++;
+                        onFailure.accept(id, "delta update " + results.get(i).getErrors());
+                    }
+                }
+            } catch (RuntimeException e) {
+                result.failed += ids.size();
+                for (String id : ids) onFailure.accept(id, "delta update batch " + e.getMessage());
+            }
+            pending.clear();
+            pendingHashes.clear();
+        }
+    }
+
+    /** Sink that only consumes rows. */
+    private abstract static class RowSink implements CsvPipeline.Sink {
+        @Override
+        public void open(List<String> header) {}
+
+        @Override
+        public void close() {}
+    }
+
+    /** 64-bit FNV-1a over the chars with a final avalanche; never 0 (0 is the index's empty key / MISSING). */
+    static long hash(String s) {
+        long h = 0xCBF29CE484222325L;
+        for (int i = 0; i < s.length(); i++) {
+            h ^= s.charAt(i);
+            h *= 0x100000001B3L;
+        }
+        h ^= h >>> 33;
+        h *= 0xFF51AFD7ED558CCDL;
+        h ^= h >>> 33;
+        return h == 0 ? 1 : h;
+    }
+}
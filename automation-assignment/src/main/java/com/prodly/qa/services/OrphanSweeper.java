@@ -0,0 +1,116 @@
+package com.prodly.qa.services;
+
+import com.prodly.qa.api.GitHubClient;
+import com.prodly.qa.api.GitHubCommitBuilder;
+import com.prodly.qa.api.SalesforceClient;
+import com.prodly.qa.config.Config;
+import com.prodly.qa.utils.Batches;
+import com.prodly.qa.utils.Parallel;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+/**
+ * Purges what earlier runs left behind when their JVM died before cleanup: AutoAcct-&lt;RUN_ID&gt;-*
+ * Accounts, data-autotest/accounts-&lt;RUN_ID&gt;-* files on master and phones-&lt;RUN_ID&gt;-* branches.
+ * A run id of "*" matches every run but the current one. Only sweep runs that are not in progress:
+ * the current RUN_ID is never swept, as other processes of the same (per-day by default) run may
+ * still be going.
+ */
+public class OrphanSweeper {
+    private static final Logger log = LoggerFactory.getLogger(OrphanSweeper.class);
+    private static final String DIR = "data-autotest";
+    /** Deletions per commit, to keep tree requests a reasonable size. */
+    private static final int FILES_PER_COMMIT = 1000;
+
+    private final SalesforceClient sf;
+    private final GitHubClient gh;
+
+    /** What one sweep removed and failed to remove. */
+    public static class Result {
+        public int accounts;
+        public int accountFailures;
+        public int files;
+        public int branches;
+        public int branchFailures;
+
+        @Override
+        public String toString() {
+            return "accounts=" + accounts + " (failed " + accountFailures + "), files=" + files
+                    + ", branches=" + branches + " (failed " + branchFailures + ")";
+        }
+    }
+
+    public OrphanSweeper(SalesforceClient sf, GitHubClient gh) {
+        this.sf = sf;
+        this.gh = gh;
+    }
+
+    public Result sweep(String runId) {
+        if (runId == null || runId.isBlank()) throw new IllegalArgumentException("No run id to sweep");
+        if (runId.equals(Config.RUN_ID)) {
+            throw new IllegalArgumentException("Refusing to sweep the current run " + runId + " while it may be in progress");
+        }
+        boolean all = "*".equals(runId);
+        String current = Config.RUN_ID + "-";
+        Result res = new Result();
+        sweepAccounts(all ? "AutoAcct-" : "AutoAcct-" + runId + "-", "AutoAcct-" + current, res);
+        sweepFiles(all ? "accounts-" : "accounts-" + runId + "-", "accounts-" + current, res);
+        sweepBranches(all ? "phones-" : "phones-" + runId + "-", "phones-" + current, res);
+        log.info("Sweep of run {} done: {}", runId, res);
+        return res;
+    }
+
+    /** Each sweep takes names starting with prefix, except those of the current run (keep). */
+    private void sweepAccounts(String namePrefix, String keep, Result res) {
+        String soql = "SELECT Id, Name FROM Account WHERE Name LIKE '" + likeEscape(namePrefix) + "%'";
+        List<String> ids = new ArrayList<>();
+        try (Stream<Map<String, Object>> rows = sf.query(soql)) {
+            rows.forEach(r -> {
+                String name = (String) r.get("Name");
+                if (name == null || !name.regionMatches(true, 0, keep, 0, keep.length())) ids.add((String) r.get("Id"));
+            });
+        }
+        if (ids.isEmpty()) return;
+        log.info("SF: sweeping {} orphaned Accounts named {}*", ids.size(), namePrefix);
+        res.accounts = DataService.deleteAll(sf, ids, Config.SF_CLEANUP_MAX_IN_FLIGHT, (id, reason) ->
+                log.warn("SF: sweep could not delete {}: {}", id, reason));
+        res.accountFailures = ids.size() - res.accounts;
+    }
+
+    private void sweepFiles(String filePrefix, String keep, Result res) {
+        List<String> paths = new ArrayList<>();
+        for (String p : gh.listFiles("master", DIR)) {
+            if (p.startsWith(DIR + "/" + filePrefix) && !p.startsWith(DIR + "/" + keep)) paths.add(p);
+        }
+        for (List<String> chunk : Batches.partition(paths, FILES_PER_COMMIT)) {
+            GitHubCommitBuilder commit = gh.commit("chore: sweep " + chunk.size() + " orphaned test CSV(s)");
+            for (String p : chunk) commit.delete(p);
+            commit.pushTo("master");
+            res.files += chunk.size();
+        }
+        if (!paths.isEmpty()) log.info("GitHub: swept {} orphaned files under {}/", paths.size(), DIR);
+    }
+
+    private void sweepBranches(String prefix, String keep, Result res) {
+        List<String> branches = new ArrayList<>(gh.listBranches(prefix));
+        branches.removeIf(b -> b.startsWith(keep));
+        AtomicInteger ok = new AtomicInteger();
+        Parallel.forEach(branches, Config.GITHUB_MAX_IN_FLIGHT, b -> {
+            if (gh.deleteBranch(b)) ok.incrementAndGet();
+        });
+        res.branches = ok.get();
+        res.branchFailures = branches.size() - ok.get();
+        if (!branches.isEmpty()) log.info("GitHub: swept {} of {} orphaned branches {}*", ok.get(), branches.size(), prefix);
+    }
+
+    /** Quote for a SOQL string literal and escape LIKE wildcards. */
+    private static String likeEscape(String s) {
+        return s.replace("\\", "\\\\").replace("'", "\\'").replace("_", "\\_").replace("%", "\\%");
+    }
+}
@@ -0,0 +1,112 @@
+package com.prodly.qa.services;
+
+import com.prodly.qa.api.SalesforceClient;
+import com.prodly.qa.config.Config;
+import com.prodly.qa.models.SaveResult;
+import com.prodly.qa.utils.CsvPipeline;
+import com.prodly.qa.utils.PhoneValidator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.*;
+
+/**
+ * Loads the data/Account.csv + data/Contact.csv seed sets.
+ * Accounts are upserted on the external id field holding their Guid; Contacts are then upserted
+ * with their parent given as {"Account": {"<extId>": "<AccountId guid>"}}, so Salesforce resolves
+ * the relationship server-side and no per-Contact lookup is needed. Both files are streamed in
+ * 200-record collections and "#N/A" becomes null. Only the standard fields in {@link #WRITABLE_FIELDS}
+ * are sent: custom and managed-package columns may not exist in the target org, and read-only ones
+ * (ContactSource, Jigsaw, geocodes, ...) fail the whole record. Phone fields are
+ * normalized to E.164 with the record's country as hint, and kept as written when that fails.
+ */
+public class SeedLoader {
+    private static final Logger log = LoggerFactory.getLogger(SeedLoader.class);
+    private static final String NA = "#N/A";
+    /** Standard checkbox fields; only these turn "true"/"false" into booleans, other text is sent as is. */
+    private static final Set<String> BOOLEAN_FIELDS = Set.of("HasOptedOutOfEmail", "HasOptedOutOfFax", "DoNotCall");
+    private static final Set<String> PHONE_FIELDS = Set.of("Phone", "Fax", "MobilePhone", "HomePhone", "OtherPhone", "AssistantPhone");
+    /** Createable and updateable standard fields per sObject; other seed columns are dropped. */
+    private static final Map<String, Set<String>> WRITABLE_FIELDS = Map.of(
+            "Account", Set.of("Name", "Type", "Industry", "AccountNumber", "NumberOfEmployees", "Website",
+                    "Description", "Phone", "Fax",
+                    "BillingStreet", "BillingCity", "BillingState", "BillingPostalCode", "BillingCountry",
+                    "ShippingStreet", "ShippingCity", "ShippingState", "ShippingPostalCode", "ShippingCountry"),
+            "Contact", Set.of("LastName", "FirstName", "Salutation", "Title", "Department", "Email",
+                    "Phone", "Fax", "MobilePhone", "HomePhone", "OtherPhone", "AssistantPhone", "AssistantName",
+                    "LeadSource", "Birthdate", "Description", "EmailBouncedReason", "EmailBouncedDate",
+                    "HasOptedOutOfEmail", "HasOptedOutOfFax", "DoNotCall",
+                    "MailingStreet", "MailingCity", "MailingState", "MailingPostalCode", "MailingCountry",
+                    "OtherStreet", "OtherCity", "OtherState", "OtherPostalCode", "OtherCountry"));
+    /** Country hints for phones, first one present wins. */
+    private static final List<String> COUNTRY_FIELDS = List.of("BillingCountry", "MailingCountry", "OtherCountry");
+
+    private final SalesforceClient sf;
+    private final String extId;
+
+    public SeedLoader(SalesforceClient sf) { this(sf, Config.SF_EXTERNAL_ID_FIELD); }
+
+    public SeedLoader(SalesforceClient sf, String externalIdField) {
+        this.sf = sf;
+        this.extId = externalIdField;
+    }
+
+    /** Per-object success/failure counts; failures are "guid: errors". */
+    public static class Result {
+        public int accountsOk;
+        public int contactsOk;
+        public final List<String> failures = new ArrayList<>();
+    }
+
+    public Result load(File accountsCsv, File contactsCsv) throws IOException {
+        Result res = new Result();
+        CsvPipeline.from(accountsCsv).to(CsvPipeline.toBatches(SalesforceClient.COLLECTION_LIMIT,
+                rows -> res.accountsOk += upsert("Account", rows, null, res)));
+        CsvPipeline.from(contactsCsv).to(CsvPipeline.toBatches(SalesforceClient.COLLECTION_LIMIT,
+                rows -> res.contactsOk += upsert("Contact", rows, "AccountId", res)));
+        log.info("Seed load: {} accounts, {} contacts, {} failures",
+                res.accountsOk, res.contactsOk, res.failures.size());
+        return res;
+    }
+
+    private int upsert(String type, List<CsvPipeline.Row> rows, String parentColumn, Result res) {
+        List<Map<String, Object>> records = new ArrayList<>(rows.size());
+        for (CsvPipeline.Row row : rows) records.add(toRecord(type, row, parentColumn));
+        List<SaveResult> results = sf.retryPolicy().call("seed.upsert." + type, () -> sf.upsertRecords(type, extId, records));
+        int ok = 0;
+        for (int i = 0; i < results.size(); i++) {
+            if (results.get(i).isSuccess()) ok++;
+            else res.failures.add(type + " " + rows.get(i).get("Guid") + ": " + results.get(i).getErrors());
+        }
+        return ok;
+    }
+
+    private Map<String, Object> toRecord(String type, CsvPipeline.Row row, String parentColumn) {
+        Set<String> writable = WRITABLE_FIELDS.get(type);
+        Map<String, Object> rec = new LinkedHashMap<>();
+        String country = null;
+        for (String f : COUNTRY_FIELDS) {
+            if (country == null) country = value(row.get(f));
+        }
+        for (String col : row.columns()) {
+            String v = value(row.get(col));
+            if ("Guid".equals(col)) {
+                rec.put(extId, v);
+            } else if (col.equals(parentColumn)) {
+                if (v != null) rec.put("Account", Map.of(extId, v));
+            } else if (PHONE_FIELDS.contains(col) && writable.contains(col)) {
+                String e164 = PhoneValidator.normalize(v, country);
+                rec.put(col, e164 != null ? e164 : v);
+            } else if (writable.contains(col)) {
+                rec.put(col, v != null && BOOLEAN_FIELDS.contains(col) ? Boolean.valueOf(v) : v);
+            }
+        }
+        return rec;
+    }
+
+    private static String value(String raw) {
+        return raw == null || raw.isEmpty() || NA.equals(raw) ? null : raw;
+    }
+}
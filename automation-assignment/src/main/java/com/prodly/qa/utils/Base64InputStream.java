@@ -0,0 +1,61 @@
+package com.prodly.qa.utils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.Base64;
+
+/** Base64-encodes another stream on the fly, 3 KB at a time, so large payloads never sit on the heap. */
+public class Base64InputStream extends InputStream {
+    private static final Base64.Encoder ENC = Base64.getEncoder();
+
+    private final InputStream src;
+    private final byte[] raw = new byte[3 * 1024];
+    private final byte[] encoded = new byte[4 * 1024];
+    private byte[] out = encoded;
+    private int pos;
+    private int len;
+    private boolean eof;
+
+    public Base64InputStream(InputStream src) { this.src = src; }
+
+    @Override
+    public int read() throws IOException {
+        if (pos == len && !fill()) return -1;
+        return out[pos++] & 0xff;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int n) throws IOException {
+        if (n == 0) return 0;
+        if (pos == len && !fill()) return -1;
+        int c = Math.min(n, len - pos);
+        System.arraycopy(out, pos, b, off, c);
+        pos += c;
+        return c;
+    }
+
+    /** Reads a full 3 KB block so padding only ever appears on the final block. */
+    private boolean fill() throws IOException {
+        if (eof) return false;
+        int n = 0;
+        while (n < raw.length) {
+            int r = src.read(raw, n, raw.length - n);
+            if (r < 0) { eof = true; break; }
+            n += r;
+        }
+        if (n == 0) return false;
+        if (n == raw.length) {
+            out = encoded;
+            len = ENC.encode(raw, encoded);
+        } else {
+            out = ENC.encode(Arrays.copyOf(raw, n));
+            len = out.length;
+        }
+        pos = 0;
+        return true;
+    }
+
+    @Override
+    public void close() throws IOException { src.close(); }
+}
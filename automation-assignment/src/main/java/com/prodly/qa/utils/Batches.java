@@ -0,0 +1,15 @@
+package com.prodly.qa.utils;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/** Splits lists into fixed-size chunks for batched API calls. */
+public class Batches {
+    public static <T> List<List<T>> partition(List<T> items, int size) {
+        List<List<T>> out = new ArrayList<>((items.size() + size - 1) / size);
+        for (int i = 0; i < items.size(); i += size) {
+            out.add(items.subList(i, Math.min(i + size, items.size())));
+        }
+        return out;
+    }
+}
@@ -0,0 +1,248 @@
+package com.prodly.qa.utils;
+
+import com.prodly.qa.models.Account;
+import org.apache.commons.csv.CSVFormat;
+import org.apache.commons.csv.CSVParser;
+import org.apache.commons.csv.CSVPrinter;
+import org.apache.commons.csv.CSVRecord;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * Single-pass streaming CSV pipeline: source -> per-record stages -> sink.
+ * Each record is parsed, transformed and written exactly once, so memory stays constant
+ * regardless of file size.
+ *
+ * <pre>
+ * CsvPipeline.from(in)
+ *     .addColumn("Phone", r -> PhoneGenerator.forCountry(r.get("Country")))
+ *     .validate("Phone", PhoneValidator::isValid)
+ *     .to(CsvPipeline.toFile(out));
+ * </pre>
+ */
+public class CsvPipeline {
+
+    /** Per-record transform; return null to drop the record. */
+    public interface Stage {
+        Row apply(Row row);
+    }
+
+    /** Terminal consumer of records; always closed, but finished only if the whole source went through. */
+    public interface Sink extends Closeable {
+        void open(List<String> header) throws IOException;
+        void accept(Row row) throws IOException;
+
+        /** Called once after the last record on success, never after a stage or parse failure. */
+        default void finish() throws IOException {}
+    }
+
+    /** A mutable view of one record, addressed by column name. */
+    public static class Row {
+        private final Map<String, Integer> index;
+        private final String[] values;
+        private final long number;
+
+        Row(Map<String, Integer> index, String[] values, long number) {
+            this.index = index;
+            this.values = values;
+            this.number = number;
+        }
+
+        public String get(String column) {
+            Integer i = index.get(column);
+            return i == null ? null : values[i];
+        }
+
+        public Row set(String column, String value) {
+            Integer i = index.get(column);
+            if (i == null) throw new IllegalArgumentException("Unknown column " + column);
+            values[i] = value;
+            return this;
+        }
+
+        /** 1-based data row number in the source (header excluded). */
+        public long number() { return number; }
+
+        /** Column names in output order. */
+        public Set<String> columns() { return index.keySet(); }
+
+        List<String> values() { return Arrays.asList(values); }
+    }
+
+    private final Reader source;
+    private final List<Stage> stages = new ArrayList<>();
+    private final List<String> added = new ArrayList<>();
+
+    private CsvPipeline(Reader source) { this.source = source; }
+
+    public static CsvPipeline from(File f) throws IOException {
+        return from(new FileInputStream(f));
+    }
+
+    public static CsvPipeline from(InputStream in) {
+        return from(new InputStreamReader(in, StandardCharsets.UTF_8));
+    }
+
+    public static CsvPipeline from(Reader r) {
+        return new CsvPipeline(r instanceof BufferedReader ? r : new BufferedReader(r));
+    }
+
+    /** Add (or overwrite) a column whose value is computed from the record. */
+    public CsvPipeline addColumn(String column, Function<Row, String> value) {
+        if (!added.contains(column)) added.add(column);
+        stages.add(row -> row.set(column, value.apply(row)));
+        return this;
+    }
+
+    public CsvPipeline map(Stage stage) {
+        stages.add(stage);
+        return this;
+    }
+
+    public CsvPipeline filter(Predicate<Row> keep) {
+        stages.add(row -> keep.test(row) ? row : null);
+        return this;
+    }
+
+    /** Fail the pipeline on the first record whose column value does not pass the check. */
+    public CsvPipeline validate(String column, Predicate<String> check) {
+        stages.add(row -> {
+            String v = row.get(column);
+            if (!check.test(v)) {
+                throw new IllegalStateException("Invalid " + column + " at row " + row.number() + ": " + v);
+            }
+            return row;
+        });
+        return this;
+    }
+
+    /** Run the pipeline to completion; returns the number of records delivered to the sink. */
+    public long to(Sink sink) throws IOException {
+        long start = System.nanoTime();
+        long written = 0;
+        boolean ok = false;
+        try (Reader r = source;
+             CSVParser parser = CSVFormat.DEFAULT.withFirstRecordAsHeader().parse(r);
+             Sink s = sink) {
+            List<String> header = new ArrayList<>(parser.getHeaderNames());
+            for (String c : added) if (!header.contains(c)) header.add(c);
+            Map<String, Integer> index = new LinkedHashMap<>();
+            for (int i = 0; i < header.size(); i++) index.put(header.get(i), i);
+            s.open(Collections.unmodifiableList(header));
+
+            long n = 0;
+            for (CSVRecord rec : parser) {
+                String[] values = new String[header.size()];
+                for (int i = 0; i < rec.size() && i < values.length; i++) values[i] = rec.get(i);
+                Row row = new Row(index, values, ++n);
+                for (Stage st : stages) {
+                    row = st.apply(row);
+                    if (row == null) break;
+                }
+                if (row != null) {
+                    s.accept(row);
+                    written++;
+                }
+            }
+            s.finish();
+            ok = true;
+        } finally {
+            Metrics.record("csv.pipeline", System.nanoTime() - start, !ok, -1, -1, written);
+        }
+        return written;
+    }
+
+    /** Write records as CSV to a file. */
+    public static Sink toFile(File f) throws IOException {
+        return toStream(new FileOutputStream(f));
+    }
+
+    /** Write records as CSV to a stream (e.g. an upload body); the stream is closed with the sink. */
+    public static Sink toStream(OutputStream os) {
+        return new Sink() {
+            private final Writer w = new BufferedWriter(new OutputStreamWriter(os, StandardCharsets.UTF_8));
+            private CSVPrinter p;
+
+            @Override
+            public void open(List<String> header) throws IOException {
+                p = new CSVPrinter(w, CSVFormat.DEFAULT.withHeader(header.toArray(new String[0])));
+            }
+
+            @Override
+            public void accept(Row row) throws IOException { p.printRecord(row.values()); }
+
+            @Override
+            public void close() throws IOException {
+                if (p != null) p.close(); else w.close();
+            }
+        };
+    }
+
+    /** Hand records to the consumer as Accounts (Id, Name, Country, NumberOfEmployees, Phone columns). */
+    public static Sink toAccounts(Consumer<Account> consumer) {
+        return new Sink() {
+            @Override
+            public void open(List<String> header) {}
+
+            @Override
+            public void accept(Row row) { consumer.accept(toAccount(row)); }
+
+            @Override
+            public void close() {}
+        };
+    }
+
+    /** Group Accounts into lists of up to batchSize, e.g. for a Salesforce collections writer. */
+    public static Sink toAccountBatches(int batchSize, Consumer<List<Account>> writer) {
+        return toBatches(batchSize, rows -> {
+            List<Account> accounts = new ArrayList<>(rows.size());
+            for (Row r : rows) accounts.add(toAccount(r));
+            writer.accept(accounts);
+        });
+    }
+
+    /**
+     * Group records into lists of up to batchSize. The last partial batch is flushed by
+     * {@link Sink#finish}, so a pipeline that fails part-way does not write its tail.
+     */
+    public static Sink toBatches(int batchSize, Consumer<List<Row>> writer) {
+        return new Sink() {
+            private List<Row> batch = new ArrayList<>(batchSize);
+
+            @Override
+            public void open(List<String> header) {}
+
+            @Override
+            public void accept(Row row) {
+                batch.add(row);
+                if (batch.size() == batchSize) {
+                    writer.accept(batch);
+                    batch = new ArrayList<>(batchSize);
+                }
+            }
+
+            @Override
+            public void finish() {
+                if (!batch.isEmpty()) writer.accept(batch);
+                batch = new ArrayList<>(0);
+            }
+
+            @Override
+            public void close() {}
+        };
+    }
+
+    static Account toAccount(Row row) {
+        String employees = row.get("NumberOfEmployees");
+        Account a = new Account(row.get("Name"), row.get("Country"),
+                employees == null || employees.isEmpty() ? null : Integer.valueOf(employees));
+        a.setId(row.get("Id"));
+        a.setPhone(row.get("Phone"));
+        return a;
+    }
+}
@@ -2,9 +2,7 @@ package com.prodly.qa.utils;
 
 import com.prodly.qa.models.Account;
 import org.apache.commons.csv.CSVFormat;
-import org.apache.commons.csv.CSVParser;
 import org.apache.commons.csv.CSVPrinter;
-import org.apache.commons.csv.CSVRecord;
 
 import java.io.*;
 import java.nio.charset.StandardCharsets;
@@ -12,51 +10,60 @@ import java.util.ArrayList;
 import java.util.List;
 
 public class CsvUtil {
+    private static final List<String> REQUIRED_COLUMNS = List.of("Id", "Name", "Country", "NumberOfEmployees");
 
     /** Write CSV without phone column. */
     public static File writeAccountsNoPhone(File f, List<Account> accs) throws IOException {
+        long start = System.nanoTime();
+        int written = 0;
+        boolean ok = false;
         try (OutputStream os = new FileOutputStream(f);
              OutputStreamWriter w = new OutputStreamWriter(os, StandardCharsets.UTF_8);
              CSVPrinter p = new CSVPrinter(w, CSVFormat.DEFAULT.withHeader("Id","Name","Country","NumberOfEmployees"))) {
             for (Account a : accs) {
                 p.printRecord(a.getId(), a.getName(), a.getCountry(), a.getNumberOfEmployees());
+                written++;
             }
+            ok = true;
+        } finally {
+            Metrics.record("csv.writeAccountsNoPhone", System.nanoTime() - start, !ok, -1, -1, written);
         }
         return f;
     }
 
-    /** Read CSV with or without Phone column. */
+    /**
+     * Read CSV with or without Phone column (only the five account columns are decoded).
+     * Id, Name, Country and NumberOfEmployees are required; a "#N/A" cell reads as null.
+     */
     public static List<Account> readWithPhones(File f) throws IOException {
+        long start = System.nanoTime();
+        boolean ok = false;
         List<Account> list = new ArrayList<>();
-        try (InputStream is = new FileInputStream(f);
-             InputStreamReader r = new InputStreamReader(is, StandardCharsets.UTF_8);
-             CSVParser parser = CSVFormat.DEFAULT.withFirstRecordAsHeader().parse(r)) {
-            for (CSVRecord rec : parser) {
-                Account a = new Account(rec.get("Name"), rec.get("Country"),
-                        Integer.valueOf(rec.get("NumberOfEmployees")));
-                a.setId(rec.get("Id"));
-                String phone = parser.getHeaderMap().containsKey("Phone") ? rec.get("Phone") : null;
-                a.setPhone(phone);
-                list.add(a);
+        try {
+            MappedCsvReader csv = MappedCsvReader.open(f, "Id", "Name", "Country", "NumberOfEmployees", "Phone");
+            for (String required : REQUIRED_COLUMNS) {
+                if (!csv.has(required)) {
+                    throw new IllegalArgumentException("Column " + required + " not found in " + f + ", header is " + csv.header());
+                }
             }
+            csv.forEach(rec -> {
+                Account a = new Account(rec.get(1), rec.get(2), Integer.valueOf(rec.get(3)));
+                a.setId(rec.get(0));
+                a.setPhone(rec.get(4));
+                list.add(a);
+            });
+            ok = true;
+        } finally {
+            Metrics.record("csv.readWithPhones", System.nanoTime() - start, !ok, -1, -1, list.size());
         }
         return list;
     }
 
     /** Produce a new CSV file with Phone column added based on country. */
     public static File addPhoneColumn(File src, File dst) throws IOException {
-        try (InputStream is = new FileInputStream(src);
-             InputStreamReader r = new InputStreamReader(is, StandardCharsets.UTF_8);
-             CSVParser parser = CSVFormat.DEFAULT.withFirstRecordAsHeader().parse(r);
-             OutputStream os = new FileOutputStream(dst);
-             OutputStreamWriter w = new OutputStreamWriter(os, StandardCharsets.UTF_8);
-             CSVPrinter p = new CSVPrinter(w, CSVFormat.DEFAULT.withHeader("Id","Name","Country","NumberOfEmployees","Phone"))) {
-            for (CSVRecord rec : parser) {
-                String country = rec.get("Country");
-                String phone = PhoneGenerator.forCountry(country);
-                p.printRecord(rec.get("Id"), rec.get("Name"), country, rec.get("NumberOfEmployees"), phone);
-            }
-        }
+        CsvPipeline.from(src)
+                .addColumn("Phone", r -> PhoneGenerator.forCountry(r.get("Country")))
+                .to(CsvPipeline.toFile(dst));
         return dst;
     }
 }
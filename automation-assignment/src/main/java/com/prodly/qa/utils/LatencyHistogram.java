@@ -0,0 +1,61 @@
+package com.prodly.qa.utils;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Lock-free log-linear latency histogram in microseconds (8 linear sub-buckets per power of two,
+ * so quantiles are accurate to ~12%). Recording is two atomic adds and a max update.
+ */
+public class LatencyHistogram {
+    private static final int SUB_BITS = 3;
+    private static final int SUB = 1 << SUB_BITS;
+    private static final int BUCKETS = (64 - SUB_BITS + 1) * SUB;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final AtomicLong total = new AtomicLong();
+    private final AtomicLong sum = new AtomicLong();
+    private final AtomicLong max = new AtomicLong();
+
+    public void recordNanos(long nanos) {
+        long us = Math.max(0, nanos / 1000);
+        counts.incrementAndGet(index(us));
+        total.incrementAndGet();
+        sum.addAndGet(us);
+        long m;
+        while (us > (m = max.get()) && !max.compareAndSet(m, us)) { /* retry */ }
+    }
+
+    private static int index(long us) {
+        if (us < SUB) return (int) us;
+        int exp = 63 - Long.numberOfLeadingZeros(us);
+        int shift = exp - SUB_BITS;
+        int sub = (int) (us >>> shift) & (SUB - 1);
+        return (shift + 1) * SUB + sub;
+    }
+
+    /** Upper bound (microseconds) of the values that land in bucket i. */
+    private static long upperBound(int i) {
+        if (i < SUB) return i;
+        int shift = i / SUB - 1;
+        long base = ((long) SUB + (i % SUB)) << shift;
+        return base + (1L << shift) - 1;
+    }
+
+    public long count() { return total.get(); }
+    public long maxMicros() { return max.get(); }
+    public double meanMicros() { long n = total.get(); return n == 0 ? 0 : (double) sum.get() / n; }
+
+    /** Approximate quantile (0..1) in microseconds, capped at the observed max. */
+    public long quantileMicros(double q) {
+        long n = total.get();
+        if (n == 0) return 0;
+        long rank = (long) Math.ceil(q * n);
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += counts.get(i);
+            if (seen >= rank) return Math.min(upperBound(i), max.get());
+        }
+        return max.get();
+    }
+}
@@ -0,0 +1,261 @@
+package com.prodly.qa.utils;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.LongBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Open-addressing hash table from a non-zero long key to a fixed number of long values, stored as
+ * one flat long array (slot = key, value 1..width; key 0 marks an empty slot). The file format is
+ * that array behind a small header, so {@link #open} just memory-maps it read-write: opening is
+ * O(1), lookups touch only the pages they probe, and {@link #put}/{@link #remove} write through
+ * to the slots they change. The file is never replaced; growing rewrites it in place, clearing the
+ * header magic (forced to disk) before the table is touched and writing the header back last, so a
+ * rewrite torn by a crash leaves a file that {@link #open} rejects instead of a mix of two tables.
+ */
+public final class LongHashIndex implements Closeable {
+    private static final long MAGIC = 0x50524F44_4C484931L; // "PRODLHI1"
+    private static final int HEADER_LONGS = 5; // magic, tag, width, capacity (slots), size
+    private static final double MAX_LOAD = 0.6;
+
+    private final long tag;
+    private final int width;
+    private final int stride;
+    /** Backing file channel (holding an exclusive lock), or null for an in-memory index. */
+    private FileChannel channel;
+    private MappedByteBuffer mapped;
+    /** Whole mapped file (header included), for size updates. */
+    private LongBuffer header;
+    private LongBuffer table;
+    private int capacity;
+    private int size;
+
+    private LongHashIndex(long tag, int width, LongBuffer table, int capacity, int size) {
+        this.tag = tag;
+        this.width = width;
+        this.stride = width + 1;
+        this.table = table;
+        this.capacity = capacity;
+        this.size = size;
+    }
+
+    /**
+     * Empty in-memory index.
+     * @param tag      caller-defined schema id stored in the file, so a stale format can be detected
+     * @param width    values per key
+     * @param expected expected number of keys (the table grows past it)
+     */
+    public static LongHashIndex create(long tag, int width, int expected) {
+        int cap = slotsFor(expected);
+        if ((long) cap * (width + 1) > Integer.MAX_VALUE) throw new IllegalArgumentException("Index too large: " + expected);
+        return new LongHashIndex(tag, width, LongBuffer.wrap(new long[cap * (width + 1)]), cap, 0);
+    }
+
+    /**
+     * Open (creating it if absent or empty) the index file f and lock it for this process until
+     * {@link #close}. The header is checked with a plain read before anything is mapped, so a file
+     * rejected here (IOException: corrupt, or written for another tag/width) can be deleted at once.
+     */
+    public static LongHashIndex open(File f, long tag, int width) throws IOException {
+        File dir = f.getAbsoluteFile().getParentFile();
+        if (dir != null) dir.mkdirs();
+        FileChannel ch = FileChannel.open(f.toPath(), StandardOpenOption.READ, StandardOpenOption.WRITE,
+                StandardOpenOption.CREATE);
+        try {
+            ch.lock();
+            int cap;
+            int size;
+            if (ch.size() == 0) {
+                cap = slotsFor(0);
+                size = 0;
+                writeFile(ch, create(tag, width, 0));
+            } else {
+                ByteBuffer h = ByteBuffer.allocate(HEADER_LONGS * 8);
+                while (h.hasRemaining() && ch.read(h, h.position()) > 0) { /* fill */ }
+                h.flip();
+                if (h.remaining() < HEADER_LONGS * 8 || h.getLong(0) != MAGIC) throw new IOException("Not an index file: " + f);
+                if (h.getLong(8) != tag || h.getLong(16) != width) throw new IOException("Index " + f + " was written for another schema");
+                cap = (int) h.getLong(24);
+                size = (int) h.getLong(32);
+                if (Integer.bitCount(cap) != 1 || ch.size() != (HEADER_LONGS + (long) cap * (width + 1)) * 8) {
+                    throw new IOException("Truncated or corrupt index file: " + f);
+                }
+            }
+            LongHashIndex index = new LongHashIndex(tag, width, null, cap, size);
+            index.channel = ch;
+            index.map();
+            return index;
+        } catch (IOException | RuntimeException e) {
+            ch.close();
+            throw e;
+        }
+    }
+
+    public long tag() { return tag; }
+    public int width() { return width; }
+    public int size() { return size; }
+
+    /** Copy the values for key into out (length &gt;= width); false if absent. */
+    public boolean get(long key, long[] out) {
+        int slot = find(key);
+        if (table.get(slot * stride) == 0) return false;
+        for (int i = 0; i < width; i++) out[i] = table.get(slot * stride + 1 + i);
+        return true;
+    }
+
+    /** Add or overwrite key; a file-backed index that has to grow may throw UncheckedIOException. */
+    public void put(long key, long[] values) {
+        if (key == 0) throw new IllegalArgumentException("Key 0 is reserved");
+        int slot = find(key);
+        int base = slot * stride;
+        boolean added = table.get(base) == 0;
+        if (added && size + 1 > capacity * MAX_LOAD) {
+            grow();
+            put(key, values);
+            return;
+        }
+        // values before the key, so a new slot never shows up half-written
+        for (int i = 0; i < width; i++) table.put(base + 1 + i, values[i]);
+        if (added) {
+            table.put(base, key);
+            setSize(size + 1);
+        }
+    }
+
+    /** Remove key (backward-shift deletion, no tombstones); false if absent. */
+    public boolean remove(long key) {
+        int slot = find(key);
+        if (table.get(slot * stride) == 0) return false;
+        int mask = capacity - 1;
+        int hole = slot;
+        for (int j = (slot + 1) & mask; ; j = (j + 1) & mask) {
+            long k = table.get(j * stride);
+            if (k == 0) break;
+            int home = (int) mix(k) & mask;
+            // k may fill the hole if the hole lies on its probe path, i.e. between home and j
+            if (((j - home) & mask) >= ((j - hole) & mask)) {
+                for (int i = 1; i <= width; i++) table.put(hole * stride + i, table.get(j * stride + i));
+                table.put(hole * stride, k);
+                hole = j;
+            }
+        }
+        for (int i = 0; i <= width; i++) table.put(hole * stride + i, 0);
+        setSize(size - 1);
+        return true;
+    }
+
+    /** Copy every entry of other (same width) into this index. */
+    public void putAll(LongHashIndex other) {
+        if (other.width != width) throw new IllegalArgumentException("Width " + other.width + " != " + width);
+        long[] v = new long[width];
+        for (int s = 0; s < other.capacity; s++) {
+            long key = other.table.get(s * other.stride);
+            if (key == 0) continue;
+            for (int i = 0; i < width; i++) v[i] = other.table.get(s * other.stride + 1 + i);
+            put(key, v);
+        }
+    }
+
+    /** Flush changed pages, release the lock and drop the mapping; a no-op for in-memory indexes. */
+    @Override
+    public void close() throws IOException {
+        if (channel == null) return;
+        try {
+            mapped.force();
+        } finally {
+            mapped = null;
+            header = null;
+            table = null;
+            channel.close();
+            channel = null;
+        }
+    }
+
+    private void setSize(int n) {
+        size = n;
+        if (header != null) header.put(4, n);
+    }
+
+    /** Slot holding key, or the empty slot where it would go. */
+    private int find(long key) {
+        int mask = capacity - 1;
+        int slot = (int) mix(key) & mask;
+        while (true) {
+            long k = table.get(slot * stride);
+            if (k == 0 || k == key) return slot;
+            slot = (slot + 1) & mask;
+        }
+    }
+
+    private void grow() {
+        LongHashIndex bigger = create(tag, width, capacity);
+        bigger.putAll(this);
+        capacity = bigger.capacity;
+        size = bigger.size;
+        if (channel == null) {
+            table = bigger.table;
+            return;
+        }
+        // the file only gets longer, which is allowed while the old (smaller) mapping is still live
+        try {
+            mapped.force();
+            writeFile(channel, bigger);
+            map();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Growing index failed", e);
+        }
+    }
+
+    /** Invalidate the header, then write index's table and finally its header, to ch from offset 0. */
+    private static void writeFile(FileChannel ch, LongHashIndex index) throws IOException {
+        ByteBuffer buf = ByteBuffer.allocateDirect(64 * 1024);
+        if (ch.size() > 0) {
+            buf.putLong(0L);
+            write(ch, buf, 0);
+            ch.force(false);
+        }
+        long pos = HEADER_LONGS * 8L;
+        int n = index.capacity * index.stride;
+        for (int i = 0; i < n; i++) {
+            if (!buf.hasRemaining()) pos = write(ch, buf, pos);
+            buf.putLong(index.table.get(i));
+        }
+        write(ch, buf, pos);
+        ch.force(false);
+        buf.putLong(MAGIC).putLong(index.tag).putLong(index.width).putLong(index.capacity).putLong(index.size);
+        write(ch, buf, 0);
+        ch.force(false);
+    }
+
+    private static long write(FileChannel ch, ByteBuffer buf, long pos) throws IOException {
+        buf.flip();
+        while (buf.hasRemaining()) pos += ch.write(buf, pos);
+        buf.clear();
+        return pos;
+    }
+
+    private void map() throws IOException {
+        mapped = channel.map(FileChannel.MapMode.READ_WRITE, 0, (HEADER_LONGS + (long) capacity * stride) * 8);
+        header = mapped.asLongBuffer();
+        header.position(HEADER_LONGS);
+        table = header.slice();
+    }
+
+    private static int slotsFor(int expected) {
+        long need = (long) Math.ceil(Math.max(expected, 8) / MAX_LOAD);
+        long cap = Long.highestOneBit(need - 1) << 1;
+        if (cap > 1 << 30) throw new IllegalArgumentException("Index too large: " + expected);
+        return (int) cap;
+    }
+
+    private static long mix(long z) {
+        z = (z ^ (z >>> 33)) * 0xFF51AFD7ED558CCDL;
+        return z ^ (z >>> 33);
+    }
+}
@@ -0,0 +1,276 @@
+package com.prodly.qa.utils;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * Read-only RFC 4180 CSV reader over a memory-mapped file that decodes only the columns asked for.
+ * Other columns are skipped byte by byte without creating Strings, "#N/A" cells come back as null
+ * and empty cells as "" without allocating, and the per-row value array is reused. Quoted fields
+ * (commas, "" escapes, line breaks) are supported; the first record is the header.
+ *
+ * <p>{@link #splits} cuts the file at record boundaries (found with one quote-aware byte scan) so
+ * ranges can be parsed on separate threads; each range is mapped on its own, so files over 2 GB work.
+ */
+public final class MappedCsvReader {
+    /** Largest range mapped at once. */
+    private static final long MAX_SPLIT = 1L << 30;
+    private static final String EMPTY = "";
+
+    private final File file;
+    private final long size;
+    private final long dataStart;
+    private final List<String> header;
+    private final String[] columns;
+    /** File column index -> position in columns, or -1 to skip. */
+    private final int[] slot;
+
+    /** A byte range [start, end) holding whole records. */
+    public static final class Split {
+        public final long start;
+        public final long end;
+
+        Split(long start, long end) {
+            this.start = start;
+            this.end = end;
+        }
+
+        @Override
+        public String toString() { return "[" + start + ", " + end + ")"; }
+    }
+
+    private MappedCsvReader(File file, String[] columns) throws IOException {
+        this.file = file;
+        this.size = file.length();
+        this.columns = columns;
+        MappedByteBuffer head = map(0, Math.min(size, MAX_SPLIT));
+        int start = size >= 3 && (head.get(0) & 0xFF) == 0xEF && (head.get(1) & 0xFF) == 0xBB && (head.get(2) & 0xFF) == 0xBF ? 3 : 0;
+        Cursor c = new Cursor(head, start, null);
+        List<String> names = new ArrayList<>();
+        if (c.next()) names.addAll(c.all);
+        this.header = Collections.unmodifiableList(names);
+        this.dataStart = c.pos;
+        Map<String, Integer> wanted = new HashMap<>();
+        for (int i = 0; i < columns.length; i++) wanted.put(columns[i], i);
+        this.slot = new int[names.size()];
+        for (int i = 0; i < slot.length; i++) slot[i] = wanted.getOrDefault(names.get(i), -1);
+    }
+
+    /** Open f, decoding only the given columns (in this order); columns missing from the header read as null. */
+    public static MappedCsvReader open(File f, String... columns) throws IOException {
+        return new MappedCsvReader(f, columns);
+    }
+
+    public List<String> header() { return header; }
+
+    /** Whether the header has this column. */
+    public boolean has(String column) { return header.contains(column); }
+
+    /**
+     * Up to n ranges of roughly equal size, each starting at a record boundary; more than n if
+     * needed to keep each under 1 GB. One byte scan of the file tracks quotes so a line break
+     * inside a quoted field is never taken as a boundary.
+     */
+    public List<Split> splits(int n) throws IOException {
+        long body = size - dataStart;
+        int parts = (int) Math.max(Math.max(1, n), (body + MAX_SPLIT - 1) / MAX_SPLIT);
+        List<Split> out = new ArrayList<>(parts);
+        if (parts == 1 || body <= 0) {
+            out.add(new Split(dataStart, size));
+            return out;
+        }
+        long step = body / parts;
+        long start = dataStart;
+        long target = start + step;
+        boolean quoted = false;
+        for (long window = dataStart; window < size && out.size() < parts - 1; window += MAX_SPLIT) {
+            MappedByteBuffer b = map(window, Math.min(MAX_SPLIT, size - window));
+            for (int i = 0, len = b.limit(); i < len; i++) {
+                byte x = b.get(i);
+                if (x == '"') {
+                    quoted = !quoted;
+                } else if (x == '\n' && !quoted && window + i >= target) {
+                    long boundary = window + i + 1;
+                    out.add(new Split(start, boundary));
+                    start = boundary;
+                    target = start + step;
+                    if (out.size() == parts - 1) break;
+                }
+            }
+        }
+        out.add(new Split(start, size));
+        return out;
+    }
+
+    /** Cursor over the records of one split. */
+    public Cursor cursor(Split split) throws IOException {
+        return new Cursor(map(split.start, split.end - split.start), 0, slot);
+    }
+
+    /** Visit every record in order on this thread; returns the record count. */
+    public long forEach(Consumer<Cursor> row) throws IOException {
+        long n = 0;
+        for (Split s : splits(1)) {
+            Cursor c = cursor(s);
+            while (c.next()) {
+                row.accept(c);
+                n++;
+            }
+        }
+        return n;
+    }
+
+    /**
+     * Visit every record using up to threads workers, one split each; row must be thread-safe and
+     * records arrive in no particular order. Returns the record count.
+     */
+    public long parallelForEach(int threads, Consumer<Cursor> row) throws IOException {
+        AtomicLong n = new AtomicLong();
+        Parallel.forEach(splits(threads), threads, s -> {
+            try {
+                Cursor c = cursor(s);
+                long k = 0;
+                while (c.next()) {
+                    row.accept(c);
+                    k++;
+                }
+                n.addAndGet(k);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+        return n.get();
+    }
+
+    private MappedByteBuffer map(long offset, long length) throws IOException {
+        try (FileChannel ch = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            return ch.map(FileChannel.MapMode.READ_ONLY, offset, length);
+        }
+    }
+
+    /** Current record; values are valid until the next call to {@link #next}. */
+    public final class Cursor {
+        private final MappedByteBuffer buf;
+        private final int end;
+        /** null = decode every column into all (header mode). */
+        private final int[] slot;
+        private final String[] values;
+        private final List<String> all;
+        private byte[] scratch = new byte[256];
+        private int pos;
+        private long record;
+
+        Cursor(MappedByteBuffer buf, int start, int[] slot) {
+            this.buf = buf;
+            this.end = buf.limit();
+            this.slot = slot;
+            this.values = new String[columns.length];
+            this.all = slot == null ? new ArrayList<>() : null;
+            this.pos = start;
+        }
+
+        /** Advance to the next record (blank lines are skipped); false at the end of the split. */
+        public boolean next() {
+            while (pos < end && (buf.get(pos) == '\n' || buf.get(pos) == '\r')) pos++;
+            if (pos >= end) return false;
+            Arrays.fill(values, null);
+            if (all != null) all.clear();
+            int col = 0;
+            boolean last;
+            do {
+                int target = slot == null ? -2 : col < slot.length ? slot[col] : -1;
+                last = field(target);
+                col++;
+            } while (!last);
+            record++;
+            return true;
+        }
+
+        /** Value of the i-th requested column. */
+        public String get(int i) { return values[i]; }
+
+        /** Value of a requested column by name. */
+        public String get(String column) {
+            for (int i = 0; i < columns.length; i++) {
+                if (columns[i].equals(column)) return values[i];
+            }
+            throw new IllegalArgumentException("Column not requested: " + column);
+        }
+
+        /** 1-based record number within this split. */
+        public long record() { return record; }
+
+        /**
+         * Read one field starting at pos into values[target] (-1 = skip, -2 = append to all) and
+         * step past its delimiter. Returns true if it was the last field of the record.
+         */
+        private boolean field(int target) {
+            int len = 0;
+            boolean keep = target != -1;
+            boolean quotedField = pos < end && buf.get(pos) == '"';
+            int start = pos;
+            if (quotedField) {
+                pos++;
+                while (pos < end) {
+                    byte x = buf.get(pos++);
+                    if (x == '"') {
+                        if (pos < end && buf.get(pos) == '"') {
+                            pos++;
+                        } else {
+                            break;
+                        }
+                    }
+                    if (keep) len = put(len, x);
+                }
+                // anything between the closing quote and the delimiter is kept as is
+                while (pos < end && !isDelimiter(buf.get(pos))) {
+                    byte x = buf.get(pos++);
+                    if (keep) len = put(len, x);
+                }
+            } else {
+                while (pos < end && !isDelimiter(buf.get(pos))) pos++;
+                if (keep) {
+                    len = pos - start;
+                    if (scratch.length < len) scratch = new byte[Math.max(len, scratch.length * 2)];
+                    for (int i = 0; i < len; i++) scratch[i] = buf.get(start + i);
+                }
+            }
+            if (keep) {
+                String v;
+                if (len == 0) v = EMPTY;
+                else if (!quotedField && len == 4 && scratch[0] == '#' && scratch[1] == 'N' && scratch[2] == '/' && scratch[3] == 'A') v = null;
+                else v = new String(scratch, 0, len, StandardCharsets.UTF_8);
+                if (target == -2) all.add(v);
+                else values[target] = v;
+            }
+            if (pos >= end) return true;
+            byte d = buf.get(pos++);
+            if (d == ',') return false;
+            if (d == '\r' && pos < end && buf.get(pos) == '\n') pos++;
+            return true;
+        }
+
+        private int put(int len, byte x) {
+            if (len == scratch.length) scratch = Arrays.copyOf(scratch, len * 2);
+            scratch[len] = x;
+            return len + 1;
+        }
+    }
+
+    private static boolean isDelimiter(byte x) {
+        return x == ',' || x == '\n' || x == '\r';
+    }
+}
@@ -0,0 +1,138 @@
+package com.prodly.qa.utils;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.prodly.qa.config.Config;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Process-wide per-operation metrics: latency histogram, request/error/byte/item counts, retries,
+ * plus the latest API-limit headers seen. Recording is a map lookup and a few atomic adds, so it
+ * stays on in normal runs (METRICS_ENABLED=false turns it off). Reports are written as JSON and
+ * Prometheus text.
+ */
+public final class Metrics {
+    private static final Logger log = LoggerFactory.getLogger(Metrics.class);
+    private static final ConcurrentHashMap<String, Op> OPS = new ConcurrentHashMap<>();
+    private static final ConcurrentHashMap<String, String> LIMITS = new ConcurrentHashMap<>();
+
+    private Metrics() {}
+
+    /** Counters for one operation, e.g. "salesforce PATCH /composite/sobjects" or "csv.readWithPhones". */
+    public static final class Op {
+        public final LatencyHistogram latency = new LatencyHistogram();
+        public final LongAdder errors = new LongAdder();
+        public final LongAdder bytesIn = new LongAdder();
+        public final LongAdder bytesOut = new LongAdder();
+        public final LongAdder items = new LongAdder();
+        public final LongAdder retries = new LongAdder();
+    }
+
+    public static Op op(String name) {
+        Op op = OPS.get(name);
+        return op != null ? op : OPS.computeIfAbsent(name, k -> new Op());
+    }
+
+    /** Record one call. Negative byte/item counts mean "unknown" and are skipped. */
+    public static void record(String op, long nanos, boolean error, long bytesOut, long bytesIn, long items) {
+        if (!Config.METRICS_ENABLED) return;
+        Op o = op(op);
+        o.latency.recordNanos(nanos);
+        if (error) o.errors.increment();
+        if (bytesOut > 0) o.bytesOut.add(bytesOut);
+        if (bytesIn > 0) o.bytesIn.add(bytesIn);
+        if (items > 0) o.items.add(items);
+    }
+
+    public static void retry(String op) {
+        if (Config.METRICS_ENABLED) op(op).retries.increment();
+    }
+
+    /** Remember the latest value of an API-limit header (Sforce-Limit-Info, X-RateLimit-Remaining, ...). */
+    public static void limit(String header, String value) {
+        if (Config.METRICS_ENABLED && value != null) LIMITS.put(header, value);
+    }
+
+    public static Map<String, Object> snapshot() {
+        Map<String, Object> ops = new TreeMap<>();
+        OPS.forEach((name, o) -> {
+            Map<String, Object> m = new LinkedHashMap<>();
+            LatencyHistogram h = o.latency;
+            m.put("count", h.count());
+            m.put("errors", o.errors.sum());
+            m.put("retries", o.retries.sum());
+            m.put("items", o.items.sum());
+            m.put("bytesOut", o.bytesOut.sum());
+            m.put("bytesIn", o.bytesIn.sum());
+            m.put("meanMs", h.meanMicros() / 1000.0);
+            m.put("p50Ms", h.quantileMicros(0.50) / 1000.0);
+            m.put("p95Ms", h.quantileMicros(0.95) / 1000.0);
+            m.put("p99Ms", h.quantileMicros(0.99) / 1000.0);
+            m.put("maxMs", h.maxMicros() / 1000.0);
+            ops.put(name, m);
+        });
+        Map<String, Object> out = new LinkedHashMap<>();
+        out.put("runId", Config.RUN_ID);
+        out.put("operations", ops);
+        out.put("limits", new TreeMap<>(LIMITS));
+        return out;
+    }
+
+    public static String toPrometheus() {
+        StringBuilder sb = new StringBuilder();
+        sb.append("# TYPE prodly_op_duration_seconds summary\n");
+        new TreeMap<>(OPS).forEach((name, o) -> {
+            String l = "op=\"" + name.replace("\\", "\\\\").replace("\"", "\\\"") + "\"";
+            LatencyHistogram h = o.latency;
+            for (double q : new double[]{0.5, 0.95, 0.99}) {
+                sb.append("prodly_op_duration_seconds{").append(l).append(",quantile=\"").append(q).append("\"} ")
+                        .append(h.quantileMicros(q) / 1e6).append('\n');
+            }
+            sb.append("prodly_op_duration_seconds_count{").append(l).append("} ").append(h.count()).append('\n');
+            sb.append("prodly_op_duration_max_seconds{").append(l).append("} ").append(h.maxMicros() / 1e6).append('\n');
+            sb.append("prodly_op_errors_total{").append(l).append("} ").append(o.errors.sum()).append('\n');
+            sb.append("prodly_op_retries_total{").append(l).append("} ").append(o.retries.sum()).append('\n');
+            sb.append("prodly_op_items_total{").append(l).append("} ").append(o.items.sum()).append('\n');
+            sb.append("prodly_op_bytes_out_total{").append(l).append("} ").append(o.bytesOut.sum()).append('\n');
+            sb.append("prodly_op_bytes_in_total{").append(l).append("} ").append(o.bytesIn.sum()).append('\n');
+        });
+        new TreeMap<>(LIMITS).forEach((header, value) -> {
+            // "api-usage=25/15000" -> used and limit gauges; plain numbers pass through
+            int eq = value.indexOf('=');
+            int slash = value.indexOf('/');
+            String metric = "prodly_api_limit{header=\"" + header + "\"";
+            if (eq > 0 && slash > eq) {
+                sb.append(metric).append(",kind=\"used\"} ").append(value, eq + 1, slash).append('\n');
+                sb.append(metric).append(",kind=\"max\"} ").append(value.substring(slash + 1).trim()).append('\n');
+            } else if (!value.isEmpty() && value.chars().allMatch(Character::isDigit)) {
+                sb.append(metric).append("} ").append(value).append('\n');
+            }
+        });
+        return sb.toString();
+    }
+
+    /** Write metrics-report.json and metrics-report.prom into dir. */
+    public static void writeReport(File dir) {
+        if (!Config.METRICS_ENABLED) return;
+        try {
+            dir.mkdirs();
+            new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT)
+                    .writeValue(new File(dir, "metrics-report.json"), snapshot());
+            Files.write(new File(dir, "metrics-report.prom").toPath(), toPrometheus().getBytes(StandardCharsets.UTF_8));
+            log.info("Metrics report written to {}", dir.getAbsolutePath());
+        } catch (IOException e) {
+            log.warn("Metrics report failed: {}", e.getMessage());
+        }
+    }
+}
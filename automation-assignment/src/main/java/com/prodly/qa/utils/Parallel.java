@@ -0,0 +1,108 @@
+package com.prodly.qa.utils;
+
+import com.prodly.qa.config.Config;
+
+import java.util.List;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+
+/**
+ * Runs tasks so at most maxInFlight of them execute at once, on one pool shared by every caller
+ * (PARALLEL_POOL_SIZE threads, idle ones exit). Each call hands out its items to the calling thread
+ * plus up to maxInFlight - 1 pool workers that pull the next item when done, so a call always makes
+ * progress on its own thread even when the pool is busy with other callers or nested calls.
+ */
+public class Parallel {
+    private static final AtomicInteger THREAD_SEQ = new AtomicInteger();
+    private static final ThreadPoolExecutor POOL;
+
+    static {
+        int size = Math.max(1, Config.PARALLEL_POOL_SIZE);
+        POOL = new ThreadPoolExecutor(size, size, 30, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), r -> {
+            Thread t = new Thread(r, "parallel-" + THREAD_SEQ.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+        POOL.allowCoreThreadTimeOut(true);
+    }
+
+    /** Apply task to every item; runs inline when maxInFlight <= 1. Rethrows the first task failure. */
+    public static <T> void forEach(List<T> items, int maxInFlight, Consumer<T> task) {
+        int threads = Math.min(maxInFlight, items.size());
+        if (threads <= 1) {
+            items.forEach(task);
+            return;
+        }
+        Run<T> run = new Run<>(items, task);
+        for (int k = 1; k < threads; k++) POOL.execute(run::help);
+        run.work();
+        run.await();
+        Throwable c = run.failure.get();
+        if (c == null) return;
+        if (c instanceof InterruptedException) throw new RuntimeException("Interrupted while waiting for parallel tasks", c);
+        if (c instanceof RuntimeException) throw (RuntimeException) c;
+        if (c instanceof Error) throw (Error) c;
+        throw new RuntimeException(c);
+    }
+
+    /** One forEach call: items are pulled by index until done or something fails. */
+    private static final class Run<T> {
+        private final List<T> items;
+        private final Consumer<T> task;
+        private final AtomicInteger next = new AtomicInteger();
+        final AtomicReference<Throwable> failure = new AtomicReference<>();
+        /** Helpers currently working; once closed, helpers the pool starts late return at once. */
+        private int active;
+        private boolean closed;
+
+        Run(List<T> items, Consumer<T> task) {
+            this.items = items;
+            this.task = task;
+        }
+
+        void work() {
+            int i;
+            while (failure.get() == null && (i = next.getAndIncrement()) < items.size()) {
+                try {
+                    task.accept(items.get(i));
+                } catch (Throwable t) {
+                    failure.compareAndSet(null, t);
+                }
+            }
+        }
+
+        void help() {
+            synchronized (this) {
+                if (closed) return;
+                active++;
+            }
+            try {
+                work();
+            } finally {
+                synchronized (this) {
+                    active--;
+                    notifyAll();
+                }
+            }
+        }
+
+        /** Wait for helpers still running a task; helpers not yet started will not start. */
+        synchronized void await() {
+            closed = true;
+            while (active > 0) {
+                try {
+                    wait();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    failure.compareAndSet(null, e);
+                    next.set(items.size());
+                    return;
+                }
+            }
+        }
+    }
+}
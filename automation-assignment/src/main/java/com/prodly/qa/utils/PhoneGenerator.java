@@ -1,24 +1,27 @@
 package com.prodly.qa.utils;
 
-import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
 
+/** Random E.164 numbers per country; uses ThreadLocalRandom so parallel callers never contend. */
 public class PhoneGenerator {
-    private static final Random RND = new Random();
 
     public static String forCountry(String country) {
         switch (country) {
-            case "US":  return "+1"  + digits(10);
-            case "GB":  return "+44" + digits(10);
-            case "DE":  return "+49" + digits(10);
-            case "FR":  return "+33" + digits(9);
-            case "UA":  return "+380" + digits(9);
-            default:    return "+1"  + digits(10);
+            case "US":  return build("+1", 10);
+            case "GB":  return build("+44", 10);
+            case "DE":  return build("+49", 10);
+            case "FR":  return build("+33", 9);
+            case "UA":  return build("+380", 9);
+            default:    return build("+1", 10);
         }
     }
 
-    private static String digits(int n) {
-        StringBuilder sb = new StringBuilder();
-        for (int i = 0; i < n; i++) sb.append(RND.nextInt(10));
-        return sb.toString();
+    private static String build(String prefix, int n) {
+        ThreadLocalRandom rnd = ThreadLocalRandom.current();
+        int p = prefix.length();
+        char[] out = new char[p + n];
+        prefix.getChars(0, p, out, 0);
+        for (int i = 0; i < n; i++) out[p + i] = (char) ('0' + rnd.nextInt(10));
+        return new String(out);
     }
 }
@@ -0,0 +1,158 @@
+package com.prodly.qa.utils;
+
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Single-pass, regex-free phone normalizer to E.164 ("+" followed by 8-15 digits).
+ * Understands the notations found in the seed data: dotted NANP ("1.508.390.1000"),
+ * national numbers with a trunk prefix ("(02) 7112 6523" with an Australia hint),
+ * international exit codes ("011 49 69 3576 6843", "0049 ...") and "+CC 0 ..." forms.
+ * The country hint may be an ISO code or a name ("US", "USA", "United Kingdom").
+ * Stateless apart from immutable lookup tables, so it is safe to call from any thread.
+ */
+public final class PhoneNormalizer {
+    private static final int MAX_DIGITS = 15;
+
+    /** Calling-code rules for one country. */
+    private static final class Country {
+        final String code;
+        /** National numbers start with a trunk '0' that is dropped internationally. */
+        final boolean trunkZero;
+        final boolean nanp;
+
+        Country(String code, boolean trunkZero) {
+            this.code = code;
+            this.trunkZero = trunkZero;
+            this.nanp = "1".equals(code);
+        }
+    }
+
+    private static final Country NANP = new Country("1", false);
+    /** Case-insensitive so lookups never allocate an upper-cased copy of the hint. */
+    private static final Map<String, Country> BY_NAME = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+    /** Indexed by numeric calling code (1..999). */
+    private static final Country[] BY_CODE = new Country[1000];
+
+    static {
+        register(NANP, "US", "USA", "United States", "United States of America", "CA", "Canada");
+        register(new Country("44", true), "GB", "UK", "United Kingdom", "Great Britain", "England");
+        register(new Country("61", true), "AU", "Australia");
+        register(new Country("49", true), "DE", "Germany");
+        register(new Country("33", true), "FR", "France");
+        register(new Country("380", true), "UA", "Ukraine");
+        register(new Country("41", true), "CH", "Switzerland");
+        register(new Country("81", true), "JP", "Japan");
+        register(new Country("39", false), "IT", "Italy");
+    }
+
+    private static void register(Country c, String... names) {
+        for (String n : names) BY_NAME.put(n, c);
+        BY_CODE[Integer.parseInt(c.code)] = c;
+    }
+
+    private PhoneNormalizer() {}
+
+    /** Calling code for a country hint ("1", "44", ...), or null if unknown. */
+    public static String callingCode(String country) {
+        Country c = country == null ? null : BY_NAME.get(country.trim());
+        return c == null ? null : c.code;
+    }
+
+    /**
+     * Normalize a raw phone to E.164 using the country hint for national numbers.
+     * Returns null for blanks, placeholders like "#N/A" and anything that cannot be resolved.
+     * An unknown hint falls back to NANP for 10/11-digit numbers.
+     */
+    public static String toE164(String raw, String countryHint) {
+        if (raw == null) return null;
+        char[] d = new char[MAX_DIGITS + 4];
+        int n = 0;
+        boolean plus = false;
+        int len = raw.length();
+        for (int i = 0; i < len; i++) {
+            char ch = raw.charAt(i);
+            if (ch >= '0' && ch <= '9') {
+                if (n == d.length) return null;
+                d[n++] = ch;
+            } else if (ch == '+' && n == 0 && !plus) {
+                plus = true;
+            } else if (ch == 'x' || ch == 'X' || ch == 'e' || ch == 'E' || ch == '#' && n > 0) {
+                break; // extension ("x12", "ext. 12", "#12")
+            } else if (ch != ' ' && ch != '.' && ch != '-' && ch != '(' && ch != ')' && ch != '/'
+                    && ch != '\t' && ch != '\u00A0') {
+                return null;
+            }
+        }
+        if (n == 0) return null;
+
+        Country hint = countryHint == null ? null : BY_NAME.get(countryHint.trim());
+        int start = 0;
+        boolean international = plus;
+        if (!international) {
+            // Australia's 0011 before the generic 00, which would read its "11" as part of the number
+            if (n > 4 && d[0] == '0' && d[1] == '0' && d[2] == '1' && d[3] == '1' && hint != null && "61".equals(hint.code)) {
+                international = true;
+                start = 4;
+            } else if (n > 2 && d[0] == '0' && d[1] == '0') {
+                international = true;
+                start = 2;
+            } else if (n > 3 && d[0] == '0' && d[1] == '1' && d[2] == '1' && (hint == null || hint.nanp)) {
+                international = true;
+                start = 3;
+            }
+        }
+        if (international) return international(d, start, n);
+        return national(d, n, hint);
+    }
+
+    /** Digits already carry a country code; drop a trunk '0' written right after it ("+33 0 1 ..."). */
+    private static String international(char[] d, int start, int n) {
+        int code = 0;
+        for (int cl = 1; cl <= 3 && start + cl < n; cl++) {
+            code = code * 10 + (d[start + cl - 1] - '0');
+            Country c = BY_CODE[code];
+            if (c != null) {
+                if (c.trunkZero && d[start + cl] == '0') {
+                    System.arraycopy(d, start + cl + 1, d, start + cl, n - start - cl - 1);
+                    n--;
+                }
+                break;
+            }
+        }
+        return finish(null, d, start, n);
+    }
+
+    private static String national(char[] d, int n, Country hint) {
+        if (hint == null) {
+            boolean looksNanp = (n == 10 && d[0] >= '2') || (n == 11 && d[0] == '1' && d[1] >= '2');
+            if (!looksNanp) return null;
+            hint = NANP;
+        }
+        int start = 0;
+        if (hint.nanp) {
+            if (n == 11 && d[0] == '1') start = 1;
+            // NANP area codes start with 2-9, so e.g. a trunk-prefixed "(02) ..." is not one
+            if (n - start != 10 || d[start] < '2') return null;
+        } else if (hint.trunkZero && d[0] == '0') {
+            start = 1;
+        }
+        return finish(hint.code, d, start, n);
+    }
+
+    private static String finish(String code, char[] d, int start, int n) {
+        int digits = n - start + (code == null ? 0 : code.length());
+        if (digits < 8 || digits > MAX_DIGITS) return null;
+        char first = code == null ? d[start] : code.charAt(0);
+        if (first == '0') return null;
+        char[] out = new char[digits + 1];
+        out[0] = '+';
+        int p = 1;
+        if (code != null) {
+            code.getChars(0, code.length(), out, 1);
+            p += code.length();
+        }
+        System.arraycopy(d, start, out, p, n - start);
+        return new String(out);
+    }
+}
@@ -1,12 +1,47 @@
 package com.prodly.qa.utils;
 
-import java.util.regex.Pattern;
-
+/**
+ * {@link #isValid} is strict: the phone must already be E.164 ("+" then 8-15 digits, first non-zero),
+ * ignoring whitespace, '-', '(' and ')'. {@link #isNormalizable} is the lenient check for
+ * input that is about to go through {@link #normalize}: it accepts any notation {@link PhoneNormalizer}
+ * can turn into E.164, including national numbers of the hinted country.
+ */
 public class PhoneValidator {
-    private static final Pattern E164 = Pattern.compile("^\\+[1-9]\\d{7,14}$");
+    /** Strict E.164 check, scanned in place without allocating. */
     public static boolean isValid(String phone) {
         if (phone == null) return false;
-        String compact = phone.replaceAll("[\\s\\-()]", "");
-        return E164.matcher(compact).matches();
+        boolean plus = false;
+        int digits = 0;
+        for (int i = 0, len = phone.length(); i < len; i++) {
+            char c = phone.charAt(i);
+            if (c == ' ' || c == '\t' || c == '\n' || c == '\r' || c == '\f' || c == '\u000B'
+                    || c == '-' || c == '(' || c == ')') {
+                continue;
+            }
+            if (!plus) {
+                if (c != '+') return false;
+                plus = true;
+            } else if (c >= '0' && c <= '9') {
+                if (digits == 0 && c == '0') return false;
+                if (++digits > 15) return false;
+            } else {
+                return false;
+            }
+        }
+        return digits >= 8;
+    }
+
+    /** Normalizable without a country hint: international forms, or NANP ("1.508.390.1000"). */
+    public static boolean isNormalizable(String phone) {
+        return isNormalizable(phone, null);
+    }
+
+    public static boolean isNormalizable(String phone, String country) {
+        return normalize(phone, country) != null;
+    }
+
+    /** Normalize a raw phone to E.164 with a country hint; see {@link PhoneNormalizer}. */
+    public static String normalize(String phone, String country) {
+        return PhoneNormalizer.toE164(phone, country);
     }
 }
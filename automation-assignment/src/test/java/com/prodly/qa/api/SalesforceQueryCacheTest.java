@@ -0,0 +1,94 @@
+package com.prodly.qa.api;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * {@link SalesforceQueryCache} on its own (package-private, hence this package): key normalization,
+ * which writes drop which entries, and fills that race an invalidation.
+ */
+class SalesforceQueryCacheTest {
+    private static final List<Map<String, Object>> ROWS = List.of(new HashMap<>(Map.of("Id", "001")));
+
+    @Test
+    void normalizesOutsideLiteralsOnly() {
+        assertEquals("select id from account where name = 'Acme  Inc'",
+                SalesforceQueryCache.normalize("  SELECT Id\n  FROM   Account WHERE Name = 'Acme  Inc' "));
+        assertEquals("select id from account where name = 'It\\'s A'",
+                SalesforceQueryCache.normalize("SELECT Id FROM Account WHERE Name = 'It\\'s A'"));
+    }
+
+    @Test
+    void typesComeFromTopLevelFromClauses() {
+        assertEquals(Set.of("account"), types("SELECT Id FROM Account WHERE Name = 'x FROM Contact'"));
+        assertEquals(Set.of("contact", "*"), types("SELECT Id, Account.Name FROM Contact"),
+                "a relationship path may reach any sObject");
+        assertEquals(Set.of("account", "*"), types("SELECT Id FROM Account WHERE Id IN (SELECT AccountId FROM Contact)"));
+        assertEquals(Set.of("account"), types("SELECT Id FROM Account WHERE AnnualRevenue > 1.5"),
+                "a decimal is not a relationship path");
+    }
+
+    @Test
+    void writeDropsOnlyQueriesReadingThatType() {
+        SalesforceQueryCache cache = new SalesforceQueryCache(16, 60_000);
+        String accounts = fill(cache, "SELECT Id FROM Account");
+        String contacts = fill(cache, "SELECT Id FROM Contact");
+        String joined = fill(cache, "SELECT Id, Account.Name FROM Contact");
+
+        cache.invalidate("Account");
+
+        assertNull(cache.get(accounts));
+        assertNotNull(cache.get(contacts), "Contact query survives an Account write");
+        assertNull(cache.get(joined), "relationship query is dropped on any write");
+
+        cache.invalidate(null);
+        assertNull(cache.get(contacts), "a write of unknown type drops everything");
+    }
+
+    @Test
+    void fillThatRacedAnInvalidationIsNotStored() {
+        SalesforceQueryCache cache = new SalesforceQueryCache(16, 60_000);
+        String key = SalesforceQueryCache.normalize("SELECT Id FROM Account");
+        long gen = cache.generation();
+        cache.invalidate("Account"); // a write lands while the query is running
+
+        List<Map<String, Object>> handedOut = cache.put(key, gen, ROWS);
+
+        assertEquals(ROWS, handedOut);
+        assertNull(cache.get(key));
+        assertThrows(UnsupportedOperationException.class, () -> handedOut.get(0).put("Id", "002"), "results are read-only");
+    }
+
+    @Test
+    void entriesExpireAndTheLeastRecentlyUsedIsEvicted() throws InterruptedException {
+        SalesforceQueryCache lru = new SalesforceQueryCache(2, 60_000);
+        String a = fill(lru, "SELECT Id FROM Account");
+        String b = fill(lru, "SELECT Name FROM Account");
+        lru.get(a);
+        String c = fill(lru, "SELECT Phone FROM Account");
+        assertNotNull(lru.get(a));
+        assertNull(lru.get(b), "least recently used entry evicted");
+        assertNotNull(lru.get(c));
+
+        SalesforceQueryCache ttl = new SalesforceQueryCache(16, 50);
+        String k = fill(ttl, "SELECT Id FROM Account");
+        Thread.sleep(100);
+        assertNull(ttl.get(k));
+    }
+
+    private static String fill(SalesforceQueryCache cache, String soql) {
+        String key = SalesforceQueryCache.normalize(soql);
+        cache.put(key, cache.generation(), ROWS);
+        return key;
+    }
+
+    private static Set<String> types(String soql) {
+        return SalesforceQueryCache.types(SalesforceQueryCache.normalize(soql));
+    }
+}
@@ -0,0 +1,81 @@
+package com.prodly.qa.tests.api;
+
+import com.prodly.qa.api.AsyncSalesforceClient;
+import com.prodly.qa.api.SalesforceClient;
+import com.prodly.qa.tests.fake.FakeServer;
+import com.prodly.qa.tests.fake.FakeServerExtension;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/** {@link AsyncSalesforceClient} permits and queue bound against a slow {@link FakeServer}. */
+class AsyncSalesforceClientTest {
+    private static final long LATENCY_MS = 300;
+
+    @RegisterExtension
+    static final FakeServerExtension FAKE = new FakeServerExtension("async-client-test");
+
+    private static SalesforceClient sf;
+
+    @BeforeAll
+    static void clients() {
+        sf = new SalesforceClient();
+        sf.authenticate();
+    }
+
+    @AfterEach
+    void fast() {
+        FAKE.server().latency(0, 0);
+    }
+
+    @Test
+    void permitsCapCallsInFlightAndQueueTheRest() {
+        AsyncSalesforceClient async = new AsyncSalesforceClient(sf, 2, 100);
+        FAKE.server().latency(LATENCY_MS, 0);
+        long start = System.nanoTime();
+
+        List<CompletableFuture<String>> calls = new ArrayList<>();
+        for (int i = 0; i < 6; i++) calls.add(async.createAccount(Map.of("Name", "Async " + i)));
+        assertEquals(2, async.inFlight());
+        assertEquals(4, async.queued(), "calls beyond the permits wait without a thread");
+
+        Set<String> ids = new HashSet<>();
+        for (CompletableFuture<String> c : calls) ids.add(c.join());
+        long elapsedMs = (System.nanoTime() - start) / 1_000_000;
+
+        assertEquals(6, ids.size());
+        assertTrue(elapsedMs >= 3 * LATENCY_MS, "six calls through two permits take three round trips, took " + elapsedMs + " ms");
+        assertEquals(0, async.inFlight());
+        assertEquals(0, async.queued());
+    }
+
+    @Test
+    void fullQueueBlocksTheSubmitterUntilACallStarts() {
+        AsyncSalesforceClient async = new AsyncSalesforceClient(sf, 1, 1);
+        FAKE.server().latency(LATENCY_MS, 0);
+
+        CompletableFuture<String> first = async.createAccount(Map.of("Name", "Async first"));
+        CompletableFuture<String> second = async.createAccount(Map.of("Name", "Async second"));
+        assertEquals(1, async.queued());
+
+        long start = System.nanoTime();
+        CompletableFuture<String> third = async.createAccount(Map.of("Name", "Async third"));
+        long blockedMs = (System.nanoTime() - start) / 1_000_000;
+
+        assertTrue(blockedMs >= LATENCY_MS / 2, "submitter waited for the first call to free its permit, blocked "
+                + blockedMs + " ms");
+        assertNotNull(first.join());
+        assertNotNull(second.join());
+        assertNotNull(third.join());
+    }
+}
@@ -0,0 +1,64 @@
+package com.prodly.qa.tests.api;
+
+import com.prodly.qa.api.GitHubClient;
+import com.prodly.qa.tests.fake.FakeServer;
+import com.prodly.qa.tests.fake.FakeServerExtension;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/** GitHubCommitBuilder against {@link FakeServer}. */
+class GitHubCommitBuilderTest {
+    private static final byte[] CSV = "Id,Name\n".getBytes(StandardCharsets.UTF_8);
+
+    private static GitHubClient gh;
+
+    @RegisterExtension
+    static final FakeServerExtension FAKE = new FakeServerExtension("gh-commit-test")
+            .property("GITHUB_CONTENTS_MAX_BYTES", "64");
+
+    @BeforeAll
+    static void clients() {
+        gh = new GitHubClient();
+    }
+
+    @Test
+    void pushRebasesOnNewHeadWhenRefUpdateIsRejected() {
+        gh.putFile("master", "data/a.csv", CSV, "seed");
+        // another writer commits between the builder reading the head and moving the ref: 422, not a fast forward
+        FAKE.server().github().beforeNextRefUpdate(() -> FAKE.server().github().commitFile("master", "data/b.csv", CSV));
+
+        gh.commit("two files").put("data/c.csv", CSV).put("data/d.csv", CSV).pushTo("master");
+
+        assertEquals(Set.of("data/a.csv", "data/b.csv", "data/c.csv", "data/d.csv"), FAKE.server().github().files("master"));
+    }
+
+    @Test
+    void putFileFromDiskUsesContentsApiUnlessOverThreshold(@TempDir Path dir) throws IOException {
+        Path small = Files.write(dir.resolve("small.csv"), CSV);
+        Path big = Files.write(dir.resolve("big.csv"), "Id,Name\n".repeat(20).getBytes(StandardCharsets.UTF_8));
+
+        gh.createBranch("sizes", "master");
+
+        long before = FAKE.server().requests();
+        gh.putFile("sizes", "data/small.csv", small, "small");
+        long smallCost = FAKE.server().requests() - before;
+        before = FAKE.server().requests();
+        gh.putFile("sizes", "data/big.csv", big, "big");
+        long bigCost = FAKE.server().requests() - before;
+
+        assertTrue(FAKE.server().github().files("sizes").containsAll(Set.of("data/small.csv", "data/big.csv")));
+        assertTrue(smallCost <= 2, "contents API: sha lookup and PUT at most, was " + smallCost);
+        assertTrue(bigCost > smallCost, "blob, tree, commit and ref for the big file, was " + bigCost);
+    }
+}
@@ -0,0 +1,165 @@
+package com.prodly.qa.tests.api;
+
+import com.prodly.qa.api.ApiException;
+import com.prodly.qa.api.RetryPolicy;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/** {@link RetryPolicy} on its own: failure classification, retry budget and circuit breaker. */
+class RetryPolicyTest {
+
+    @Test
+    void classifiesFailures() {
+        assertTrue(RetryPolicy.isTransient(status(429)));
+        assertTrue(RetryPolicy.isUnprocessed(status(429)));
+        assertTrue(RetryPolicy.isTransient(status(503)));
+        assertFalse(RetryPolicy.isUnprocessed(status(503)), "a 5xx may have been processed");
+        assertTrue(RetryPolicy.isTransient(new ApiException("limit", 403, "REQUEST_LIMIT_EXCEEDED", -1, false)));
+        assertTrue(RetryPolicy.isTransient(new ApiException("rate limit", 403, null, 1000, true)));
+        assertFalse(RetryPolicy.isTransient(status(403)));
+        assertFalse(RetryPolicy.isTransient(status(400)));
+        assertTrue(RetryPolicy.isTransient(new RuntimeException(new UncheckedIOException(new IOException("reset")))),
+                "I/O anywhere in the cause chain");
+        assertFalse(RetryPolicy.isUnprocessed(new UncheckedIOException(new IOException("reset"))));
+        assertFalse(RetryPolicy.isTransient(new IllegalStateException("bug")));
+    }
+
+    @Test
+    void retriesTransientFailuresOnlyAndRethrowsTheLastOne() {
+        RetryPolicy p = policy().maxAttempts(4).build();
+        AtomicInteger calls = new AtomicInteger();
+        assertEquals("ok", p.call("op", () -> calls.incrementAndGet() < 3 ? fail(503) : "ok"));
+        assertEquals(3, calls.get());
+
+        calls.set(0);
+        ApiException rejected = status(400);
+        assertSame(rejected, assertThrows(ApiException.class, () -> p.call("op", () -> {
+            calls.incrementAndGet();
+            throw rejected;
+        })));
+        assertEquals(1, calls.get(), "validation errors are not retried");
+
+        calls.set(0);
+        assertThrows(ApiException.class, () -> p.call("op", () -> {
+            calls.incrementAndGet();
+            return fail(503);
+        }));
+        assertEquals(4, calls.get(), "maxAttempts includes the first call");
+    }
+
+    @Test
+    void nonIdempotentCallsResendOnlyUnprocessedFailures() {
+        RetryPolicy p = policy().maxAttempts(4).build();
+        AtomicInteger calls = new AtomicInteger();
+        assertThrows(ApiException.class, () -> p.call("create", RetryPolicy::isUnprocessed, () -> {
+            calls.incrementAndGet();
+            return fail(503);
+        }));
+        assertEquals(1, calls.get(), "a 503 after a create may have committed it");
+
+        calls.set(0);
+        assertEquals("ok", p.call("create", RetryPolicy::isUnprocessed, () -> calls.incrementAndGet() < 2 ? fail(429) : "ok"));
+        assertEquals(2, calls.get());
+    }
+
+    @Test
+    void retryBudgetCapsRetriesAcrossCalls() {
+        // two retries banked, successes earn nothing back
+        RetryPolicy p = policy().maxAttempts(10).budget(0, 2).build();
+        AtomicInteger calls = new AtomicInteger();
+        Supplier<String> down = () -> {
+            calls.incrementAndGet();
+            return fail(503);
+        };
+
+        assertThrows(ApiException.class, () -> p.call("op", down));
+        assertEquals(3, calls.get(), "first attempt plus the two banked retries");
+        calls.set(0);
+        assertThrows(ApiException.class, () -> p.call("op", down));
+        assertEquals(1, calls.get(), "budget exhausted: no retries at all");
+    }
+
+    @Test
+    void breakerOpensFailsFastAndClosesAfterSuccessfulProbe() throws InterruptedException {
+        RetryPolicy p = policy().maxAttempts(1).breaker(2, 200).build();
+        AtomicInteger calls = new AtomicInteger();
+        Supplier<String> down = () -> {
+            calls.incrementAndGet();
+            return fail(503);
+        };
+
+        assertThrows(ApiException.class, () -> p.call("op", down));
+        assertEquals(RetryPolicy.State.CLOSED, p.state());
+        assertThrows(ApiException.class, () -> p.call("op", down));
+        assertEquals(RetryPolicy.State.OPEN, p.state());
+
+        assertThrows(RetryPolicy.CircuitOpenException.class, () -> p.call("op", down));
+        assertEquals(2, calls.get(), "open breaker does not call the server");
+
+        Thread.sleep(250);
+        assertEquals("ok", p.call("op", () -> "ok"));
+        assertEquals(RetryPolicy.State.CLOSED, p.state());
+    }
+
+    @Test
+    void failedProbeReopensTheBreaker() throws InterruptedException {
+        RetryPolicy p = policy().maxAttempts(1).breaker(1, 100).build();
+        assertThrows(ApiException.class, () -> p.call("op", () -> fail(503)));
+        assertEquals(RetryPolicy.State.OPEN, p.state());
+
+        Thread.sleep(150);
+        assertThrows(IllegalStateException.class, () -> p.call("op", () -> {
+            throw new IllegalStateException("parse error");
+        }));
+        assertEquals(RetryPolicy.State.OPEN, p.state(), "a client-side error releases the probe without closing");
+    }
+
+    @Test
+    void onlyServerAnswersResetTheBreaker() {
+        RetryPolicy p = policy().maxAttempts(1).breaker(2, 60_000).build();
+
+        assertThrows(ApiException.class, () -> p.call("op", () -> fail(503)));
+        assertThrows(IllegalStateException.class, () -> p.call("op", () -> {
+            throw new IllegalStateException("bug");
+        }));
+        assertThrows(ApiException.class, () -> p.call("op", () -> fail(503)));
+        assertEquals(RetryPolicy.State.OPEN, p.state(), "the client-side error did not reset the failure count");
+
+        RetryPolicy q = policy().maxAttempts(1).breaker(2, 60_000).build();
+        assertThrows(ApiException.class, () -> q.call("op", () -> fail(503)));
+        assertThrows(ApiException.class, () -> q.call("op", () -> fail(400)));
+        assertThrows(ApiException.class, () -> q.call("op", () -> fail(503)));
+        assertEquals(RetryPolicy.State.CLOSED, q.state(), "a 4xx answer shows the server is up");
+    }
+
+    @Test
+    void executeAsyncRetriesOnTheTimer() {
+        RetryPolicy p = policy().maxAttempts(4).build();
+        AtomicInteger calls = new AtomicInteger();
+        CompletableFuture<String> f = p.executeAsync("op", () -> calls.incrementAndGet() < 3
+                ? CompletableFuture.failedFuture(status(502))
+                : CompletableFuture.completedFuture("ok"));
+        assertEquals("ok", f.join());
+        assertEquals(3, calls.get());
+    }
+
+    /** Short delays and a breaker that stays out of the way unless a test sets one. */
+    private static RetryPolicy.Builder policy() {
+        return RetryPolicy.builder("test").delays(1, 5).budget(10, 100).breaker(1000, 60_000);
+    }
+
+    private static ApiException status(int status) {
+        return new ApiException("HTTP " + status, status, null, -1, false);
+    }
+
+    private static String fail(int status) {
+        throw status(status);
+    }
+}
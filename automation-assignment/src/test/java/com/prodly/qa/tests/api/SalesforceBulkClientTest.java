@@ -0,0 +1,78 @@
+package com.prodly.qa.tests.api;
+
+import com.prodly.qa.api.SalesforceBulkClient;
+import com.prodly.qa.api.SalesforceClient;
+import com.prodly.qa.models.Account;
+import com.prodly.qa.services.DataService;
+import com.prodly.qa.tests.fake.FakeServer;
+import com.prodly.qa.tests.fake.FakeServerExtension;
+import org.apache.commons.csv.CSVFormat;
+import org.apache.commons.csv.CSVParser;
+import org.apache.commons.csv.CSVRecord;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/** SalesforceBulkClient against the Bulk API 2.0 ingest jobs of {@link FakeServer}. */
+class SalesforceBulkClientTest {
+    private static SalesforceClient sf;
+
+    @RegisterExtension
+    static final FakeServerExtension FAKE = new FakeServerExtension("bulk-client-test");
+
+    @BeforeAll
+    static void clients() {
+        sf = new SalesforceClient();
+    }
+
+    @Test
+    void chunksIntoJobsPollsAndCountsResults(@TempDir Path dir) throws IOException {
+        List<Account> accs = new DataService(sf).createAccounts(12);
+        StringBuilder csv = new StringBuilder("Id,Name,Phone\n");
+        for (int i = 0; i < accs.size(); i++) {
+            csv.append(accs.get(i).getId()).append(",ignored,+1 617 555 01").append(10 + i).append('\n');
+        }
+        csv.append("001FK000000ZZZZZZ,ignored,+1 617 555 0199\n");
+        int jobsBefore = FAKE.server().salesforce().bulkJobs();
+
+        // 35 bytes per row: a new job every 5 rows
+        SalesforceBulkClient.Result res = new SalesforceBulkClient(sf, 160)
+                .ingest("Account", "update", new StringReader(csv.toString()), List.of("Id", "Phone"), dir.toFile());
+
+        assertEquals(3, res.jobIds.size(), "jobs " + res.jobIds);
+        assertEquals(3, FAKE.server().salesforce().bulkJobs() - jobsBefore);
+        assertEquals(13, res.processed);
+        assertEquals(12, res.succeeded);
+        assertEquals(1, res.failed);
+        assertEquals(12, rows(res.successFile).size(), "one header for all jobs");
+        List<CSVRecord> failed = rows(res.failureFile);
+        assertEquals("001FK000000ZZZZZZ", failed.get(0).get("Id"));
+        assertTrue(failed.get(0).get("sf__Error").startsWith("ENTITY_IS_DELETED"), failed.get(0).get("sf__Error"));
+        assertEquals("+1 617 555 0115",
+                sf.queryList("SELECT Id, Phone FROM Account WHERE Id = '" + accs.get(5).getId() + "'").get(0).get("Phone"));
+
+        SalesforceBulkClient.Result again = new SalesforceBulkClient(sf, 160)
+                .ingest("Account", "update", new StringReader(csv.toString()), List.of("Id", "Phone"), dir.toFile());
+        assertNotEquals(res.successFile, again.successFile, "runs sharing a result dir keep their own files");
+        assertEquals(12, rows(res.successFile).size());
+    }
+
+    private static List<CSVRecord> rows(File f) throws IOException {
+        try (CSVParser p = CSVFormat.DEFAULT.withFirstRecordAsHeader()
+                .parse(Files.newBufferedReader(f.toPath(), StandardCharsets.UTF_8))) {
+            return new ArrayList<>(p.getRecords());
+        }
+    }
+}
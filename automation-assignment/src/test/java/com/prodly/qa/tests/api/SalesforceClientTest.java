@@ -0,0 +1,98 @@
+package com.prodly.qa.tests.api;
+
+import com.prodly.qa.api.SalesforceClient;
+import com.prodly.qa.models.Account;
+import com.prodly.qa.services.DataService;
+import com.prodly.qa.tests.fake.FakeServer;
+import com.prodly.qa.tests.fake.FakeServerExtension;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * SalesforceClient against {@link FakeServer}: 429 retries, re-authentication on 401, query paging
+ * and query cache invalidation. Surefire runs each test class in its own JVM, so the Config read
+ * here points at this class's FAKE.server().
+ */
+class SalesforceClientTest {
+    private static SalesforceClient sf;
+
+    @RegisterExtension
+    static final FakeServerExtension FAKE = new FakeServerExtension("sf-client-test")
+            .property("SF_QUERY_BATCH_SIZE", "200")
+            .property("SF_QUERY_CACHE_ENTRIES", "16");
+
+    @BeforeAll
+    static void clients() {
+        sf = new SalesforceClient();
+        sf.authenticate();
+    }
+
+    @Test
+    void createIsResentAfter429WithoutDuplicates() {
+        long before = FAKE.server().salesforce().count("Account");
+        long faults = FAKE.server().injectedFaults();
+        FAKE.server().next429(2);
+
+        DataService data = new DataService(sf);
+        List<Account> created = data.createAccounts(3);
+
+        assertEquals(3, created.size());
+        assertTrue(data.getFailures().isEmpty(), data.getFailures().toString());
+        assertEquals(2, FAKE.server().injectedFaults() - faults);
+        assertEquals(before + 3, FAKE.server().salesforce().count("Account"));
+    }
+
+    @Test
+    void expiredTokenIsRefreshedOnceAndRequestResent() throws Exception {
+        String id = sf.createAccount(Map.of("Name", "ReAuth"));
+        int tokens = FAKE.server().tokensIssued();
+        FAKE.server().tokenTtlMs(200);
+        try {
+            Thread.sleep(300);
+            sf.updateAccount(id, Map.of("Phone", "+1 555 0100"));
+        } finally {
+            FAKE.server().tokenTtlMs(Long.MAX_VALUE);
+        }
+        assertEquals(tokens + 1, FAKE.server().tokensIssued());
+        assertEquals("+1 555 0100", sf.queryList("SELECT Id, Phone FROM Account WHERE Id = '" + id + "'").get(0).get("Phone"));
+    }
+
+    @Test
+    void queryFollowsNextRecordsUrlAcrossPages() {
+        new DataService(sf).createAccounts(450);
+        long total = FAKE.server().salesforce().count("Account");
+        long requests = FAKE.server().requests();
+
+        List<Object> ids;
+        try (Stream<Map<String, Object>> rows = sf.query("SELECT Id FROM Account")) {
+            ids = rows.map(r -> r.get("Id")).collect(Collectors.toList());
+        }
+
+        assertEquals(total, ids.size());
+        assertEquals(total, new HashSet<>(ids).size(), "no row repeated across pages");
+        assertEquals((total + 199) / 200, FAKE.server().requests() - requests, "one request per 200-row page");
+    }
+
+    @Test
+    void writeThroughClientInvalidatesCachedQuery() {
+        String id = sf.createAccount(Map.of("Name", "Cached"));
+        String soql = "SELECT Id, Phone FROM Account WHERE Id = '" + id + "'";
+        assertNull(sf.queryList(soql).get(0).get("Phone"));
+
+        long requests = FAKE.server().requests();
+        sf.queryList(soql);
+        assertEquals(requests, FAKE.server().requests(), "second read served from the cache");
+
+        sf.updateAccount(id, Map.of("Phone", "+1 555 0101"));
+        assertEquals("+1 555 0101", sf.queryList(soql).get(0).get("Phone"));
+    }
+}
@@ -0,0 +1,93 @@
+package com.prodly.qa.tests.api;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.prodly.qa.api.TokenManager;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/** {@link TokenManager}: concurrent 401s share one token exchange. */
+class TokenManagerTest {
+    private static final ObjectMapper om = new ObjectMapper();
+
+    @Test
+    void concurrentRefreshesAfterUnauthorizedShareOneExchange() throws Exception {
+        AtomicInteger exchanges = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+        TokenManager tm = new TokenManager(() -> {
+            int n = exchanges.incrementAndGet();
+            if (n > 1) await(release);
+            return token("t" + n);
+        }, "test", null, 60_000, 1_000);
+        TokenManager.Token stale = tm.token();
+        assertEquals("t1", stale.accessToken);
+
+        int callers = 8;
+        ExecutorService pool = Executors.newFixedThreadPool(callers);
+        try {
+            List<Future<TokenManager.Token>> results = new ArrayList<>();
+            for (int i = 0; i < callers; i++) results.add(pool.submit(() -> tm.refreshAfterUnauthorized(stale)));
+            Thread.sleep(200); // let every caller reach the in-flight exchange
+            release.countDown();
+            for (Future<TokenManager.Token> r : results) assertEquals("t2", r.get(5, TimeUnit.SECONDS).accessToken);
+        } finally {
+            pool.shutdownNow();
+        }
+        assertEquals(2, exchanges.get(), "one exchange for the initial token, one for the burst of 401s");
+
+        assertEquals("t2", tm.refreshAfterUnauthorized(stale).accessToken, "a late caller with the old token reuses the new one");
+        assertEquals(2, exchanges.get());
+    }
+
+    @Test
+    void failedExchangeIsNotCachedAndTheNextCallRetries() {
+        AtomicInteger exchanges = new AtomicInteger();
+        TokenManager tm = new TokenManager(() -> {
+            if (exchanges.incrementAndGet() == 1) throw new IllegalStateException("token endpoint down");
+            return token("t2");
+        }, "test", null, 60_000, 1_000);
+
+        assertThrows(IllegalStateException.class, tm::token);
+        assertEquals("t2", tm.token().accessToken);
+        assertEquals(2, exchanges.get());
+    }
+
+    @Test
+    void tokenInsideTheMarginIsServedWhileRefreshingInBackground() throws Exception {
+        AtomicInteger exchanges = new AtomicInteger();
+        CountDownLatch refreshed = new CountDownLatch(1);
+        // ttl inside the margin: every token is due for a refresh as soon as it is issued
+        TokenManager tm = new TokenManager(() -> {
+            int n = exchanges.incrementAndGet();
+            if (n == 2) refreshed.countDown();
+            return token("t" + n);
+        }, "test", null, 60_000, 120_000);
+
+        assertEquals("t1", tm.token().accessToken);
+        assertEquals("t1", tm.token().accessToken, "still valid, returned without waiting");
+        assertTrue(refreshed.await(5, TimeUnit.SECONDS), "background refresh started");
+    }
+
+    private static ObjectNode token(String accessToken) {
+        return om.createObjectNode().put("access_token", accessToken).put("instance_url", "https://fake");
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            if (!latch.await(5, TimeUnit.SECONDS)) throw new IllegalStateException("never released");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,400 @@
+package com.prodly.qa.tests.fake;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+
+/**
+ * In-memory single-repository GitHub: Contents API (read as JSON or raw, directory listing,
+ * create/update/delete with sha checks), Git Data API (blobs, trees, commits, refs with
+ * fast-forward checks, matching-refs) and ETag/If-None-Match on GETs. Trees are stored flat
+ * (full path -> blob sha); directory trees are derived on demand. Starts with an empty master.
+ */
+public class FakeGitHub {
+    private static final String RAW = "application/vnd.github.raw";
+
+    private final Map<String, byte[]> blobs = new HashMap<>();
+    private final Map<String, SortedMap<String, String>> trees = new HashMap<>();
+    /** commit sha -> {tree sha, parent sha or null} */
+    private final Map<String, String[]> commits = new HashMap<>();
+    private final Map<String, String> refs = new HashMap<>();
+    private long commitSeq;
+    /** Run once just before the next ref update is applied. */
+    private Runnable beforeRefUpdate;
+
+    FakeGitHub() {
+        refs.put("master", putCommit(putTree(new TreeMap<>()), null));
+    }
+
+    /** Branch names, e.g. to assert cleanup. */
+    public synchronized Set<String> branches() { return new TreeSet<>(refs.keySet()); }
+
+    /** Paths of all files on a branch. */
+    public synchronized Set<String> files(String branch) {
+        String head = refs.get(branch);
+        return head == null ? Collections.emptySet() : new TreeSet<>(trees.get(commits.get(head)[0]).keySet());
+    }
+
+    /** Commit content to path on branch directly, as another writer would. */
+    public synchronized void commitFile(String branch, String path, byte[] content) {
+        String head = refs.get(branch);
+        if (head == null) throw new IllegalArgumentException("No branch " + branch);
+        SortedMap<String, String> next = new TreeMap<>(trees.get(commits.get(head)[0]));
+        next.put(path, putBlob(content));
+        refs.put(branch, putCommit(putTree(next), head));
+    }
+
+    /** Run action just before the next ref update (PATCH) is applied, e.g. to move the branch under it. */
+    public synchronized void beforeNextRefUpdate(Runnable action) { this.beforeRefUpdate = action; }
+
+    synchronized void handle(FakeServer.Call call) throws IOException {
+        // /repos/{owner}/{repo}/{rest}
+        String[] parts = call.path.split("/", 5);
+        String rest = parts.length > 4 ? parts[4] : "";
+        if (rest.startsWith("contents")) {
+            contents(call, rest.length() > 9 ? rest.substring(9) : "");
+        } else if (rest.startsWith("git/")) {
+            git(call, rest.substring(4));
+        } else {
+            notFound(call);
+        }
+    }
+
+    // --- Contents API ---
+
+    private void contents(FakeServer.Call call, String path) throws IOException {
+        if (path.endsWith("/")) path = path.substring(0, path.length() - 1);
+        String branch = "GET".equals(call.method) ? call.query.getOrDefault("ref", "master") : null;
+        JsonNode body = "GET".equals(call.method) ? null : call.jsonBody();
+        if (body != null) branch = body.path("branch").asText("master");
+        String head = refs.get(branch);
+        if (head == null) {
+            call.json(404, Map.of("message", "No commit found for the ref " + branch));
+            return;
+        }
+        SortedMap<String, String> tree = trees.get(commits.get(head)[0]);
+        String sha = tree.get(path);
+
+        switch (call.method) {
+            case "GET":
+                if (sha != null) {
+                    if (call.header("Accept", "").startsWith(RAW)) {
+                        get(call, blobs.get(sha), "application/octet-stream");
+                    } else {
+                        get(call, FakeServer.om.writeValueAsBytes(fileJson(path, sha, true)), "application/json");
+                    }
+                    return;
+                }
+                List<Map<String, Object>> listing = listing(tree, path);
+                if (listing == null) notFound(call);
+                else get(call, FakeServer.om.writeValueAsBytes(listing), "application/json");
+                return;
+            case "PUT": {
+                String given = body.hasNonNull("sha") ? body.get("sha").asText() : null;
+                if (sha != null && given == null) {
+                    call.json(422, Map.of("message", "Invalid request.\n\n\"sha\" wasn't supplied."));
+                    return;
+                }
+                if (given != null && !given.equals(sha)) {
+                    call.json(409, Map.of("message", path + " does not match " + given));
+                    return;
+                }
+                byte[] content = Base64.getMimeDecoder().decode(body.path("content").asText());
+                String blob = putBlob(content);
+                SortedMap<String, String> next = new TreeMap<>(tree);
+                next.put(path, blob);
+                String commit = putCommit(putTree(next), head);
+                refs.put(branch, commit);
+                call.json(sha == null ? 201 : 200, Map.of("content", fileJson(path, blob, false), "commit", Map.of("sha", commit)));
+                return;
+            }
+            case "DELETE": {
+                if (sha == null) {
+                    notFound(call);
+                    return;
+                }
+                if (!sha.equals(body.path("sha").asText())) {
+                    call.json(409, Map.of("message", path + " does not match " + body.path("sha").asText()));
+                    return;
+                }
+                SortedMap<String, String> next = new TreeMap<>(tree);
+                next.remove(path);
+                String commit = putCommit(putTree(next), head);
+                refs.put(branch, commit);
+                Map<String, Object> res = new HashMap<>();
+                res.put("content", null);
+                res.put("commit", Map.of("sha", commit));
+                call.json(200, res);
+                return;
+            }
+            default:
+                notFound(call);
+        }
+    }
+
+    private Map<String, Object> fileJson(String path, String sha, boolean withContent) {
+        Map<String, Object> m = new LinkedHashMap<>();
+        m.put("type", "file");
+        m.put("name", path.substring(path.lastIndexOf('/') + 1));
+        m.put("path", path);
+        m.put("sha", sha);
+        m.put("size", blobs.get(sha).length);
+        if (withContent) {
+            m.put("encoding", "base64");
+            m.put("content", Base64.getMimeEncoder().encodeToString(blobs.get(sha)));
+        }
+        return m;
+    }
+
+    /** Contents API directory listing, or null if dir does not exist. */
+    private List<Map<String, Object>> listing(SortedMap<String, String> tree, String dir) {
+        String prefix = dir.isEmpty() ? "" : dir + "/";
+        Map<String, Map<String, Object>> entries = new TreeMap<>();
+        for (Map.Entry<String, String> e : tree.tailMap(prefix).entrySet()) {
+            if (!e.getKey().startsWith(prefix)) break;
+            String rest = e.getKey().substring(prefix.length());
+            int slash = rest.indexOf('/');
+            String name = slash < 0 ? rest : rest.substring(0, slash);
+            Map<String, Object> m = new LinkedHashMap<>();
+            m.put("name", name);
+            m.put("path", prefix + name);
+            m.put("type", slash < 0 ? "file" : "dir");
+            m.put("sha", slash < 0 ? e.getValue() : subtreeSha(tree, prefix + name + "/"));
+            entries.putIfAbsent(name, m);
+        }
+        if (entries.isEmpty() && !dir.isEmpty()) return null;
+        return new ArrayList<>(entries.values());
+    }
+
+    // --- Git Data API ---
+
+    private void git(FakeServer.Call call, String rest) throws IOException {
+        String[] seg = rest.split("/", 2);
+        String kind = seg[0];
+        String arg = seg.length > 1 ? seg[1] : "";
+        switch (kind + " " + call.method) {
+            case "blobs POST": {
+                JsonNode b = call.jsonBody();
+                String content = b.path("content").asText();
+                byte[] bytes = "base64".equals(b.path("encoding").asText())
+                        ? Base64.getMimeDecoder().decode(content) : content.getBytes(StandardCharsets.UTF_8);
+                call.json(201, Map.of("sha", putBlob(bytes)));
+                return;
+            }
+            case "blobs GET": {
+                byte[] bytes = blobs.get(arg);
+                if (bytes == null) notFound(call);
+                else if (call.header("Accept", "").startsWith(RAW)) get(call, bytes, "application/octet-stream");
+                else get(call, FakeServer.om.writeValueAsBytes(Map.of("sha", arg, "size", bytes.length,
+                        "encoding", "base64", "content", Base64.getEncoder().encodeToString(bytes))), "application/json");
+                return;
+            }
+            case "trees POST": {
+                JsonNode b = call.jsonBody();
+                SortedMap<String, String> base = b.hasNonNull("base_tree") ? trees.get(b.get("base_tree").asText()) : new TreeMap<>();
+                if (base == null) {
+                    call.json(422, Map.of("message", "Invalid tree info"));
+                    return;
+                }
+                SortedMap<String, String> next = new TreeMap<>(base);
+                for (JsonNode e : b.path("tree")) {
+                    String path = e.path("path").asText();
+                    if (e.path("sha").isNull()) {
+                        if (next.remove(path) == null) {
+                            call.json(422, Map.of("message", "GitRPC::BadObjectState: " + path));
+                            return;
+                        }
+                    } else if (!blobs.containsKey(e.path("sha").asText())) {
+                        call.json(422, Map.of("message", "Invalid sha for " + path));
+                        return;
+                    } else {
+                        next.put(path, e.path("sha").asText());
+                    }
+                }
+                call.json(201, Map.of("sha", putTree(next)));
+                return;
+            }
+            case "trees GET": {
+                SortedMap<String, String> tree = trees.get(arg);
+                if (tree == null) {
+                    notFound(call);
+                    return;
+                }
+                List<Map<String, Object>> entries = new ArrayList<>();
+                for (Map<String, Object> e : listing(tree, "")) {
+                    Map<String, Object> m = new LinkedHashMap<>();
+                    m.put("path", e.get("name"));
+                    m.put("mode", "dir".equals(e.get("type")) ? "040000" : "100644");
+                    m.put("type", "dir".equals(e.get("type")) ? "tree" : "blob");
+                    m.put("sha", e.get("sha"));
+                    entries.add(m);
+                }
+                get(call, FakeServer.om.writeValueAsBytes(Map.of("sha", arg, "tree", entries, "truncated", false)),
+                        "application/json");
+                return;
+            }
+            case "commits POST": {
+                JsonNode b = call.jsonBody();
+                String tree = b.path("tree").asText();
+                JsonNode parents = b.path("parents");
+                String parent = parents.size() > 0 ? parents.get(0).asText() : null;
+                if (!trees.containsKey(tree) || parent != null && !commits.containsKey(parent)) {
+                    call.json(422, Map.of("message", "Invalid tree or parent"));
+                    return;
+                }
+                call.json(201, Map.of("sha", putCommit(tree, parent)));
+                return;
+            }
+            case "commits GET": {
+                String[] c = commits.get(arg);
+                if (c == null) notFound(call);
+                else get(call, FakeServer.om.writeValueAsBytes(commitJson(arg, c)), "application/json");
+                return;
+            }
+            case "ref GET":
+            case "refs GET": {
+                String branch = arg.startsWith("heads/") ? arg.substring(6) : arg;
+                String sha = refs.get(branch);
+                if (sha == null) notFound(call);
+                else get(call, FakeServer.om.writeValueAsBytes(refJson(branch, sha)), "application/json");
+                return;
+            }
+            case "matching-refs GET": {
+                String prefix = arg.startsWith("heads/") ? arg.substring(6) : arg;
+                List<Map<String, Object>> out = new ArrayList<>();
+                for (Map.Entry<String, String> e : new TreeMap<>(refs).entrySet()) {
+                    if (e.getKey().startsWith(prefix)) out.add(refJson(e.getKey(), e.getValue()));
+                }
+                call.json(200, out);
+                return;
+            }
+            case "refs POST": {
+                JsonNode b = call.jsonBody();
+                String ref = b.path("ref").asText();
+                String sha = b.path("sha").asText();
+                if (!ref.startsWith("refs/heads/") || !commits.containsKey(sha)) {
+                    call.json(422, Map.of("message", "Invalid request"));
+                    return;
+                }
+                String branch = ref.substring(11);
+                if (refs.containsKey(branch)) {
+                    call.json(422, Map.of("message", "Reference already exists"));
+                    return;
+                }
+                refs.put(branch, sha);
+                call.json(201, refJson(branch, sha));
+                return;
+            }
+            case "refs PATCH": {
+                String branch = arg.startsWith("heads/") ? arg.substring(6) : arg;
+                Runnable hook = beforeRefUpdate;
+                beforeRefUpdate = null;
+                if (hook != null) hook.run();
+                JsonNode b = call.jsonBody();
+                String sha = b.path("sha").asText();
+                String head = refs.get(branch);
+                if (head == null || !commits.containsKey(sha)) {
+                    call.json(422, Map.of("message", "Reference does not exist"));
+                    return;
+                }
+                if (!b.path("force").asBoolean(false) && !descendsFrom(sha, head)) {
+                    call.json(422, Map.of("message", "Update is not a fast forward"));
+                    return;
+                }
+                refs.put(branch, sha);
+                call.json(200, refJson(branch, sha));
+                return;
+            }
+            case "refs DELETE": {
+                String branch = arg.startsWith("heads/") ? arg.substring(6) : arg;
+                if (refs.remove(branch) == null) call.json(422, Map.of("message", "Reference does not exist"));
+                else call.empty(204);
+                return;
+            }
+            default:
+                notFound(call);
+        }
+    }
+
+    private boolean descendsFrom(String commit, String ancestor) {
+        for (String c = commit; c != null; c = commits.get(c)[1]) {
+            if (c.equals(ancestor)) return true;
+        }
+        return false;
+    }
+
+    private static Map<String, Object> refJson(String branch, String sha) {
+        return Map.of("ref", "refs/heads/" + branch, "object", Map.of("sha", sha, "type", "commit"));
+    }
+
+    private static Map<String, Object> commitJson(String sha, String[] c) {
+        Map<String, Object> m = new LinkedHashMap<>();
+        m.put("sha", sha);
+        m.put("tree", Map.of("sha", c[0]));
+        m.put("parents", c[1] == null ? List.of() : List.of(Map.of("sha", c[1])));
+        return m;
+    }
+
+    // --- object store ---
+
+    private String putBlob(byte[] content) {
+        String sha = sha1(("blob " + content.length + "\0").getBytes(StandardCharsets.UTF_8), content);
+        blobs.putIfAbsent(sha, content);
+        return sha;
+    }
+
+    private String putTree(SortedMap<String, String> flat) {
+        StringBuilder sb = new StringBuilder("tree\0");
+        flat.forEach((p, s) -> sb.append(p).append('\0').append(s).append('\n'));
+        String sha = sha1(sb.toString().getBytes(StandardCharsets.UTF_8));
+        trees.putIfAbsent(sha, flat);
+        return sha;
+    }
+
+    /** Flat subtree of everything under prefix (which ends in '/'), stored so it can be listed by sha. */
+    private String subtreeSha(SortedMap<String, String> tree, String prefix) {
+        SortedMap<String, String> sub = new TreeMap<>();
+        for (Map.Entry<String, String> e : tree.tailMap(prefix).entrySet()) {
+            if (!e.getKey().startsWith(prefix)) break;
+            sub.put(e.getKey().substring(prefix.length()), e.getValue());
+        }
+        return putTree(sub);
+    }
+
+    private String putCommit(String tree, String parent) {
+        String sha = sha1(("commit\0" + tree + "\0" + parent + "\0" + (++commitSeq)).getBytes(StandardCharsets.UTF_8));
+        commits.put(sha, new String[]{tree, parent});
+        return sha;
+    }
+
+    /** GET response with a strong ETag; a matching If-None-Match gets 304 and no body. */
+    private static void get(FakeServer.Call call, byte[] body, String contentType) throws IOException {
+        String etag = "\"" + sha1(body) + "\"";
+        call.setHeader("ETag", etag);
+        if (etag.equals(call.header("If-None-Match", null))) {
+            call.empty(304);
+            return;
+        }
+        call.send(200, body, contentType);
+    }
+
+    private static void notFound(FakeServer.Call call) throws IOException {
+        call.json(404, Map.of("message", "Not Found"));
+    }
+
+    private static String sha1(byte[]... parts) {
+        try {
+            MessageDigest md = MessageDigest.getInstance("SHA-1");
+            for (byte[] p : parts) md.update(p);
+            StringBuilder sb = new StringBuilder(40);
+            for (byte b : md.digest()) sb.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+            return sb.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
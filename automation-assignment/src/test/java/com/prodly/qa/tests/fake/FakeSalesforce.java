@@ -0,0 +1,564 @@
+package com.prodly.qa.tests.fake;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.JsonNode;
+
+import org.apache.commons.csv.CSVFormat;
+import org.apache.commons.csv.CSVParser;
+import org.apache.commons.csv.CSVPrinter;
+import org.apache.commons.csv.CSVRecord;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static com.prodly.qa.tests.fake.FakeServer.om;
+
+/**
+ * In-memory Salesforce org: OAuth token, sObject CRUD, sObject Collections (create, update, upsert
+ * by external id incl. relationship lookups, delete) and SOQL queries with nextRecordsUrl paging.
+ * SOQL support covers what the framework sends: a field list or COUNT(), one object, WHERE
+ * conditions joined by AND (=, !=, &lt;, &lt;=, &gt;, &gt;=, LIKE; parentheses around conditions are
+ * ignored), ORDER BY one field and LIMIT. Bulk API 2.0 ingest jobs (insert, update, delete) are processed when the
+ * upload is closed and report InProgress on their first status poll.
+ */
+public class FakeSalesforce {
+    private static final String API = "/services/data/v60.0";
+    private static final TypeReference<Map<String, Object>> MAP = new TypeReference<Map<String, Object>>() {};
+    private static final Pattern SELECT = Pattern.compile(
+            "SELECT\\s+(.+?)\\s+FROM\\s+(\\w+)(?:\\s+WHERE\\s+(.+?))?(?:\\s+ORDER\\s+BY\\s+(\\w+)(?:\\s+(ASC|DESC))?)?(?:\\s+LIMIT\\s+(\\d+))?\\s*$",
+            Pattern.CASE_INSENSITIVE | Pattern.DOTALL);
+    private static final Pattern CONDITION = Pattern.compile(
+            "(\\w+)\\s*(=|!=|>=|<=|>|<|LIKE)\\s*(?:'((?:[^'\\\\]|\\\\.)*)'|(-?[\\d.]+))", Pattern.CASE_INSENSITIVE);
+    private static final Pattern AND = Pattern.compile("\\s+AND\\s+", Pattern.CASE_INSENSITIVE);
+
+    private final FakeServer server;
+    private final AtomicLong seq = new AtomicLong();
+    /** id -> record (fields plus "attributes.type" kept in the type map). */
+    private final Map<String, Map<String, Object>> records = new ConcurrentHashMap<>();
+    private final Map<String, String> types = new ConcurrentHashMap<>();
+    private final Map<String, List<Map<String, Object>>> cursors = new ConcurrentHashMap<>();
+    private final Map<String, BulkJob> jobs = new ConcurrentHashMap<>();
+
+    FakeSalesforce(FakeServer server) { this.server = server; }
+
+    /** Number of Bulk API ingest jobs created so far. */
+    public int bulkJobs() { return jobs.size(); }
+
+    /** Number of live records of a type, e.g. to assert cleanup. */
+    public long count(String type) {
+        return types.values().stream().filter(type::equals).count();
+    }
+
+    void token(FakeServer.Call call) throws IOException {
+        Map<String, String> form = call.form();
+        if (!"client_credentials".equals(form.get("grant_type")) || form.get("client_id") == null) {
+            call.json(400, Map.of("error", "invalid_grant", "error_description", "authentication failure"));
+            return;
+        }
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("access_token", server.issueToken());
+        body.put("instance_url", server.url());
+        body.put("id", server.url() + "/id/00DFAKE/005FAKE");
+        body.put("token_type", "Bearer");
+        body.put("issued_at", String.valueOf(System.currentTimeMillis()));
+        call.json(200, body);
+    }
+
+    void handle(FakeServer.Call call) throws IOException {
+        String p = call.path.startsWith(API) ? call.path.substring(API.length()) : call.path;
+        String[] seg = p.split("/");
+        // seg[0] is "" (leading slash)
+        if (seg.length >= 2 && "query".equals(seg[1])) {
+            if (seg.length == 2) query(call);
+            else nextPage(call, seg[2]);
+        } else if (seg.length >= 3 && "composite".equals(seg[1]) && "sobjects".equals(seg[2])) {
+            collections(call, seg);
+        } else if (seg.length >= 3 && "jobs".equals(seg[1]) && "ingest".equals(seg[2])) {
+            ingest(call, seg);
+        } else if (seg.length >= 3 && "sobjects".equals(seg[1])) {
+            sobject(call, seg[2], seg.length > 3 ? seg[3] : null);
+        } else {
+            call.json(404, List.of(error("NOT_FOUND", "The requested resource does not exist")));
+        }
+    }
+
+    // --- sObject CRUD ---
+
+    private void sobject(FakeServer.Call call, String type, String id) throws IOException {
+        if (id == null && "POST".equals(call.method)) {
+            Map<String, Object> res = create(type, om.convertValue(call.jsonBody(), MAP));
+            if (Boolean.TRUE.equals(res.get("success"))) call.json(201, res);
+            else call.json(400, res.get("errors"));
+            return;
+        }
+        if (id == null) {
+            call.json(404, List.of(error("NOT_FOUND", "The requested resource does not exist")));
+            return;
+        }
+        Map<String, Object> rec = records.get(id);
+        if (rec == null || !type.equals(types.get(id))) {
+            call.json(404, List.of(error("NOT_FOUND", "The requested resource does not exist")));
+            return;
+        }
+        switch (call.method) {
+            case "GET":
+                call.json(200, view(type, id, rec, null));
+                break;
+            case "PATCH":
+                Map<String, Object> fields = om.convertValue(call.jsonBody(), MAP);
+                fields.put("Id", id);
+                Map<String, Object> res = update(fields);
+                if (Boolean.TRUE.equals(res.get("success"))) call.empty(204);
+                else call.json(400, res.get("errors"));
+                break;
+            case "DELETE":
+                delete(id);
+                call.empty(204);
+                break;
+            default:
+                call.json(405, List.of(error("METHOD_NOT_ALLOWED", call.method)));
+        }
+    }
+
+    // --- sObject Collections ---
+
+    private void collections(FakeServer.Call call, String[] seg) throws IOException {
+        List<Map<String, Object>> results = new ArrayList<>();
+        if ("DELETE".equals(call.method)) {
+            String ids = call.query.getOrDefault("ids", "");
+            for (String id : ids.split(",")) if (!id.isEmpty()) results.add(delete(id));
+            call.json(200, results);
+            return;
+        }
+        JsonNode body = call.jsonBody();
+        JsonNode recs = body.path("records");
+        if (recs.size() > 200) {
+            call.json(400, List.of(error("EXCEEDED_ID_LIMIT", "record limit reached. cannot submit more than 200 records into this call")));
+            return;
+        }
+        for (JsonNode n : recs) {
+            Map<String, Object> fields = om.convertValue(n, MAP);
+            Object attrs = fields.remove("attributes");
+            String type = attrs instanceof Map ? String.valueOf(((Map<?, ?>) attrs).get("type")) : null;
+            if ("POST".equals(call.method)) {
+                results.add(create(type, fields));
+            } else if ("PATCH".equals(call.method) && seg.length >= 5) {
+                results.add(upsert(seg[3], seg[4], fields));
+            } else if ("PATCH".equals(call.method)) {
+                results.add(update(fields));
+            } else {
+                call.json(405, List.of(error("METHOD_NOT_ALLOWED", call.method)));
+                return;
+            }
+        }
+        call.json(200, results);
+    }
+
+    private Map<String, Object> create(String type, Map<String, Object> fields) {
+        if (type == null) return failure(null, "INVALID_TYPE", "sObject type missing");
+        if ("Account".equals(type) && isBlank(fields.get("Name"))) {
+            return failure(null, "REQUIRED_FIELD_MISSING", "Required fields are missing: [Name]");
+        }
+        String err = resolveLookups(fields);
+        if (err != null) return failure(null, "INVALID_FIELD", err);
+        String id = newId(type);
+        Map<String, Object> rec = new ConcurrentHashMap<>();
+        putAll(rec, fields);
+        rec.put("Id", id);
+        records.put(id, rec);
+        types.put(id, type);
+        return success(id, null);
+    }
+
+    private Map<String, Object> update(Map<String, Object> fields) {
+        Object idVal = fields.remove("Id");
+        String id = idVal == null ? null : idVal.toString();
+        if (id == null || !isId(id)) return failure(id, "MALFORMED_ID", "Account ID: id value of incorrect type: " + id);
+        Map<String, Object> rec = records.get(id);
+        if (rec == null) return failure(id, "ENTITY_IS_DELETED", "entity is deleted");
+        String err = resolveLookups(fields);
+        if (err != null) return failure(id, "INVALID_FIELD", err);
+        putAll(rec, fields);
+        return success(id, null);
+    }
+
+    private Map<String, Object> upsert(String type, String extField, Map<String, Object> fields) {
+        Object key = fields.get(extField);
+        if (isBlank(key)) return failure(null, "MISSING_ARGUMENT", extField + " not specified");
+        String existing = findBy(type, extField, key.toString());
+        if (existing == null) {
+            Map<String, Object> res = create(type, fields);
+            if (Boolean.TRUE.equals(res.get("success"))) res.put("created", true);
+            return res;
+        }
+        fields.put("Id", existing);
+        Map<String, Object> res = update(fields);
+        if (Boolean.TRUE.equals(res.get("success"))) res.put("created", false);
+        return res;
+    }
+
+    private Map<String, Object> delete(String id) {
+        if (!isId(id)) return failure(id, "MALFORMED_ID", "malformed id " + id);
+        if (records.remove(id) == null) return failure(id, "ENTITY_IS_DELETED", "entity is deleted");
+        types.remove(id);
+        return success(id, null);
+    }
+
+    /** {"Account": {"Guid__c": "x"}} -> AccountId = id of the Account whose Guid__c is x. */
+    private String resolveLookups(Map<String, Object> fields) {
+        for (Map.Entry<String, Object> e : new ArrayList<>(fields.entrySet())) {
+            if (!(e.getValue() instanceof Map)) continue;
+            Map<?, ?> ref = (Map<?, ?>) e.getValue();
+            if (ref.size() != 1) return "Invalid relationship value for " + e.getKey();
+            Map.Entry<?, ?> kv = ref.entrySet().iterator().next();
+            String parent = findBy(e.getKey(), kv.getKey().toString(), String.valueOf(kv.getValue()));
+            if (parent == null) {
+                return "Foreign key external ID: " + kv.getValue() + " not found for field " + kv.getKey()
+                        + " in entity " + e.getKey();
+            }
+            fields.remove(e.getKey());
+            fields.put(e.getKey() + "Id", parent);
+        }
+        return null;
+    }
+
+    private String findBy(String type, String field, String value) {
+        for (Map.Entry<String, Map<String, Object>> e : records.entrySet()) {
+            if (type.equals(types.get(e.getKey())) && value.equals(String.valueOf(e.getValue().get(field)))) {
+                return e.getKey();
+            }
+        }
+        return null;
+    }
+
+    // --- Bulk API 2.0 ingest ---
+
+    private static class BulkJob {
+        final String id;
+        final String object;
+        final String operation;
+        volatile String state = "Open";
+        volatile byte[] data;
+        volatile int polls;
+        int processed;
+        final StringBuilder successful = new StringBuilder();
+        final StringBuilder failed = new StringBuilder();
+
+        BulkJob(String id, String object, String operation) {
+            this.id = id;
+            this.object = object;
+            this.operation = operation;
+        }
+    }
+
+    private void ingest(FakeServer.Call call, String[] seg) throws IOException {
+        if (seg.length == 3) {
+            JsonNode body = call.jsonBody();
+            String op = body.path("operation").asText();
+            if (!"POST".equals(call.method) || !Set.of("insert", "update", "delete").contains(op)) {
+                call.json(400, List.of(error("INVALIDJOB", "unsupported job: " + op)));
+                return;
+            }
+            BulkJob job = new BulkJob("750FAKE" + seq.incrementAndGet(), body.path("object").asText(), op);
+            jobs.put(job.id, job);
+            call.json(200, jobInfo(job));
+            return;
+        }
+        BulkJob job = jobs.get(seg[3]);
+        if (job == null) {
+            call.json(404, List.of(error("NOT_FOUND", "The requested resource does not exist")));
+            return;
+        }
+        String sub = seg.length > 4 ? seg[4] : "";
+        if ("batches".equals(sub) && "PUT".equals(call.method)) {
+            if (!"Open".equals(job.state)) {
+                call.json(400, List.of(error("INVALIDJOBSTATE", "job " + job.id + " is " + job.state)));
+                return;
+            }
+            job.data = call.body();
+            call.empty(201);
+        } else if ("successfulResults".equals(sub) || "failedResults".equals(sub)) {
+            String csv = "successfulResults".equals(sub) ? job.successful.toString() : job.failed.toString();
+            call.send(200, csv.getBytes(StandardCharsets.UTF_8), "text/csv");
+        } else if (sub.isEmpty() && "PATCH".equals(call.method)) {
+            String state = call.jsonBody().path("state").asText();
+            if ("UploadComplete".equals(state) && "Open".equals(job.state)) {
+                runJob(job);
+                job.state = "UploadComplete";
+            } else if ("Aborted".equals(state)) {
+                job.state = "Aborted";
+            } else {
+                call.json(400, List.of(error("INVALIDJOBSTATE", "job " + job.id + " is " + job.state)));
+                return;
+            }
+            call.json(200, jobInfo(job));
+        } else if (sub.isEmpty() && "GET".equals(call.method)) {
+            if ("UploadComplete".equals(job.state)) job.state = job.polls++ == 0 ? "InProgress" : "JobComplete";
+            else if ("InProgress".equals(job.state)) job.state = "JobComplete";
+            call.json(200, jobInfo(job));
+        } else {
+            call.json(405, List.of(error("METHOD_NOT_ALLOWED", call.method)));
+        }
+    }
+
+    private void runJob(BulkJob job) throws IOException {
+        String csv = job.data == null ? "" : new String(job.data, StandardCharsets.UTF_8);
+        try (CSVParser parser = CSVFormat.DEFAULT.withFirstRecordAsHeader().parse(new StringReader(csv))) {
+            List<String> header = parser.getHeaderNames();
+            List<String> okHeader = new ArrayList<>(List.of("sf__Id", "sf__Created"));
+            List<String> badHeader = new ArrayList<>(List.of("sf__Id", "sf__Error"));
+            okHeader.addAll(header);
+            badHeader.addAll(header);
+            CSVPrinter ok = new CSVPrinter(job.successful, CSVFormat.DEFAULT.withHeader(okHeader.toArray(new String[0])));
+            CSVPrinter bad = new CSVPrinter(job.failed, CSVFormat.DEFAULT.withHeader(badHeader.toArray(new String[0])));
+            for (CSVRecord rec : parser) {
+                Map<String, Object> fields = new LinkedHashMap<>();
+                for (String h : header) fields.put(h, rec.get(h));
+                Map<String, Object> res;
+                if ("insert".equals(job.operation)) res = create(job.object, fields);
+                else if ("delete".equals(job.operation)) res = delete(String.valueOf(fields.get("Id")));
+                else if (!job.object.equals(types.get(String.valueOf(fields.get("Id"))))) {
+                    res = failure(String.valueOf(fields.get("Id")), "ENTITY_IS_DELETED", "entity is deleted");
+                } else res = update(fields);
+                List<Object> row = new ArrayList<>();
+                row.add(res.get("id") == null ? "" : res.get("id"));
+                if (Boolean.TRUE.equals(res.get("success"))) {
+                    row.add("insert".equals(job.operation));
+                    row.addAll(rec.toList());
+                    ok.printRecord(row);
+                } else {
+                    @SuppressWarnings("unchecked")
+                    Map<String, Object> e = ((List<Map<String, Object>>) res.get("errors")).get(0);
+                    row.add(e.get("errorCode") + ":" + e.get("message"));
+                    row.addAll(rec.toList());
+                    bad.printRecord(row);
+                }
+                job.processed++;
+            }
+            ok.flush();
+            bad.flush();
+        }
+    }
+
+    private static Map<String, Object> jobInfo(BulkJob job) {
+        Map<String, Object> info = new LinkedHashMap<>();
+        info.put("id", job.id);
+        info.put("object", job.object);
+        info.put("operation", job.operation);
+        info.put("state", job.state);
+        info.put("numberRecordsProcessed", "JobComplete".equals(job.state) ? job.processed : 0);
+        return info;
+    }
+
+    // --- SOQL ---
+
+    private void query(FakeServer.Call call) throws IOException {
+        String soql = call.query.get("q");
+        Matcher m = soql == null ? null : SELECT.matcher(soql.trim());
+        if (m == null || !m.matches()) {
+            call.json(400, List.of(error("MALFORMED_QUERY", "unexpected token in: " + soql)));
+            return;
+        }
+        List<String> fields = new ArrayList<>();
+        for (String f : m.group(1).split(",")) fields.add(f.trim());
+        String type = m.group(2);
+        List<Object[]> conditions = new ArrayList<>();
+        if (m.group(3) != null) {
+            for (String c : AND.split(m.group(3).trim())) {
+                Matcher cm = CONDITION.matcher(c.trim().replaceAll("^\\(+|\\)+$", ""));
+                if (!cm.matches()) {
+                    call.json(400, List.of(error("MALFORMED_QUERY", "unsupported condition: " + c)));
+                    return;
+                }
+                String literal = cm.group(3) != null ? cm.group(3) : cm.group(4);
+                conditions.add(new Object[]{cm.group(1), cm.group(2).toUpperCase(Locale.ROOT), literal, cm.group(3) != null});
+            }
+        }
+
+        List<Map.Entry<String, Map<String, Object>>> hits = new ArrayList<>();
+        for (Map.Entry<String, Map<String, Object>> e : records.entrySet()) {
+            if (type.equalsIgnoreCase(types.get(e.getKey())) && matches(e.getValue(), conditions)) hits.add(e);
+        }
+        if (m.group(4) != null) {
+            String by = m.group(4);
+            Comparator<Map.Entry<String, Map<String, Object>>> cmp =
+                    Comparator.comparing(e -> String.valueOf(e.getValue().get(by)));
+            if ("DESC".equalsIgnoreCase(m.group(5))) cmp = cmp.reversed();
+            hits.sort(cmp);
+        }
+        if (m.group(6) != null) {
+            int limit = Integer.parseInt(m.group(6));
+            if (hits.size() > limit) hits = hits.subList(0, limit);
+        }
+        if (fields.size() == 1 && "COUNT()".equalsIgnoreCase(fields.get(0))) {
+            call.json(200, page(List.of(), hits.size(), null));
+            return;
+        }
+        List<Map<String, Object>> rows = new ArrayList<>(hits.size());
+        for (Map.Entry<String, Map<String, Object>> e : hits) rows.add(view(types.get(e.getKey()), e.getKey(), e.getValue(), fields));
+
+        int batch = batchSize(call.header("Sforce-Query-Options", ""));
+        if (rows.size() <= batch) {
+            call.json(200, page(rows, rows.size(), null));
+            return;
+        }
+        String cursor = "01gFAKE" + seq.incrementAndGet();
+        cursors.put(cursor, rows);
+        call.json(200, page(rows.subList(0, batch), rows.size(), API + "/query/" + cursor + "-" + batch));
+    }
+
+    private void nextPage(FakeServer.Call call, String locator) throws IOException {
+        int dash = locator.lastIndexOf('-');
+        List<Map<String, Object>> rows = dash < 0 ? null : cursors.get(locator.substring(0, dash));
+        if (rows == null) {
+            call.json(400, List.of(error("INVALID_QUERY_LOCATOR", "invalid query locator")));
+            return;
+        }
+        int from = Integer.parseInt(locator.substring(dash + 1));
+        int to = Math.min(rows.size(), from + batchSize(call.header("Sforce-Query-Options", "")));
+        String next = null;
+        if (to < rows.size()) next = API + "/query/" + locator.substring(0, dash) + "-" + to;
+        else cursors.remove(locator.substring(0, dash));
+        call.json(200, page(rows.subList(from, to), rows.size(), next));
+    }
+
+    private static Map<String, Object> page(List<Map<String, Object>> rows, int total, String next) {
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("totalSize", total);
+        body.put("done", next == null);
+        if (next != null) body.put("nextRecordsUrl", next);
+        body.put("records", rows);
+        return body;
+    }
+
+    private static int batchSize(String options) {
+        int i = options.indexOf("batchSize=");
+        if (i < 0) return 2000;
+        try {
+            return Math.max(200, Math.min(2000, Integer.parseInt(options.substring(i + 10).split("[,;\\s]")[0])));
+        } catch (NumberFormatException e) {
+            return 2000;
+        }
+    }
+
+    private static boolean matches(Map<String, Object> rec, List<Object[]> conditions) {
+        for (Object[] c : conditions) {
+            Object v = rec.get((String) c[0]);
+            String op = (String) c[1];
+            String lit = (String) c[2];
+            boolean quoted = (Boolean) c[3];
+            if ("LIKE".equals(op)) {
+                if (v == null || !likeRegex(lit).matcher(v.toString()).matches()) return false;
+                continue;
+            }
+            int cmp;
+            if (v == null) {
+                cmp = -1;
+            } else if (!quoted && v instanceof Number) {
+                cmp = Double.compare(((Number) v).doubleValue(), Double.parseDouble(lit));
+            } else {
+                cmp = v.toString().compareTo(unescape(lit));
+            }
+            boolean ok;
+            switch (op) {
+                case "=": ok = v != null && cmp == 0; break;
+                case "!=": ok = v == null || cmp != 0; break;
+                case ">": ok = v != null && cmp > 0; break;
+                case ">=": ok = v != null && cmp >= 0; break;
+                case "<": ok = v != null && cmp < 0; break;
+                default: ok = v != null && cmp <= 0;
+            }
+            if (!ok) return false;
+        }
+        return true;
+    }
+
+    /** SOQL LIKE: % and _ wildcards, backslash escapes, case-insensitive. */
+    private static Pattern likeRegex(String like) {
+        StringBuilder re = new StringBuilder();
+        for (int i = 0; i < like.length(); i++) {
+            char ch = like.charAt(i);
+            if (ch == '\\' && i + 1 < like.length()) re.append(Pattern.quote(String.valueOf(like.charAt(++i))));
+            else if (ch == '%') re.append(".*");
+            else if (ch == '_') re.append('.');
+            else re.append(Pattern.quote(String.valueOf(ch)));
+        }
+        return Pattern.compile(re.toString(), Pattern.CASE_INSENSITIVE | Pattern.DOTALL);
+    }
+
+    private static String unescape(String s) {
+        return s.replace("\\'", "'").replace("\\\\", "\\");
+    }
+
+    // --- helpers ---
+
+    private Map<String, Object> view(String type, String id, Map<String, Object> rec, List<String> fields) {
+        Map<String, Object> out = new LinkedHashMap<>();
+        out.put("attributes", Map.of("type", type, "url", API + "/sobjects/" + type + "/" + id));
+        if (fields == null) {
+            out.putAll(rec);
+        } else {
+            for (String f : fields) out.put(f, rec.get(f));
+        }
+        return out;
+    }
+
+    /** 18-char ids with the real key prefixes for Account (001) and Contact (003). */
+    private String newId(String type) {
+        String prefix = "Account".equals(type) ? "001" : "Contact".equals(type) ? "003" : "a00";
+        String n = Long.toString(seq.incrementAndGet(), 36).toUpperCase(Locale.ROOT);
+        StringBuilder sb = new StringBuilder(prefix).append("FK");
+        for (int i = n.length(); i < 13; i++) sb.append('0');
+        return sb.append(n).toString();
+    }
+
+    private static boolean isId(String id) {
+        if (id.length() != 15 && id.length() != 18) return false;
+        for (int i = 0; i < id.length(); i++) if (!Character.isLetterOrDigit(id.charAt(i))) return false;
+        return true;
+    }
+
+    private static boolean isBlank(Object o) {
+        return o == null || o.toString().isBlank();
+    }
+
+    /** ConcurrentHashMap refuses nulls; a null field value clears it, as in Salesforce. */
+    private static void putAll(Map<String, Object> rec, Map<String, Object> fields) {
+        for (Map.Entry<String, Object> e : fields.entrySet()) {
+            if (e.getValue() == null) rec.remove(e.getKey());
+            else rec.put(e.getKey(), e.getValue());
+        }
+    }
+
+    private static Map<String, Object> success(String id, Boolean created) {
+        Map<String, Object> r = new LinkedHashMap<>();
+        r.put("id", id);
+        r.put("success", true);
+        r.put("errors", List.of());
+        if (created != null) r.put("created", created);
+        return r;
+    }
+
+    private static Map<String, Object> failure(String id, String code, String message) {
+        Map<String, Object> r = new LinkedHashMap<>();
+        r.put("id", id);
+        r.put("success", false);
+        r.put("errors", List.of(error(code, message)));
+        return r;
+    }
+
+    private static Map<String, Object> error(String code, String message) {
+        Map<String, Object> e = new LinkedHashMap<>();
+        e.put("statusCode", code);
+        e.put("errorCode", code);
+        e.put("message", message);
+        e.put("fields", List.of());
+        return e;
+    }
+}
@@ -0,0 +1,302 @@
+package com.prodly.qa.tests.fake;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * In-process stand-in for the Salesforce and GitHub endpoints the clients use, on one local port:
+ * /services/oauth2/token and /services/data/v60.0/... ({@link FakeSalesforce}), /repos/{owner}/{repo}/...
+ * ({@link FakeGitHub}). Point the clients at {@link #url()} via SF_INSTANCE_URL and GITHUB_API_URL.
+ *
+ * <p>Faults are injected before routing: fixed latency plus jitter, a 503 error rate, a 429 rate
+ * (Retry-After: 1), and token expiry (401 once a token is older than the TTL). Salesforce responses
+ * carry Sforce-Limit-Info and GitHub responses X-RateLimit-*; exhausting either limit returns the
+ * real services' limit errors.
+ */
+public class FakeServer implements AutoCloseable {
+    private static final Logger log = LoggerFactory.getLogger(FakeServer.class);
+    static final ObjectMapper om = new ObjectMapper();
+
+    static {
+        // Without TCP_NODELAY the JDK server's separate header/body writes stall ~40 ms on delayed ACKs.
+        // Read once when the first HttpServer is created.
+        if (System.getProperty("sun.net.httpserver.nodelay") == null) System.setProperty("sun.net.httpserver.nodelay", "true");
+    }
+
+    private final HttpServer server;
+    private final ExecutorService pool;
+    private final FakeSalesforce salesforce;
+    private final FakeGitHub github;
+
+    private volatile long latencyMs;
+    private volatile long jitterMs;
+    private volatile double errorRate;
+    private volatile double rate429;
+    private volatile long tokenTtlMs = Long.MAX_VALUE;
+    private volatile int sfApiLimit = 1_000_000;
+    private volatile int githubLimit = 1_000_000;
+
+    private final AtomicInteger forced429 = new AtomicInteger();
+    private final AtomicLong requests = new AtomicLong();
+    private final AtomicLong injected = new AtomicLong();
+    private final AtomicInteger sfApiUsage = new AtomicInteger();
+    private final AtomicInteger githubUsed = new AtomicInteger();
+    private final long githubResetEpoch = System.currentTimeMillis() / 1000 + 3600;
+    private final Map<String, Long> tokens = new ConcurrentHashMap<>();
+
+    private FakeServer(int port) throws IOException {
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+        pool = Executors.newCachedThreadPool(r -> {
+            Thread t = new Thread(r, "fake-server");
+            t.setDaemon(true);
+            return t;
+        });
+        server.setExecutor(pool);
+        salesforce = new FakeSalesforce(this);
+        github = new FakeGitHub();
+        server.createContext("/", this::handle);
+    }
+
+    /** Start on the given port (0 = any free port). */
+    public static FakeServer start(int port) throws IOException {
+        FakeServer s = new FakeServer(port);
+        s.server.start();
+        log.info("Fake server listening on {}", s.url());
+        return s;
+    }
+
+    public String url() {
+        return "http://127.0.0.1:" + server.getAddress().getPort();
+    }
+
+    public FakeServer latency(long fixedMs, long jitterMs) { this.latencyMs = fixedMs; this.jitterMs = jitterMs; return this; }
+    /** Fraction of requests answered 503. */
+    public FakeServer errorRate(double rate) { this.errorRate = rate; return this; }
+    /** Fraction of requests answered 429 with Retry-After: 1. */
+    public FakeServer rate429(double rate) { this.rate429 = rate; return this; }
+    /** Answer the next n requests (token requests excepted) 429, whatever rate429 is. */
+    public FakeServer next429(int n) { this.forced429.set(n); return this; }
+    /** Tokens older than this get 401 INVALID_SESSION_ID. */
+    public FakeServer tokenTtlMs(long ms) { this.tokenTtlMs = ms; return this; }
+    /** Salesforce API calls allowed before REQUEST_LIMIT_EXCEEDED. */
+    public FakeServer salesforceApiLimit(int n) { this.sfApiLimit = n; return this; }
+    /** GitHub requests allowed in the (one hour) window before 403 rate limit. */
+    public FakeServer githubRateLimit(int n) { this.githubLimit = n; return this; }
+
+    public long requests() { return requests.get(); }
+    public long injectedFaults() { return injected.get(); }
+    public int tokensIssued() { return tokens.size(); }
+    public FakeSalesforce salesforce() { return salesforce; }
+    public FakeGitHub github() { return github; }
+
+    /**
+     * Point SalesforceClient and GitHubClient at this server. Config reads these on first use, so
+     * call it before any client is created or Config is touched.
+     */
+    public FakeServer configureClients(String runId) {
+        System.setProperty("SF_INSTANCE_URL", url());
+        System.setProperty("SF_CLIENT_ID", "fake");
+        System.setProperty("SF_CLIENT_SECRET", "fake");
+        System.setProperty("SF_TOKEN_CACHE_FILE", "");
+        System.setProperty("GITHUB_API_URL", url());
+        System.setProperty("GITHUB_OWNER", "fake");
+        System.setProperty("GITHUB_REPO", "fake");
+        System.setProperty("GITHUB_TOKEN", "fake");
+        System.setProperty("RUN_ID", runId);
+        return this;
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        pool.shutdownNow();
+    }
+
+    String issueToken() {
+        String token = "00DFAKE!" + Long.toHexString(ThreadLocalRandom.current().nextLong());
+        tokens.put(token, System.currentTimeMillis());
+        return token;
+    }
+
+    private void handle(HttpExchange ex) throws IOException {
+        requests.incrementAndGet();
+        try (Call call = new Call(ex)) {
+            simulateLatency();
+            boolean gh = call.path.startsWith("/repos/");
+            boolean token = call.path.equals("/services/oauth2/token");
+            if (!token && injectFault(call, gh)) return;
+            if (gh) {
+                if (!call.header("Authorization", "").startsWith("Bearer ")) {
+                    call.json(401, Map.of("message", "Bad credentials"));
+                    return;
+                }
+                if (!githubLimit(call)) return;
+                github.handle(call);
+            } else if (token) {
+                salesforce.token(call);
+            } else if (call.path.startsWith("/services/data/")) {
+                if (!validToken(call) || !salesforceLimit(call)) return;
+                salesforce.handle(call);
+            } else {
+                call.json(404, Map.of("message", "Not Found"));
+            }
+        } catch (RuntimeException e) {
+            log.error("Fake server error on {} {}", ex.getRequestMethod(), ex.getRequestURI(), e);
+        }
+    }
+
+    private void simulateLatency() {
+        long ms = latencyMs + (jitterMs > 0 ? ThreadLocalRandom.current().nextLong(jitterMs + 1) : 0);
+        if (ms <= 0) return;
+        try {
+            Thread.sleep(ms);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private boolean injectFault(Call call, boolean gh) throws IOException {
+        double r = ThreadLocalRandom.current().nextDouble();
+        if (forced429.getAndUpdate(n -> Math.max(0, n - 1)) > 0 || r < rate429) {
+            injected.incrementAndGet();
+            call.setHeader("Retry-After", "1");
+            if (gh) call.json(429, Map.of("message", "You have exceeded a secondary rate limit"));
+            else call.json(429, List.of(Map.of("errorCode", "REQUEST_LIMIT_EXCEEDED", "message", "ConcurrentPerOrgLongTxn Limit exceeded.")));
+            return true;
+        }
+        if (r < rate429 + errorRate) {
+            injected.incrementAndGet();
+            if (gh) call.json(503, Map.of("message", "Service Unavailable"));
+            else call.json(503, List.of(Map.of("errorCode", "SERVER_UNAVAILABLE", "message", "Service Unavailable")));
+            return true;
+        }
+        return false;
+    }
+
+    private boolean validToken(Call call) throws IOException {
+        String auth = call.header("Authorization", "");
+        Long issued = auth.startsWith("Bearer ") ? tokens.get(auth.substring(7)) : null;
+        if (issued != null && System.currentTimeMillis() - issued < tokenTtlMs) return true;
+        call.json(401, List.of(Map.of("errorCode", "INVALID_SESSION_ID", "message", "Session expired or invalid")));
+        return false;
+    }
+
+    private boolean salesforceLimit(Call call) throws IOException {
+        int used = sfApiUsage.incrementAndGet();
+        call.setHeader("Sforce-Limit-Info", "api-usage=" + used + "/" + sfApiLimit);
+        if (used <= sfApiLimit) return true;
+        call.json(403, List.of(Map.of("errorCode", "REQUEST_LIMIT_EXCEEDED", "message", "TotalRequests Limit exceeded.")));
+        return false;
+    }
+
+    private boolean githubLimit(Call call) throws IOException {
+        int used = githubUsed.incrementAndGet();
+        int remaining = Math.max(0, githubLimit - used);
+        call.setHeader("X-RateLimit-Limit", String.valueOf(githubLimit));
+        call.setHeader("X-RateLimit-Remaining", String.valueOf(remaining));
+        call.setHeader("X-RateLimit-Reset", String.valueOf(githubResetEpoch));
+        if (used <= githubLimit) return true;
+        call.json(403, Map.of("message", "API rate limit exceeded"));
+        return false;
+    }
+
+    /** One request/response; always sends a response (500 if a handler forgot) and closes the exchange. */
+    static class Call implements AutoCloseable {
+        final HttpExchange ex;
+        final String method;
+        final String path;
+        final Map<String, String> query = new HashMap<>();
+        private byte[] body;
+        private boolean sent;
+
+        Call(HttpExchange ex) {
+            this.ex = ex;
+            this.method = ex.getRequestMethod();
+            this.path = ex.getRequestURI().getPath();
+            String raw = ex.getRequestURI().getRawQuery();
+            if (raw != null) {
+                for (String kv : raw.split("&")) {
+                    int eq = kv.indexOf('=');
+                    String k = eq < 0 ? kv : kv.substring(0, eq);
+                    String v = eq < 0 ? "" : kv.substring(eq + 1);
+                    query.put(URLDecoder.decode(k, StandardCharsets.UTF_8), URLDecoder.decode(v, StandardCharsets.UTF_8));
+                }
+            }
+        }
+
+        String header(String name, String def) {
+            String v = ex.getRequestHeaders().getFirst(name);
+            return v == null ? def : v;
+        }
+
+        void setHeader(String name, String value) {
+            ex.getResponseHeaders().set(name, value);
+        }
+
+        byte[] body() throws IOException {
+            if (body == null) {
+                try (InputStream in = ex.getRequestBody()) { body = in.readAllBytes(); }
+            }
+            return body;
+        }
+
+        JsonNode jsonBody() throws IOException {
+            byte[] b = body();
+            return b.length == 0 ? om.createObjectNode() : om.readTree(b);
+        }
+
+        /** Form-encoded body as a map. */
+        Map<String, String> form() throws IOException {
+            Map<String, String> m = new HashMap<>();
+            for (String kv : new String(body(), StandardCharsets.UTF_8).split("&")) {
+                int eq = kv.indexOf('=');
+                if (eq > 0) m.put(URLDecoder.decode(kv.substring(0, eq), StandardCharsets.UTF_8),
+                        URLDecoder.decode(kv.substring(eq + 1), StandardCharsets.UTF_8));
+            }
+            return m;
+        }
+
+        void json(int status, Object value) throws IOException {
+            send(status, om.writeValueAsBytes(value), "application/json;charset=UTF-8");
+        }
+
+        void send(int status, byte[] bytes, String contentType) throws IOException {
+            sent = true;
+            if (contentType != null) setHeader("Content-Type", contentType);
+            boolean noBody = status == 204 || status == 304 || bytes == null;
+            ex.sendResponseHeaders(status, noBody ? -1 : bytes.length == 0 ? -1 : bytes.length);
+            if (!noBody && bytes.length > 0) {
+                try (OutputStream os = ex.getResponseBody()) { os.write(bytes); }
+            }
+        }
+
+        void empty(int status) throws IOException { send(status, null, null); }
+
+        @Override
+        public void close() throws IOException {
+            if (!sent) json(500, Map.of("message", "unhandled " + method + " " + path));
+            ex.close();
+        }
+    }
+}
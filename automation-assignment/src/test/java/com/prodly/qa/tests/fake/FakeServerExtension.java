@@ -0,0 +1,48 @@
+package com.prodly.qa.tests.fake;
+
+import org.junit.jupiter.api.extension.AfterAllCallback;
+import org.junit.jupiter.api.extension.BeforeAllCallback;
+import org.junit.jupiter.api.extension.ExtensionContext;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Per-class {@link FakeServer} for the *Test classes. Register it on a static field with
+ * {@code @RegisterExtension}: it starts the server, points the clients at it and sets the extra
+ * Config properties before the class's own {@code @BeforeAll} methods create clients, and closes
+ * the server after the class.
+ */
+public class FakeServerExtension implements BeforeAllCallback, AfterAllCallback {
+    private final String runId;
+    private final Map<String, String> properties = new LinkedHashMap<>();
+    private FakeServer server;
+
+    public FakeServerExtension(String runId) {
+        this.runId = runId;
+    }
+
+    /** Set a Config system property before any client is created. */
+    public FakeServerExtension property(String key, String value) {
+        properties.put(key, value);
+        return this;
+    }
+
+    /** The running server; only valid between the class's BeforeAll and AfterAll. */
+    public FakeServer server() {
+        if (server == null) throw new IllegalStateException("FakeServer not started; register the extension on a static field");
+        return server;
+    }
+
+    @Override
+    public void beforeAll(ExtensionContext context) throws Exception {
+        server = FakeServer.start(0).configureClients(runId);
+        properties.forEach(System::setProperty);
+    }
+
+    @Override
+    public void afterAll(ExtensionContext context) {
+        if (server != null) server.close();
+        server = null;
+    }
+}
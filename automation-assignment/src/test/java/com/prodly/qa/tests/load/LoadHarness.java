@@ -0,0 +1,187 @@
+package com.prodly.qa.tests.load;
+
+import com.prodly.qa.api.GitHubClient;
+import com.prodly.qa.api.HttpTransport;
+import com.prodly.qa.api.SalesforceClient;
+import com.prodly.qa.config.Config;
+import com.prodly.qa.models.Account;
+import com.prodly.qa.services.DataService;
+import com.prodly.qa.tests.fake.FakeServer;
+import com.prodly.qa.utils.CsvPipeline;
+import com.prodly.qa.utils.LatencyHistogram;
+import com.prodly.qa.utils.Metrics;
+import com.prodly.qa.utils.PhoneGenerator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Drives DataService or the CSV/GitHub flow against {@link FakeServer} at a target rate and reports
+ * achieved throughput and latency. Open loop: operations start on schedule whether or not earlier
+ * ones finished (up to --max-in-flight; ticks beyond that are counted as dropped), and latency is
+ * measured from the scheduled start so queueing delay is not hidden.
+ *
+ * <pre>
+ * --rps 10 --duration 30 --scenario data|flow --batch 50 --max-in-flight 32
+ * --latency 20 --jitter 10 --error-rate 0.01 --rate429 0.01 --token-ttl 0 --gh-limit 5000
+ * </pre>
+ */
+public class LoadHarness {
+    private static final Logger log = LoggerFactory.getLogger(LoadHarness.class);
+
+    private final String scenario;
+    private final int batch;
+    private final SalesforceClient sf;
+    private final GitHubClient gh;
+    private final AtomicInteger seq = new AtomicInteger();
+
+    private LoadHarness(String scenario, int batch) {
+        this.scenario = scenario;
+        this.batch = batch;
+        this.sf = new SalesforceClient();
+        this.gh = new GitHubClient();
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> opt = parse(args);
+        double rps = Double.parseDouble(opt.getOrDefault("rps", "10"));
+        long durationMs = (long) (Double.parseDouble(opt.getOrDefault("duration", "30")) * 1000);
+        int maxInFlight = Integer.parseInt(opt.getOrDefault("max-in-flight", "32"));
+
+        try (FakeServer fake = FakeServer.start(Integer.parseInt(opt.getOrDefault("port", "0")))) {
+            fake.latency(Long.parseLong(opt.getOrDefault("latency", "0")), Long.parseLong(opt.getOrDefault("jitter", "0")))
+                    .errorRate(Double.parseDouble(opt.getOrDefault("error-rate", "0")))
+                    .rate429(Double.parseDouble(opt.getOrDefault("rate429", "0")))
+                    .githubRateLimit(Integer.parseInt(opt.getOrDefault("gh-limit", "1000000")));
+            long ttl = Long.parseLong(opt.getOrDefault("token-ttl", "0"));
+            if (ttl > 0) fake.tokenTtlMs(ttl);
+
+            fake.configureClients("load-" + System.currentTimeMillis());
+
+            LoadHarness h = new LoadHarness(opt.getOrDefault("scenario", "data"), Integer.parseInt(opt.getOrDefault("batch", "50")));
+            h.sf.authenticate();
+            h.run(rps, durationMs, maxInFlight, fake);
+        }
+    }
+
+    private void run(double rps, long durationMs, int maxInFlight, FakeServer fake) throws InterruptedException {
+        log.info("Load: {} scenario, batch {}, {} ops/s for {} ms (max {} in flight), run {}",
+                scenario, batch, rps, durationMs, maxInFlight, Config.RUN_ID);
+        LatencyHistogram latency = new LatencyHistogram();
+        AtomicLong ok = new AtomicLong();
+        AtomicLong errors = new AtomicLong();
+        long dropped = 0;
+        Semaphore slots = new Semaphore(maxInFlight);
+        ExecutorService workers = Executors.newCachedThreadPool();
+
+        long intervalNs = (long) (1_000_000_000L / rps);
+        long start = System.nanoTime();
+        long end = start + durationMs * 1_000_000L;
+        for (long next = start; next < end; next += intervalNs) {
+            long wait = next - System.nanoTime();
+            if (wait > 0) LockSupport.parkNanos(wait);
+            if (!slots.tryAcquire()) {
+                dropped++;
+                continue;
+            }
+            long scheduled = next;
+            workers.execute(() -> {
+                try {
+                    runOnce();
+                    ok.incrementAndGet();
+                } catch (Exception e) {
+                    errors.incrementAndGet();
+                    log.warn("Load: {} op failed: {}", scenario, e.getMessage());
+                } finally {
+                    latency.recordNanos(System.nanoTime() - scheduled);
+                    slots.release();
+                }
+            });
+        }
+        workers.shutdown();
+        workers.awaitTermination(5, TimeUnit.MINUTES);
+        double secs = (System.nanoTime() - start) / 1e9;
+
+        log.info("Load: {} ok, {} errors, {} dropped in {} s = {} ops/s (target {})",
+                ok.get(), errors.get(), dropped, String.format("%.1f", secs), String.format("%.2f", ok.get() / secs), rps);
+        log.info("Load: latency ms p50={} p95={} p99={} max={}",
+                latency.quantileMicros(0.50) / 1000, latency.quantileMicros(0.95) / 1000,
+                latency.quantileMicros(0.99) / 1000, latency.maxMicros() / 1000);
+        log.info("Load: fake server saw {} requests, injected {} faults", fake.requests(), fake.injectedFaults());
+        log.info("Load: retry {} {}", sf.retryPolicy(), gh.retryPolicy());
+        log.info("Load: HTTP transport {}", HttpTransport.shared().stats());
+        Metrics.writeReport(new File("target/load"));
+    }
+
+    private void runOnce() throws Exception {
+        if ("flow".equals(scenario)) flow();
+        else data();
+    }
+
+    /** Create a batch, give it phones, update, delete. */
+    private void data() {
+        DataService data = new DataService(sf);
+        try {
+            List<Account> accs = data.createAccounts(batch);
+            for (Account a : accs) a.setPhone(PhoneGenerator.forCountry(a.getCountry()));
+            int updated = data.updateAccountsPhones(accs);
+            if (updated != accs.size()) throw new RuntimeException("updated " + updated + " of " + accs.size());
+        } finally {
+            data.cleanup();
+        }
+    }
+
+    /** The FlowSteps positive scenario: export, commit to master, branch, add phones, push, update from CSV. */
+    private void flow() throws Exception {
+        DataService data = new DataService(sf);
+        String tag = "l" + seq.incrementAndGet();
+        File dir = new File("target/load/" + tag);
+        dir.mkdirs();
+        String path = "data-autotest/accounts-" + Config.RUN_ID + "-" + tag + ".csv";
+        String branch = "phones-" + Config.RUN_ID + "-" + tag;
+        boolean committed = false;
+        try {
+            List<Account> accs = data.createAccounts(batch);
+            File csv = data.exportNoPhoneCsv(accs, new File(dir, "accounts_no_phone.csv"));
+            gh.putFile("master", path, csv.toPath(), "load: export " + tag);
+            committed = true;
+            gh.createBranch(branch, "master");
+
+            File withPhones = new File(dir, "accounts_with_phone.csv");
+            CsvPipeline.from(gh.openFile("master", path))
+                    .addColumn("Phone", r -> PhoneGenerator.forCountry(r.get("Country")))
+                    .to(CsvPipeline.toFile(withPhones));
+            gh.putFile(branch, path, withPhones.toPath(), "load: phones " + tag);
+
+            AtomicInteger updated = new AtomicInteger();
+            CsvPipeline.from(gh.openFile(branch, path))
+                    .to(CsvPipeline.toAccountBatches(SalesforceClient.COLLECTION_LIMIT,
+                            b -> updated.addAndGet(data.updateAccountsPhones(b))));
+            if (updated.get() != accs.size()) throw new RuntimeException("updated " + updated + " of " + accs.size());
+        } finally {
+            data.cleanup();
+            if (committed) gh.deleteFile("master", path, "load: cleanup " + tag);
+            gh.deleteBranchIfExists(branch);
+        }
+    }
+
+    private static Map<String, String> parse(String[] args) {
+        Map<String, String> opt = new HashMap<>();
+        for (int i = 0; i < args.length; i++) {
+            if (!args[i].startsWith("--") || i + 1 >= args.length) throw new IllegalArgumentException("Expected --name value, got " + args[i]);
+            opt.put(args[i].substring(2), args[++i]);
+        }
+        return opt;
+    }
+}
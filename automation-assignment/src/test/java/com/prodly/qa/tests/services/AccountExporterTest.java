@@ -0,0 +1,100 @@
+package com.prodly.qa.tests.services;
+
+import com.prodly.qa.api.GitHubClient;
+import com.prodly.qa.api.SalesforceClient;
+import com.prodly.qa.services.AccountExporter;
+import com.prodly.qa.services.DataService;
+import com.prodly.qa.tests.fake.FakeServer;
+import com.prodly.qa.tests.fake.FakeServerExtension;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/** AccountExporter against {@link FakeServer}: Id order, chunk boundaries and their cost. */
+class AccountExporterTest {
+    private static final int ACCOUNTS = 450;
+
+    private static SalesforceClient sf;
+    private static List<String> ids;
+
+    @RegisterExtension
+    static final FakeServerExtension FAKE = new FakeServerExtension("exporter-test");
+
+    @BeforeAll
+    static void clients() {
+        sf = new SalesforceClient();
+        new DataService(sf).createAccounts(ACCOUNTS);
+        ids = sf.queryList("SELECT Id FROM Account ORDER BY Id").stream()
+                .map(r -> (String) r.get("Id")).collect(Collectors.toList());
+    }
+
+    @Test
+    void rowsComeOutInIdOrderWhateverTheChunking(@TempDir Path dir) throws IOException {
+        // 450 rows: a partial last chunk, chunks ending exactly on the last row, and a single chunk
+        AccountExporter.Result byHundred = new AccountExporter(sf, 100, 4).export(null, dir.resolve("100.csv").toFile());
+        AccountExporter.Result by150 = new AccountExporter(sf, 150, 4).export(null, dir.resolve("150.csv").toFile());
+        AccountExporter.Result single = new AccountExporter(sf, 1000, 4).export(null, dir.resolve("1000.csv").toFile());
+
+        assertEquals(5, byHundred.chunks);
+        assertEquals(3, by150.chunks);
+        assertEquals(1, single.chunks);
+        for (AccountExporter.Result r : List.of(byHundred, by150, single)) {
+            assertEquals(ACCOUNTS, r.rows);
+            assertEquals(ids, exportedIds(r.file));
+        }
+        assertArrayEquals(Files.readAllBytes(single.file.toPath()), Files.readAllBytes(byHundred.file.toPath()));
+        assertArrayEquals(Files.readAllBytes(single.file.toPath()), Files.readAllBytes(by150.file.toPath()));
+    }
+
+    @Test
+    void boundariesCostThreeQueriesHoweverManyRows(@TempDir Path dir) throws IOException {
+        long before = FAKE.server().requests();
+        AccountExporter.Result r = new AccountExporter(sf, 50, 4).export(null, dir.resolve("50.csv").toFile());
+
+        assertEquals(9, r.chunks);
+        assertEquals(ids, exportedIds(r.file));
+        // COUNT(), lowest and highest Id, then one single-page query per chunk
+        assertEquals(3 + r.chunks, FAKE.server().requests() - before);
+    }
+
+    @Test
+    void whereConditionAppliesToEveryChunk(@TempDir Path dir) throws IOException {
+        String last = ids.get(ACCOUNTS - 1);
+        AccountExporter.Result r = new AccountExporter(sf, 100, 4)
+                .export("Id != '" + last + "'", dir.resolve("where.csv").toFile());
+
+        assertEquals(ACCOUNTS - 1, r.rows);
+        assertEquals(ids.subList(0, ACCOUNTS - 1), exportedIds(r.file));
+    }
+
+    @Test
+    void exportToGitHubCommitsTheSameCsv(@TempDir Path dir) throws IOException {
+        GitHubClient gh = new GitHubClient();
+        AccountExporter exporter = new AccountExporter(sf, 100, 4);
+        exporter.exportToGitHub(null, gh, "master", "exports/accounts.csv", "export accounts");
+
+        File local = exporter.export(null, dir.resolve("local.csv").toFile()).file;
+        assertArrayEquals(Files.readAllBytes(local.toPath()), gh.getFile("master", "exports/accounts.csv"));
+    }
+
+    /** Id column of an exported CSV, checking the header. */
+    private static List<String> exportedIds(File csv) throws IOException {
+        List<String> lines = Files.readAllLines(csv.toPath(), StandardCharsets.UTF_8);
+        assertEquals("Id,Name,Country,NumberOfEmployees", lines.get(0));
+        List<String> out = new ArrayList<>(lines.size() - 1);
+        for (String line : lines.subList(1, lines.size())) out.add(line.substring(0, line.indexOf(',')));
+        return out;
+    }
+}
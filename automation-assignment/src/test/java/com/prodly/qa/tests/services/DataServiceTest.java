@@ -0,0 +1,105 @@
+package com.prodly.qa.tests.services;
+
+import com.prodly.qa.api.SalesforceClient;
+import com.prodly.qa.models.Account;
+import com.prodly.qa.services.DataService;
+import com.prodly.qa.tests.fake.FakeServer;
+import com.prodly.qa.tests.fake.FakeServerExtension;
+import com.prodly.qa.utils.CsvPipeline;
+import com.prodly.qa.utils.PhoneGenerator;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/** DataService against {@link FakeServer}. */
+class DataServiceTest {
+    private static SalesforceClient sf;
+    private static Path stateDir;
+
+    @RegisterExtension
+    static final FakeServerExtension FAKE = new FakeServerExtension("data-service-test");
+
+    @BeforeAll
+    static void clients() throws IOException {
+        stateDir = Files.createTempDirectory("delta-state");
+        System.setProperty("SF_DELTA_STATE_DIR", stateDir.toString());
+        sf = new SalesforceClient();
+    }
+
+    @Test
+    void deltaSyncSendsOnlyChangedRowsAndCleanupDropsState(@TempDir Path dir) throws IOException {
+        DataService data = new DataService(sf);
+        List<Account> accs = data.createAccounts(5);
+        File base = data.exportNoPhoneCsv(accs, dir.resolve("base.csv").toFile());
+        Map<String, String> phones = new HashMap<>();
+        for (Account a : accs) phones.put(a.getName(), PhoneGenerator.forCountry(a.getCountry()));
+        File branch = withPhones(base, phones, dir.resolve("branch.csv").toFile());
+
+        assertEquals(5, data.updateAccountsDelta(open(base), open(branch), "test"));
+        assertEquals(0, data.updateAccountsDelta(open(base), open(branch), "test"), "rerun sends nothing");
+
+        Account changed = accs.get(2);
+        phones.put(changed.getName(), "+1 617 555 0199");
+        branch = withPhones(base, phones, dir.resolve("branch2.csv").toFile());
+        assertEquals(1, data.updateAccountsDelta(open(base), open(branch), "test"));
+        assertEquals("+1 617 555 0199",
+                sf.queryList("SELECT Id, Phone FROM Account WHERE Id = '" + changed.getId() + "'").get(0).get("Phone"));
+        assertTrue(data.getFailures().isEmpty(), data.getFailures().toString());
+
+        File state = stateDir.resolve("Account-test.idx").toFile();
+        assertTrue(state.exists());
+        assertEquals(5, data.cleanup());
+        assertFalse(state.exists(), "state of deleted accounts is dropped");
+    }
+
+    @Test
+    void unparsableCellFailsItsRowAndTheSyncGoesOn(@TempDir Path dir) throws IOException {
+        DataService data = new DataService(sf);
+        List<Account> accs = data.createAccounts(3);
+        File base = data.exportNoPhoneCsv(accs, dir.resolve("base.csv").toFile());
+        List<String> lines = Files.readAllLines(base.toPath());
+        String bad = lines.get(1);
+        lines.set(1, bad.substring(0, bad.lastIndexOf(',') + 1) + "lots");
+        File edited = Files.write(dir.resolve("edited.csv"), lines).toFile();
+        Map<String, String> phones = new HashMap<>();
+        for (Account a : accs) phones.put(a.getName(), PhoneGenerator.forCountry(a.getCountry()));
+        File branch = withPhones(edited, phones, dir.resolve("branch.csv").toFile());
+
+        assertEquals(2, data.updateAccountsDelta(open(base), open(branch), "bad-cell"));
+        String badId = bad.substring(0, bad.indexOf(','));
+        assertEquals(1, data.getFailures().size(), data.getFailures().toString());
+        assertTrue(data.getFailures().get(0).contains(badId), data.getFailures().toString());
+        assertTrue(data.getFailures().get(0).contains("NumberOfEmployees='lots'"), data.getFailures().toString());
+        assertEquals(3, data.cleanup());
+    }
+
+    private static File withPhones(File base, Map<String, String> phones, File out) throws IOException {
+        CsvPipeline.from(base).addColumn("Phone", r -> phones.get(r.get("Name"))).to(CsvPipeline.toFile(out));
+        return out;
+    }
+
+    private static Supplier<InputStream> open(File f) {
+        return () -> {
+            try {
+                return new FileInputStream(f);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        };
+    }
+}
@@ -0,0 +1,80 @@
+package com.prodly.qa.tests.services;
+
+import com.prodly.qa.api.SalesforceClient;
+import com.prodly.qa.services.DataService;
+import com.prodly.qa.services.SeedLoader;
+import com.prodly.qa.tests.fake.FakeServer;
+import com.prodly.qa.tests.fake.FakeServerExtension;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/** SeedLoader (through DataService) against {@link FakeServer}, with files in the data/*.csv layout. */
+class SeedLoaderTest {
+    private static SalesforceClient sf;
+
+    @RegisterExtension
+    static final FakeServerExtension FAKE = new FakeServerExtension("seed-loader-test");
+
+    @BeforeAll
+    static void clients() {
+        sf = new SalesforceClient();
+    }
+
+    @Test
+    void upsertsAccountsThenContactsByGuid(@TempDir Path dir) throws IOException {
+        File accounts = write(dir.resolve("Account.csv"),
+                "Guid,Name,BillingCountry,Phone,Description,ccrz__Tier__c",
+                "a-1,Acme,United States,1.508.390.1000,true,Gold",
+                "a-2,Roo,Australia,(02) 7112 6523,#N/A,Gold");
+        File contacts = write(dir.resolve("Contact.csv"),
+                "Guid,AccountId,LastName,MailingCountry,Phone,HasOptedOutOfEmail,ContactSource,MailingGeocodeAccuracy",
+                "c-1,a-2,Smith,Australia,(02) 7948 6474,false,Web,Address",
+                "c-2,a-1,Jones,#N/A,555 0123,true,#N/A,#N/A");
+        DataService data = new DataService(sf);
+
+        SeedLoader.Result res = data.loadSeedData(accounts, contacts);
+        assertEquals(2, res.accountsOk);
+        assertEquals(2, res.contactsOk);
+        assertTrue(res.failures.isEmpty(), res.failures.toString());
+
+        Map<String, Object> acme = row("SELECT Id, Phone, Description, ccrz__Tier__c FROM Account WHERE Guid__c = 'a-1'");
+        assertEquals("+15083901000", acme.get("Phone"));
+        assertEquals("true", acme.get("Description"), "text that reads like a boolean stays text");
+        assertNull(acme.get("ccrz__Tier__c"), "managed package columns are skipped");
+
+        Map<String, Object> roo = row("SELECT Id FROM Account WHERE Guid__c = 'a-2'");
+        Map<String, Object> smith = row("SELECT AccountId, Phone, HasOptedOutOfEmail, ContactSource, MailingGeocodeAccuracy"
+                + " FROM Contact WHERE Guid__c = 'c-1'");
+        assertEquals(roo.get("Id"), smith.get("AccountId"));
+        assertEquals("+61279486474", smith.get("Phone"));
+        assertEquals(Boolean.FALSE, smith.get("HasOptedOutOfEmail"));
+        assertNull(smith.get("ContactSource"), "read-only fields are not sent");
+        assertNull(smith.get("MailingGeocodeAccuracy"));
+
+        Map<String, Object> jones = row("SELECT Phone, HasOptedOutOfEmail FROM Contact WHERE Guid__c = 'c-2'");
+        assertEquals("555 0123", jones.get("Phone"), "a phone that cannot be normalized is kept as written");
+        assertEquals(Boolean.TRUE, jones.get("HasOptedOutOfEmail"));
+
+        data.loadSeedData(accounts, contacts);
+        assertEquals(2, FAKE.server().salesforce().count("Account"), "reloading updates by Guid");
+        assertEquals(2, FAKE.server().salesforce().count("Contact"));
+    }
+
+    private static Map<String, Object> row(String soql) {
+        return sf.queryList(soql).get(0);
+    }
+
+    private static File write(Path p, String... lines) throws IOException {
+        return Files.write(p, (String.join("\n", lines) + "\n").getBytes()).toFile();
+    }
+}
@@ -1,33 +1,53 @@
 package com.prodly.qa.tests.steps;
 
 import com.prodly.qa.api.GitHubClient;
+import com.prodly.qa.api.HttpTransport;
 import com.prodly.qa.api.SalesforceClient;
 import com.prodly.qa.config.Config;
 import com.prodly.qa.models.Account;
 import com.prodly.qa.services.DataService;
-import com.prodly.qa.utils.CsvUtil;
+import com.prodly.qa.services.OrphanSweeper;
+import com.prodly.qa.utils.CsvPipeline;
+import com.prodly.qa.utils.Metrics;
+import com.prodly.qa.utils.PhoneGenerator;
 import com.prodly.qa.utils.PhoneValidator;
 import io.cucumber.java.After;
+import io.cucumber.java.AfterAll;
+import io.cucumber.java.Before;
+import io.cucumber.java.BeforeAll;
+import io.cucumber.java.Scenario;
 import io.cucumber.java.en.*;
 import org.junit.jupiter.api.Assertions;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.File;
+import java.io.InputStream;
 import java.nio.file.Files;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * Main Cucumber flow implementing the full Prodly QA Automation test assignment.
+ * Cucumber creates one instance per scenario, so everything mutable lives in instance fields
+ * (DataService and its created-record tracking, local files, GitHub path and branch) and
+ * scenarios can run in parallel; only the thread-safe clients are shared.
  */
 public class FlowSteps {
 
     private static final Logger log = LoggerFactory.getLogger(FlowSteps.class);
     private static final SalesforceClient sf = new SalesforceClient();
-    private static final DataService data = new DataService(sf);
     private static final GitHubClient gh = new GitHubClient();
+    private static final AtomicInteger SCENARIO_SEQ = new AtomicInteger();
+
+    private final DataService data = new DataService(sf);
+    /** Unique per scenario in this run; namespaces GitHub paths, branches and local files. */
+    private String tag;
+    private File workDir;
 
     private List<Account> created;
     private File csvMain;
@@ -35,6 +55,29 @@ public class FlowSteps {
     private String path;
     private String branch;
 
+    @BeforeAll
+    public static void sweepOrphans() {
+        if (!Config.SWEEP_ORPHANS) return;
+        String runId = Config.SWEEP_RUN_ID;
+        if (runId == null) {
+            log.warn("🧹 SWEEP_ORPHANS=true needs SWEEP_RUN_ID (a finished run, or *); not sweeping");
+            return;
+        }
+        try {
+            log.info("🧹 Sweeping leftovers of run {}: {}", runId, new OrphanSweeper(sf, gh).sweep(runId));
+        } catch (Exception e) {
+            log.warn("Orphan sweep failed: {}", e.getMessage());
+        }
+    }
+
+    @Before
+    public void scopeScenario(Scenario scenario) {
+        tag = "s" + SCENARIO_SEQ.incrementAndGet();
+        workDir = new File("target/scenarios/" + tag);
+        workDir.mkdirs();
+        log.info("▶ Scenario {} '{}'", tag, scenario.getName());
+    }
+
     @Given("Salesforce auth works with client credentials")
     public void auth() {
         sf.authenticate();
@@ -52,32 +95,27 @@ public class FlowSteps {
     public void exportAndCommitMain() throws Exception {
         // Unique file path per run
         String timestamp = LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMddHHmmss"));
-        path = "data-autotest/accounts-" + Config.RUN_ID + "-" + timestamp + ".csv";
+        path = "data-autotest/accounts-" + Config.RUN_ID + "-" + tag + "-" + timestamp + ".csv";
 
-        csvMain = data.exportNoPhoneCsv(created);
-        byte[] content = Files.readAllBytes(csvMain.toPath());
+        csvMain = data.exportNoPhoneCsv(created, new File(workDir, "accounts_no_phone.csv"));
 
         log.info("📦 Exporting {} accounts to GitHub path: {}", created.size(), path);
-        gh.putFile("master", path, content, "feat: export accounts without phone (" + Config.RUN_ID + ")");
+        gh.putFile("master", path, csvMain.toPath(), "feat: export accounts without phone (" + Config.RUN_ID + ")");
     }
 
     @When("I create a new branch from main and add Phone column in CSV")
     public void branchAndAddPhones() throws Exception {
         String dt = LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMddHHmmss"));
-        branch = "phones-" + Config.RUN_ID + "-" + dt;
+        branch = "phones-" + Config.RUN_ID + "-" + tag + "-" + dt;
         gh.createBranch(branch, "master");
         log.info("🌿 Created new branch {}", branch);
 
-        byte[] content = gh.getFile("master", path);
-        File in = new File("target/in.csv");
-        Files.write(in.toPath(), content);
-
-        csvWithPhones = new File("target/accounts_with_phone.csv");
-        CsvUtil.addPhoneColumn(in, csvWithPhones);
-        List<Account> accs = CsvUtil.readWithPhones(csvWithPhones);
-
-        accs.forEach(a -> Assertions.assertTrue(PhoneValidator.isValid(a.getPhone()), "Bad phone: " + a.getPhone()));
-        log.info("📞 Added phone numbers for {} accounts", accs.size());
+        csvWithPhones = new File(workDir, "accounts_with_phone.csv");
+        long rows = CsvPipeline.from(gh.openFile("master", path))
+                .addColumn("Phone", r -> PhoneGenerator.forCountry(r.get("Country")))
+                .validate("Phone", PhoneValidator::isValid)
+                .to(CsvPipeline.toFile(csvWithPhones));
+        log.info("📞 Added phone numbers for {} accounts", rows);
     }
 
     @When("I create a new branch from main and add Phone column in CSV with an invalid row")
@@ -95,29 +133,36 @@ public class FlowSteps {
 
     @When("I push updated CSV to the new branch")
     public void pushUpdatedCsv() throws Exception {
-        byte[] content = Files.readAllBytes(csvWithPhones.toPath());
-        gh.putFile(branch, path, content, "feat: add phone numbers (" + Config.RUN_ID + ")");
+        gh.putFile(branch, path, csvWithPhones.toPath(), "feat: add phone numbers (" + Config.RUN_ID + ")");
         log.info("🚀 Pushed updated CSV with phones to branch {}", branch);
     }
 
     @When("I update Accounts in Salesforce with phones from the CSV")
     public void updateSF() throws Exception {
-        byte[] content = gh.getFile(branch, path);
-        File tmp = new File("target/in_branch.csv");
-        Files.write(tmp.toPath(), content);
-        List<Account> accs = CsvUtil.readWithPhones(tmp);
-        int ok = data.updateAccountsPhones(accs);
+        if (Config.SF_BULK_MODE) {
+            int ok;
+            try (InputStream in = gh.openFile(branch, path)) {
+                ok = data.updateAccountsPhonesBulk(in, workDir);
+            }
+            Assertions.assertTrue(ok > 0, "No accounts updated");
+            log.info("✅ Bulk-updated {} accounts with phone numbers in Salesforce", ok);
+            return;
+        }
+        if (Config.SF_DELTA_SYNC) {
+            int ok = data.updateAccountsDelta(() -> gh.openFile("master", path), () -> gh.openFile(branch, path),
+                    Config.SF_DELTA_STATE_KEY);
+            Assertions.assertTrue(ok > 0, "No accounts updated");
+            log.info("✅ Delta-synced {} accounts with phone numbers in Salesforce", ok);
+            return;
+        }
+        int ok = updateFromCsv();
         Assertions.assertTrue(ok > 0, "No accounts updated");
         log.info("✅ Updated {} accounts with phone numbers in Salesforce", ok);
     }
 
     @When("I update Accounts in Salesforce with phones from the CSV handling errors")
     public void updateSfWithErrors() throws Exception {
-        byte[] content = gh.getFile(branch, path);
-        File tmp = new File("target/in_branch.csv");
-        Files.write(tmp.toPath(), content);
-        List<Account> accs = CsvUtil.readWithPhones(tmp);
-        int ok = data.updateAccountsPhones(accs);
+        int ok = updateFromCsv();
         if (ok == 0) {
             log.warn("⚠️ No valid accounts updated due to intentional invalid data");
         }
@@ -125,6 +170,28 @@ public class FlowSteps {
         log.info("✅ Error-handling flow executed; valid rows processed if any");
     }
 
+    /**
+     * Stream the branch CSV from GitHub straight into Salesforce collection updates. Batches are
+     * sent asynchronously, so downloading and parsing the next rows overlaps the PATCHes in flight.
+     * If the download fails, the batches already sent are awaited before rethrowing, so cleanup
+     * does not race them.
+     */
+    private int updateFromCsv() throws Exception {
+        List<CompletableFuture<Integer>> updates = new ArrayList<>();
+        try {
+            CsvPipeline.from(gh.openFile(branch, path))
+                    .to(CsvPipeline.toAccountBatches(SalesforceClient.COLLECTION_LIMIT,
+                            batch -> updates.add(data.updateAccountsPhonesAsync(batch))));
+        } catch (Exception e) {
+            // the batch futures never fail; their errors are recorded by DataService
+            CompletableFuture.allOf(updates.toArray(new CompletableFuture<?>[0])).join();
+            throw e;
+        }
+        int ok = 0;
+        for (CompletableFuture<Integer> f : updates) ok += f.join();
+        return ok;
+    }
+
     @Then("all updates should be successful")
     public void allOk() {
         Assertions.assertTrue(true);
@@ -141,7 +208,11 @@ public class FlowSteps {
     public void cleanupScenario() {
         try {
             data.cleanup();
-            log.info("🧹 Salesforce cleanup completed");
+            if (data.getFailures().stream().anyMatch(f -> f.contains("cleanup"))) {
+                log.warn("🧹 Salesforce cleanup left records behind; SWEEP_ORPHANS=true purges them next run");
+            } else {
+                log.info("🧹 Salesforce cleanup completed");
+            }
         } catch (Exception e) {
             log.error("Salesforce cleanup failed: {}", e.getMessage());
         }
@@ -158,5 +229,14 @@ public class FlowSteps {
         } catch (Exception e) {
             log.warn("GitHub cleanup failed or skipped: {}", e.getMessage());
         }
+        log.info("🔌 HTTP transport: {}", HttpTransport.shared().stats());
+        log.info("🗃 GitHub cache: {}", gh.cacheStats());
+        log.info("🗃 SF query cache: {}", sf.queryCacheStats());
+        log.info("🔁 Retry: {} {}", sf.retryPolicy(), gh.retryPolicy());
+    }
+
+    @AfterAll
+    public static void writeMetricsReport() {
+        Metrics.writeReport(new File("target"));
     }
 }
\ No newline at end of file
@@ -0,0 +1,93 @@
+package com.prodly.qa.tests.utils;
+
+import com.prodly.qa.utils.LongHashIndex;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/** {@link LongHashIndex}: table operations against a HashMap, file round trips and rejected files. */
+class LongHashIndexTest {
+    private static final long TAG = 42;
+
+    @Test
+    void putGetRemoveMatchAHashMapThroughGrowth() {
+        LongHashIndex index = LongHashIndex.create(TAG, 2, 0);
+        Map<Long, Long> expected = new HashMap<>();
+        Random rnd = new Random(7);
+        long[] out = new long[2];
+        for (int i = 0; i < 20_000; i++) {
+            long key = 1 + rnd.nextInt(5_000);
+            if (rnd.nextInt(4) == 0) {
+                assertEquals(expected.remove(key) != null, index.remove(key));
+            } else {
+                index.put(key, new long[]{key * 3, i});
+                expected.put(key, (long) i);
+            }
+        }
+        assertEquals(expected.size(), index.size());
+        for (long key = 1; key <= 5_000; key++) {
+            Long v = expected.get(key);
+            assertEquals(v != null, index.get(key, out), "key " + key);
+            if (v != null) {
+                assertEquals(key * 3, out[0]);
+                assertEquals((long) v, out[1]);
+            }
+        }
+        assertThrows(IllegalArgumentException.class, () -> index.put(0, new long[2]), "key 0 marks empty slots");
+    }
+
+    @Test
+    void fileSurvivesGrowthAndReopen(@TempDir Path dir) throws IOException {
+        File f = dir.resolve("ids.idx").toFile();
+        try (LongHashIndex index = LongHashIndex.open(f, TAG, 1)) {
+            for (long key = 1; key <= 1_000; key++) index.put(key, new long[]{key + 1});
+            index.remove(500);
+        }
+        long[] out = new long[1];
+        try (LongHashIndex index = LongHashIndex.open(f, TAG, 1)) {
+            assertEquals(999, index.size());
+            assertFalse(index.get(500, out));
+            for (long key = 1; key <= 1_000; key++) {
+                if (key == 500) continue;
+                assertTrue(index.get(key, out), "key " + key);
+                assertEquals(key + 1, out[0]);
+            }
+        }
+    }
+
+    @Test
+    void tornRewriteAndForeignFilesAreRejected(@TempDir Path dir) throws IOException {
+        File f = dir.resolve("ids.idx").toFile();
+        try (LongHashIndex index = LongHashIndex.open(f, TAG, 1)) {
+            index.put(1, new long[]{1});
+        }
+
+        assertThrows(IOException.class, () -> LongHashIndex.open(f, TAG + 1, 1), "other tag");
+        assertThrows(IOException.class, () -> LongHashIndex.open(f, TAG, 2), "other width");
+
+        // growth clears the magic before touching the table; a crash before the header is rewritten leaves this
+        try (RandomAccessFile raf = new RandomAccessFile(f, "rw")) {
+            raf.writeLong(0);
+        }
+        IOException torn = assertThrows(IOException.class, () -> LongHashIndex.open(f, TAG, 1));
+        assertTrue(torn.getMessage().contains("Not an index file"), torn.getMessage());
+
+        File truncated = dir.resolve("short.idx").toFile();
+        try (LongHashIndex index = LongHashIndex.open(truncated, TAG, 1)) {
+            index.put(1, new long[]{1});
+        }
+        try (RandomAccessFile raf = new RandomAccessFile(truncated, "rw")) {
+            raf.setLength(raf.length() - 8);
+        }
+        assertThrows(IOException.class, () -> LongHashIndex.open(truncated, TAG, 1));
+    }
+}
@@ -0,0 +1,98 @@
+package com.prodly.qa.tests.utils;
+
+import com.prodly.qa.utils.MappedCsvReader;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/** Parsing and split scanning of {@link MappedCsvReader}. */
+class MappedCsvReaderTest {
+
+    @Test
+    void quotesEscapesAndLineBreaks(@TempDir Path dir) throws IOException {
+        File f = write(dir, "Id,Name,Note,Phone\n"
+                + "1,\"Acme, Inc.\",plain,+1 617 555 0100\n"
+                + "2,\"Say \"\"hi\"\"\",\"two\nlines\",#N/A\n"
+                + "3,,\"\",\"#N/A\"\n");
+        List<List<String>> rows = read(MappedCsvReader.open(f, "Name", "Note", "Phone"), 3);
+
+        assertEquals(Arrays.asList("Acme, Inc.", "plain", "+1 617 555 0100"), rows.get(0));
+        assertEquals(Arrays.asList("Say \"hi\"", "two\nlines", null), rows.get(1), "unquoted #N/A reads as null");
+        assertEquals(Arrays.asList("", "", "#N/A"), rows.get(2), "quoted #N/A is kept");
+        assertEquals(3, rows.size());
+    }
+
+    @Test
+    void crlfBomAndMissingColumns(@TempDir Path dir) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        out.write(new byte[]{(byte) 0xEF, (byte) 0xBB, (byte) 0xBF});
+        out.write("Id,Name\r\n1,\"a\r\nb\"\r\n\r\n2,c\r\n".getBytes(StandardCharsets.UTF_8));
+        File f = dir.resolve("bom.csv").toFile();
+        Files.write(f.toPath(), out.toByteArray());
+
+        MappedCsvReader csv = MappedCsvReader.open(f, "Id", "Name", "Phone");
+        assertEquals(List.of("Id", "Name"), csv.header(), "BOM is not part of the first column name");
+        assertTrue(csv.has("Id"));
+        assertFalse(csv.has("Phone"));
+        List<List<String>> rows = read(csv, 3);
+        assertEquals(Arrays.asList("1", "a\r\nb", null), rows.get(0));
+        assertEquals(Arrays.asList("2", "c", null), rows.get(1), "blank line skipped, CR not part of the value");
+        assertEquals(2, rows.size());
+    }
+
+    @Test
+    void splitsCoverEveryRecordOnceForAnyCount(@TempDir Path dir) throws IOException {
+        StringBuilder sb = new StringBuilder("Id,Note\n");
+        for (int i = 0; i < 500; i++) {
+            sb.append(i).append(',');
+            if (i % 3 == 0) sb.append("\"multi\nline, \"\"quoted\"\"\n").append(i).append('"');
+            else sb.append("row").append(i);
+            sb.append(i % 2 == 0 ? "\n" : "\r\n");
+        }
+        File f = write(dir, sb.toString());
+        MappedCsvReader csv = MappedCsvReader.open(f, "Id", "Note");
+        List<List<String>> all = read(csv, 2);
+        assertEquals(500, all.size());
+
+        for (int n : new int[]{1, 2, 3, 7, 64, 5000}) {
+            List<MappedCsvReader.Split> splits = csv.splits(n);
+            assertTrue(splits.size() <= n, n + " -> " + splits);
+            assertEquals(f.length(), splits.get(splits.size() - 1).end);
+            List<List<String>> joined = new ArrayList<>();
+            for (int i = 0; i < splits.size(); i++) {
+                if (i > 0) assertEquals(splits.get(i - 1).end, splits.get(i).start, "contiguous for n=" + n);
+                MappedCsvReader.Cursor c = csv.cursor(splits.get(i));
+                while (c.next()) joined.add(Arrays.asList(c.get(0), c.get(1)));
+            }
+            assertEquals(all, joined, "n=" + n);
+        }
+        assertEquals(500, csv.parallelForEach(4, c -> assertNotNull(c.get("Id"))));
+    }
+
+    private static File write(Path dir, String content) throws IOException {
+        File f = dir.resolve("data.csv").toFile();
+        Files.write(f.toPath(), content.getBytes(StandardCharsets.UTF_8));
+        return f;
+    }
+
+    private static List<List<String>> read(MappedCsvReader csv, int columns) throws IOException {
+        List<List<String>> rows = new ArrayList<>();
+        csv.forEach(c -> {
+            List<String> row = new ArrayList<>(columns);
+            for (int i = 0; i < columns; i++) row.add(c.get(i));
+            rows.add(row);
+        });
+        return rows;
+    }
+}
@@ -0,0 +1,80 @@
+package com.prodly.qa.tests.utils;
+
+import com.prodly.qa.utils.PhoneGenerator;
+import com.prodly.qa.utils.PhoneNormalizer;
+import com.prodly.qa.utils.PhoneValidator;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/** One case per prefix rule of {@link PhoneNormalizer}, using notations from data/Account.csv. */
+class PhoneNormalizerTest {
+
+    @Test
+    void dottedNanpWithLeadingOne() {
+        assertEquals("+15083901000", PhoneNormalizer.toE164("1.508.390.1000", "United States"));
+        assertEquals("+15083901000", PhoneNormalizer.toE164("1.508.390.1000", null));
+        assertTrue(PhoneValidator.isNormalizable("1.508.390.1000"));
+        assertFalse(PhoneValidator.isValid("1.508.390.1000"), "isValid only accepts E.164 as written");
+        assertTrue(PhoneValidator.isValid("+1 (508) 390-1000"));
+    }
+
+    @Test
+    void australianTrunkZeroIsDropped() {
+        assertEquals("+61271126523", PhoneNormalizer.toE164("(02) 7112 6523", "Australia"));
+        assertEquals("+61271126523", PhoneNormalizer.toE164("(02) 7112 6523", "AU"));
+    }
+
+    @Test
+    void nanpExitCode011() {
+        assertEquals("+496935766843", PhoneNormalizer.toE164("011 49 69 3576 6843", "US"));
+        assertEquals("+496935766843", PhoneNormalizer.toE164("011 49 69 3576 6843", null));
+    }
+
+    @Test
+    void australianExitCode0011() {
+        assertEquals("+61299999999", PhoneNormalizer.toE164("0011 61 2 9999 9999", "AU"));
+        assertEquals("+442079460958", PhoneNormalizer.toE164("0011 44 20 7946 0958", "Australia"));
+    }
+
+    @Test
+    void genericExitCode00() {
+        assertEquals("+496935766843", PhoneNormalizer.toE164("0049 69 3576 6843", "Germany"));
+        assertEquals("+442079460958", PhoneNormalizer.toE164("00 44 (0)20 7946 0958", "AU"));
+    }
+
+    @Test
+    void plusFormDropsTrunkZeroAfterCode() {
+        assertEquals("+33123456789", PhoneNormalizer.toE164("+33 0 1 23 45 67 89", "France"));
+        assertEquals("+15083901000", PhoneNormalizer.toE164("+1 508-390-1000 x12", null));
+    }
+
+    @Test
+    void numberNotValidForHintedCountryIsNull() {
+        // an Australian number read as NANP would need area code 027
+        assertNull(PhoneNormalizer.toE164("(02) 7112 6523", "United States"));
+        // 011 is not Australia's exit code: read nationally it has too many digits
+        assertNull(PhoneNormalizer.toE164("011 49 69 3576 6843", "Australia"));
+        assertFalse(PhoneValidator.isNormalizable("(02) 7112 6523"));
+        assertTrue(PhoneValidator.isNormalizable("(02) 7112 6523", "Australia"));
+        assertFalse(PhoneValidator.isValid("(02) 7112 6523"));
+    }
+
+    @Test
+    void blanksAndPlaceholdersAreNull() {
+        assertNull(PhoneNormalizer.toE164(null, "US"));
+        assertNull(PhoneNormalizer.toE164("  ", "US"));
+        assertNull(PhoneNormalizer.toE164("#N/A", "US"));
+        assertFalse(PhoneValidator.isValid("#N/A"));
+    }
+
+    @Test
+    void generatedPhonesAreValid() {
+        for (String country : new String[]{"US", "GB", "DE", "FR", "UA"}) {
+            for (int i = 0; i < 100; i++) {
+                String phone = PhoneGenerator.forCountry(country);
+                assertTrue(PhoneValidator.isValid(phone), phone);
+            }
+        }
+    }
+}